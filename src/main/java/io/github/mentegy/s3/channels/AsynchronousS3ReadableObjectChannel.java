@@ -0,0 +1,185 @@
+package io.github.mentegy.s3.channels;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.AsynchronousByteChannel;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.CompletionHandler;
+import java.nio.channels.ReadPendingException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Asynchronous view of readable s3 object channel. Every read is run on given executor service
+ * by absolute position read of underlying channel, so calling thread is never blocked.
+ * <p>
+ * Reads by absolute position {@link AsynchronousS3ReadableObjectChannel#read(ByteBuffer, long)} could be
+ * outstanding in any number, as long as underlying channel supports concurrent reads by absolute position,
+ * e.g. {@link io.github.mentegy.s3.channels.impl.S3RangedReadObjectChannel}.
+ * Reads by current position follow {@link AsynchronousByteChannel} contract: only one could be pending.
+ */
+public class AsynchronousS3ReadableObjectChannel implements AsynchronousByteChannel {
+
+    /**
+     * Underlying channel
+     */
+    public final S3ReadableObjectChannel channel;
+
+    /**
+     * Executor service which runs reads
+     */
+    public final ExecutorService executor;
+
+    private final AtomicBoolean reading = new AtomicBoolean();
+    private volatile long position;
+
+    public AsynchronousS3ReadableObjectChannel(S3ReadableObjectChannel channel, ExecutorService executor) {
+        this.channel = channel;
+        this.executor = executor;
+    }
+
+    /**
+     * Reads a sequence of bytes from this channel into the given buffer starting from given position.
+     * Does not change current position.
+     *
+     * @param dst      destination buffer
+     * @param position object position to read from
+     * @return future of read bytes
+     */
+    public CompletableFuture<Integer> read(ByteBuffer dst, long position) {
+        if (!channel.isOpen()) {
+            CompletableFuture<Integer> failed = new CompletableFuture<>();
+            failed.completeExceptionally(new ClosedChannelException());
+            return failed;
+        }
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                return channel.read(dst, position);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }, executor);
+    }
+
+    /**
+     * Reads a sequence of bytes from this channel into the given buffer starting from given position.
+     * Does not change current position.
+     *
+     * @param dst        destination buffer
+     * @param position   object position to read from
+     * @param attachment object to attach to the I/O operation, could be {@code null}
+     * @param handler    handler for consuming the result
+     */
+    public <A> void read(ByteBuffer dst, long position, A attachment,
+                         CompletionHandler<Integer, ? super A> handler) {
+        read(dst, position).whenComplete((read, e) -> {
+            if (e == null) {
+                handler.completed(read, attachment);
+            } else {
+                handler.failed(unwrap(e), attachment);
+            }
+        });
+    }
+
+    /**
+     * Reads a sequence of bytes from this channel into the given buffer starting from current position.
+     * Increases current position by read bytes once read is completed.
+     *
+     * @param dst destination buffer
+     * @return future of read bytes
+     * @throws ReadPendingException if previous read by current position is not completed yet
+     */
+    @Override
+    public CompletableFuture<Integer> read(ByteBuffer dst) {
+        if (!reading.compareAndSet(false, true)) {
+            throw new ReadPendingException();
+        }
+        return read(dst, position).whenComplete((read, e) -> {
+            if (e == null && read > 0) {
+                position += read;
+            }
+            reading.set(false);
+        });
+    }
+
+    @Override
+    public <A> void read(ByteBuffer dst, A attachment, CompletionHandler<Integer, ? super A> handler) {
+        read(dst).whenComplete((read, e) -> {
+            if (e == null) {
+                handler.completed(read, attachment);
+            } else {
+                handler.failed(unwrap(e), attachment);
+            }
+        });
+    }
+
+    /**
+     * Returns current position
+     *
+     * @return current position
+     */
+    public long position() {
+        return position;
+    }
+
+    /**
+     * Sets new position.
+     *
+     * @param newPosition new position
+     * @return this channel
+     * @throws ReadPendingException if read by current position is not completed yet
+     */
+    public AsynchronousS3ReadableObjectChannel position(long newPosition) {
+        if (reading.get()) {
+            throw new ReadPendingException();
+        }
+        position = newPosition;
+        return this;
+    }
+
+    /**
+     * S3 objects are readonly
+     *
+     * @throws UnsupportedOperationException if called
+     */
+    @Override
+    public <A> void write(ByteBuffer src, A attachment, CompletionHandler<Integer, ? super A> handler) {
+        throw new UnsupportedOperationException();
+    }
+
+    /**
+     * S3 objects are readonly
+     *
+     * @throws UnsupportedOperationException if called
+     */
+    @Override
+    public CompletableFuture<Integer> write(ByteBuffer src) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public boolean isOpen() {
+        return channel.isOpen();
+    }
+
+    /**
+     * Closes underlying channel. Executor service is not shut down
+     */
+    @Override
+    public void close() {
+        channel.close();
+    }
+
+    private static Throwable unwrap(Throwable e) {
+        if (e instanceof CompletionException && e.getCause() != null) {
+            e = e.getCause();
+        }
+        if (e instanceof UncheckedIOException) {
+            e = e.getCause();
+        }
+        return e;
+    }
+}
@@ -0,0 +1,53 @@
+package io.github.mentegy.s3.channels;
+
+import java.util.Objects;
+
+/**
+ * Range of object bytes requested by vectored read,
+ * see {@link S3ReadableObjectChannel#readVectored(java.util.List, java.util.function.IntFunction)}
+ */
+public final class FileRange {
+
+    /**
+     * Range start position in object
+     */
+    public final long offset;
+
+    /**
+     * Range length
+     */
+    public final int length;
+
+    public FileRange(long offset, int length) {
+        if (offset < 0 || length < 0) {
+            throw new IllegalArgumentException("Range offset and length must not be negative");
+        }
+        this.offset = offset;
+        this.length = length;
+    }
+
+    /**
+     * Range end position, exclusive
+     */
+    public long end() {
+        return offset + length;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        FileRange range = (FileRange) o;
+        return offset == range.offset && length == range.length;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(offset, length);
+    }
+
+    @Override
+    public String toString() {
+        return "[" + offset + ", " + end() + ")";
+    }
+}
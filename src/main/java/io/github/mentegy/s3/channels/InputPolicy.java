@@ -0,0 +1,21 @@
+package io.github.mentegy.s3.channels;
+
+/**
+ * Access pattern hint for readable channel, similar to {@code posix_fadvise}.
+ */
+public enum InputPolicy {
+    /**
+     * Object is read mostly sequentially: single long-lived GET stream is kept open and consumed incrementally.
+     * Stream is reopened only on backward seek or forward seek further than seek threshold
+     */
+    SEQUENTIAL,
+    /**
+     * Object is read at random positions: every read is served by its own ranged GET
+     */
+    RANDOM,
+    /**
+     * Starts as {@link InputPolicy#SEQUENTIAL}, switches to {@link InputPolicy#RANDOM} once stream could not
+     * serve a read and switches back after a few consecutive sequential reads
+     */
+    ADAPTIVE
+}
@@ -5,9 +5,35 @@ import io.github.mentegy.s3.channels.builder.S3ReadableObjectChannelBuilder;
 
 import java.io.IOException;
 import java.nio.ByteBuffer;
+import java.nio.channels.ScatteringByteChannel;
 import java.nio.channels.SeekableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.IntFunction;
 
-public abstract class S3ReadableObjectChannel implements SeekableByteChannel {
+public abstract class S3ReadableObjectChannel implements SeekableByteChannel, ScatteringByteChannel {
+
+    /**
+     * Default max distance between two ranges of vectored read which are merged into single request
+     */
+    public static final int DEFAULT_VECTORED_MAX_GAP = 16 * 1024;
+
+    /**
+     * Default max size of merged range of vectored read
+     */
+    public static final int DEFAULT_VECTORED_MAX_MERGED_SIZE = 1024 * 1024;
+
+    /**
+     * Default size of single range request of {@link S3ReadableObjectChannel#transferTo(long, long, WritableByteChannel)}
+     */
+    public static final int DEFAULT_TRANSFER_PART_SIZE = 8 * 1024 * 1024;
+
+    /**
+     * Default number of concurrently fetched parts of
+     * {@link S3ReadableObjectChannel#transferTo(long, long, WritableByteChannel)}
+     */
+    public static final int DEFAULT_TRANSFER_PARALLELISM = 4;
 
     /**
      * Object key in S3
@@ -58,6 +84,116 @@ public abstract class S3ReadableObjectChannel implements SeekableByteChannel {
     @Override
     public abstract int read(ByteBuffer dst) throws IOException;
 
+    /**
+     * Reads a sequence of bytes from this channel into a subsequence of the given buffers starting from given position.
+     * Buffers are filled in order. Does not change current position.
+     *
+     * @param dsts   destination buffers
+     * @param offset offset within the buffer array of the first buffer into which bytes are to be transferred
+     * @param length maximum number of buffers to be accessed
+     * @return read bytes, or {@code -1} if given position is at the end of object
+     * @throws IOException - if any
+     */
+    public abstract long read(ByteBuffer[] dsts, int offset, int length, long position) throws IOException;
+
+    /**
+     * Reads a sequence of bytes from this channel into a subsequence of the given buffers starting from
+     * current position. Increases current position by read bytes.
+     *
+     * @param dsts   destination buffers
+     * @param offset offset within the buffer array of the first buffer into which bytes are to be transferred
+     * @param length maximum number of buffers to be accessed
+     * @return read bytes, or {@code -1} if current position is at the end of object
+     * @throws IOException - if any
+     */
+    @Override
+    public long read(ByteBuffer[] dsts, int offset, int length) throws IOException {
+        long position = position();
+        long read = read(dsts, offset, length, position);
+        if (read > 0) {
+            position(position + read);
+        }
+        return read;
+    }
+
+    /**
+     * Reads a sequence of bytes from this channel into the given buffers starting from current position.
+     * Increases current position by read bytes.
+     *
+     * @param dsts destination buffers
+     * @return read bytes, or {@code -1} if current position is at the end of object
+     * @throws IOException - if any
+     */
+    @Override
+    public long read(ByteBuffer[] dsts) throws IOException {
+        return read(dsts, 0, dsts.length);
+    }
+
+    /**
+     * Reads given ranges asynchronously, with default coalescing settings.
+     * See {@link S3ReadableObjectChannel#readVectored(List, IntFunction, int, int)}
+     *
+     * @param ranges    ranges to read
+     * @param allocator buffer allocator, called with requested buffer size
+     * @return future of read data per range, in order of given ranges
+     */
+    public List<CompletableFuture<ByteBuffer>> readVectored(List<FileRange> ranges, IntFunction<ByteBuffer> allocator) {
+        return readVectored(ranges, allocator, DEFAULT_VECTORED_MAX_GAP, DEFAULT_VECTORED_MAX_MERGED_SIZE);
+    }
+
+    /**
+     * Reads given ranges asynchronously. Does not change current position.
+     * <p>
+     * Ranges, which are not further than {@code maxGap} from each other, are merged into single request
+     * as long as merged range does not exceed {@code maxMergedSize}. Each range's data is a slice of the
+     * buffer of its merged range, which is taken from given allocator.
+     * Range which exceeds object size is completed with {@link java.io.EOFException}.
+     *
+     * @param ranges        ranges to read, could overlap and be in any order
+     * @param allocator     buffer allocator, called with requested buffer size
+     * @param maxGap        max distance between ranges to be merged
+     * @param maxMergedSize max size of merged range
+     * @return future of read data per range, in order of given ranges. Each buffer is ready to be read
+     */
+    public abstract List<CompletableFuture<ByteBuffer>> readVectored(List<FileRange> ranges,
+                                                                     IntFunction<ByteBuffer> allocator,
+                                                                     int maxGap, int maxMergedSize);
+
+    /**
+     * Transfers bytes from this channel to given channel, with default part size and parallelism.
+     * See {@link S3ReadableObjectChannel#transferTo(long, long, WritableByteChannel, int, int)}
+     *
+     * @param position object position to start transfer from
+     * @param count    max number of bytes to be transferred
+     * @param target   target channel
+     * @return number of transferred bytes
+     * @throws IOException - if any
+     */
+    public long transferTo(long position, long count, WritableByteChannel target) throws IOException {
+        return transferTo(position, count, target, DEFAULT_TRANSFER_PART_SIZE, DEFAULT_TRANSFER_PARALLELISM);
+    }
+
+    /**
+     * Transfers bytes from this channel to given channel. Does not change current position.
+     * <p>
+     * Object range is split into parts of {@code partSize}, up to {@code parallelism} of them are fetched
+     * concurrently. If target is {@link java.nio.channels.FileChannel}, every part is written directly at its
+     * own offset starting from target's position. Otherwise parts are written in order, so at most
+     * {@code parallelism} parts are kept in memory. In both cases target's position is increased by
+     * number of transferred bytes.
+     *
+     * @param position    object position to start transfer from
+     * @param count       max number of bytes to be transferred
+     * @param target      target channel
+     * @param partSize    size of single range request
+     * @param parallelism max number of concurrently fetched parts
+     * @return number of transferred bytes
+     * @throws IllegalArgumentException if part size or parallelism is not positive
+     * @throws IOException - if any
+     */
+    public abstract long transferTo(long position, long count, WritableByteChannel target,
+                                    int partSize, int parallelism) throws IOException;
+
     /**
      * Returns current position
      *
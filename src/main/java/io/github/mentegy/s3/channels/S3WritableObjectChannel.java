@@ -3,6 +3,11 @@ package io.github.mentegy.s3.channels;
 import com.amazonaws.services.s3.AmazonS3;
 import io.github.mentegy.s3.channels.builder.S3WritableObjectChannelBuilder;
 import io.github.mentegy.s3.channels.impl.S3AppendableDelayedHeaderObjectChannel;
+import io.github.mentegy.s3.channels.util.BlockAllocator;
+import io.github.mentegy.s3.channels.util.ConcurrencyLimiter;
+import io.github.mentegy.s3.channels.util.HeapBlockAllocator;
+import io.github.mentegy.s3.channels.util.InFlightLimit;
+import io.github.mentegy.s3.channels.util.PartSizePolicy;
 
 import java.nio.ByteBuffer;
 import java.nio.channels.GatheringByteChannel;
@@ -57,8 +62,40 @@ public abstract class S3WritableObjectChannel
      */
     public final int failedPartUploadRetries;
 
+    /**
+     * Shared adaptive limit of concurrent part uploads. Could be {@code null}
+     */
+    public final ConcurrencyLimiter limiter;
+
+    /**
+     * Allocator of part buffers, blocks must be of {@link S3WritableObjectChannel#partSize}.
+     * Buffers are released once their part is uploaded or failed for good
+     */
+    public final BlockAllocator partAllocator;
+
+    /**
+     * Bound of parts being uploaded at once, writes block once it is reached. Could be {@code null}
+     */
+    public final InFlightLimit inFlightLimit;
+
+    /**
+     * Decides size of every part, by default every part is of {@link S3WritableObjectChannel#partSize}
+     */
+    public final PartSizePolicy partSizePolicy;
+
     protected S3WritableObjectChannel(String key, String bucket, String uploadId, int partSize, AmazonS3 s3,
                                       ExecutorService executor, boolean closeExecutorOnClose, int failedPartUploadRetries) {
+        this(key, bucket, uploadId, partSize, s3, executor, closeExecutorOnClose, failedPartUploadRetries, null, null,
+                null, null);
+    }
+
+    protected S3WritableObjectChannel(String key, String bucket, String uploadId, int partSize, AmazonS3 s3,
+                                      ExecutorService executor, boolean closeExecutorOnClose, int failedPartUploadRetries,
+                                      ConcurrencyLimiter limiter, BlockAllocator partAllocator,
+                                      InFlightLimit inFlightLimit, PartSizePolicy partSizePolicy) {
+        if (partAllocator != null && partAllocator.blockSize() != partSize) {
+            throw new IllegalArgumentException("Part allocator's block size must be equal to part size");
+        }
         this.key = key;
         this.bucket = bucket;
         this.uploadId = uploadId;
@@ -67,6 +104,10 @@ public abstract class S3WritableObjectChannel
         this.executor = executor;
         this.closeExecutorOnClose = closeExecutorOnClose;
         this.failedPartUploadRetries = failedPartUploadRetries;
+        this.limiter = limiter;
+        this.partAllocator = partAllocator != null ? partAllocator : new HeapBlockAllocator(partSize);
+        this.inFlightLimit = inFlightLimit;
+        this.partSizePolicy = partSizePolicy != null ? partSizePolicy : PartSizePolicy.fixed(partSize);
     }
 
     /**
@@ -94,13 +135,28 @@ public abstract class S3WritableObjectChannel
 
     /**
      * Writes a sequence of bytes to this channel from the given buffer.
+     * <p>
+     * If {@link S3WritableObjectChannel#inFlightLimit} is set and reached, waits for in-flight parts
+     * to be uploaded up to limit's timeout.
      *
      * @param src The buffer from which bytes are to be retrieved
      * @return written bytes
+     * @throws java.io.UncheckedIOException with {@link java.nio.channels.InterruptedByTimeoutException} on timeout,
+     *                                      src position tells how many bytes were accepted
      */
     @Override
     public abstract int write(ByteBuffer src);
 
+    /**
+     * Writes as many bytes from the given buffer as could be accepted without waiting on
+     * {@link S3WritableObjectChannel#inFlightLimit}. Behaves as {@link S3WritableObjectChannel#write(ByteBuffer)}
+     * if limit is not set.
+     *
+     * @param src The buffer from which bytes are to be retrieved
+     * @return written bytes, possibly zero
+     */
+    public abstract int tryWrite(ByteBuffer src);
+
     /**
      * Writes a sequence of bytes to this channel from the given buffer staring from given position.
      * <p>
@@ -1,18 +1,55 @@
 package io.github.mentegy.s3.channels.builder;
 
 import com.amazonaws.services.s3.AmazonS3;
+import io.github.mentegy.s3.channels.AsynchronousS3ReadableObjectChannel;
+import io.github.mentegy.s3.channels.InputPolicy;
 import io.github.mentegy.s3.channels.S3ReadableObjectChannel;
+import io.github.mentegy.s3.channels.cache.BlockCache;
+import io.github.mentegy.s3.channels.cache.ObjectMetadataCache;
+import io.github.mentegy.s3.channels.impl.S3AdaptiveBufferedReadObjectChannel;
 import io.github.mentegy.s3.channels.impl.S3BufferedRangedReadObjectChannel;
+import io.github.mentegy.s3.channels.impl.S3CachedRangedReadObjectChannel;
+import io.github.mentegy.s3.channels.impl.S3ConcatenatedReadObjectChannel;
+import io.github.mentegy.s3.channels.impl.S3ConcurrentBufferedReadObjectChannel;
 import io.github.mentegy.s3.channels.impl.S3RangedReadObjectChannel;
+import io.github.mentegy.s3.channels.impl.S3ReadableObjectChannelAsFileChannel;
+import io.github.mentegy.s3.channels.impl.S3ReadAheadRangedReadObjectChannel;
+import io.github.mentegy.s3.channels.impl.S3StreamingReadObjectChannel;
+import io.github.mentegy.s3.channels.util.BlockAllocator;
+import io.github.mentegy.s3.channels.util.ConcurrencyLimiter;
+import io.github.mentegy.s3.channels.util.HedgePolicy;
+import io.github.mentegy.s3.channels.util.HeapBlockAllocator;
 
-public class S3ReadableObjectChannelBuilder {
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+
+public class S3ReadableObjectChannelBuilder implements Cloneable {
     private String key;
     private String bucket;
     private AmazonS3 amazonS3;
     private Integer bufferSize;
-
+    private BlockAllocator bufferAllocator;
+    private int readAheadBlocks;
+    private int splitSize;
+    private ExecutorService executorService;
+    private BlockCache blockCache;
+    private ObjectMetadataCache metadataCache;
+    private boolean lazyOpen;
+    private InputPolicy inputPolicy;
+    private long seekThreshold = S3StreamingReadObjectChannel.DEFAULT_SEEK_THRESHOLD;
+    private int concurrentBlocks;
+    private int tailSize;
+    private int minBlockSize;
+    private HedgePolicy hedgePolicy;
+    private ConcurrencyLimiter limiter;
 
     public S3ReadableObjectChannel build() {
+        return build(key);
+    }
+
+    private S3ReadableObjectChannel build(String key) {
         if (bucket == null) {
             throw new IllegalArgumentException("S3 bucket must be set");
         }
@@ -22,9 +59,180 @@ public class S3ReadableObjectChannelBuilder {
         if (amazonS3 == null) {
             throw new IllegalArgumentException("Amazon s3 must be set");
         }
+        if (tailSize > 0 && lazyOpen) {
+            throw new IllegalArgumentException("Tail prefetch could not be combined with lazy open");
+        }
+        if (inputPolicy != null && (bufferSize != null || blockCache != null)) {
+            throw new IllegalArgumentException("Input policy could not be combined with buffered or cached channel");
+        }
+        if (blockCache != null) {
+            if (bufferSize != null) {
+                throw new IllegalArgumentException("Block cache could not be combined with buffered channel");
+            }
+            if (splitSize > 0 || readAheadBlocks > 0 || concurrentBlocks > 0 || minBlockSize > 0) {
+                throw new IllegalArgumentException(
+                        "Block cache could not be combined with split reads, read-ahead, concurrent or adaptive channel");
+            }
+            if (executorService != null) {
+                throw new IllegalArgumentException("Block cache could not be combined with executor service");
+            }
+            return new S3CachedRangedReadObjectChannel(key, bucket, amazonS3, blockCache, metadataCache, lazyOpen,
+                    tailSize, hedgePolicy, limiter);
+        }
+        if ((readAheadBlocks > 0 || splitSize > 0) && executorService == null) {
+            throw new IllegalArgumentException("Executor service must be set");
+        }
+        if (minBlockSize > 0 && (readAheadBlocks > 0 || concurrentBlocks > 0)) {
+            throw new IllegalArgumentException(
+                    "Adaptive block size could not be combined with read-ahead or concurrent channel");
+        }
+        if (concurrentBlocks > 0) {
+            if (bufferSize == null) {
+                throw new IllegalArgumentException("Concurrent channel requires buffered channel");
+            }
+            if (bufferAllocator != null || readAheadBlocks > 0) {
+                throw new IllegalArgumentException(
+                        "Concurrent channel could not be combined with buffer allocator or read-ahead");
+            }
+            return new S3ConcurrentBufferedReadObjectChannel(key, bucket, amazonS3, bufferSize, concurrentBlocks,
+                    metadataCache, lazyOpen, executorService, splitSize, tailSize, hedgePolicy, limiter);
+        }
+        if (minBlockSize > 0) {
+            if (bufferSize == null) {
+                throw new IllegalArgumentException("Adaptive block size requires buffered channel");
+            }
+            return new S3AdaptiveBufferedReadObjectChannel(key, bucket, amazonS3, bufferAllocator(), minBlockSize,
+                    metadataCache, lazyOpen, executorService, splitSize, tailSize, hedgePolicy, limiter);
+        }
+        if (readAheadBlocks > 0) {
+            if (bufferSize == null) {
+                throw new IllegalArgumentException("Read-ahead requires buffered channel");
+            }
+            return new S3ReadAheadRangedReadObjectChannel(key, bucket, amazonS3, bufferAllocator(),
+                    readAheadBlocks, metadataCache, lazyOpen, executorService, splitSize, tailSize, hedgePolicy,
+                    limiter);
+        }
+        if (inputPolicy != null) {
+            return new S3StreamingReadObjectChannel(key, bucket, amazonS3, inputPolicy, seekThreshold,
+                    metadataCache, lazyOpen, executorService, splitSize, tailSize, hedgePolicy, limiter);
+        }
         return bufferSize == null ?
-                new S3RangedReadObjectChannel(key, bucket, amazonS3) :
-                new S3BufferedRangedReadObjectChannel(key, bucket, amazonS3, bufferSize);
+                new S3RangedReadObjectChannel(key, bucket, amazonS3, metadataCache, lazyOpen,
+                        executorService, splitSize, tailSize, hedgePolicy, limiter) :
+                new S3BufferedRangedReadObjectChannel(key, bucket, amazonS3, bufferAllocator(),
+                        metadataCache, lazyOpen, executorService, splitSize, tailSize, hedgePolicy, limiter);
+    }
+
+    /**
+     * Builds asynchronous channel, which runs reads on builder's executor service.
+     * Underlying channel must support concurrent reads by absolute position, so it could not be buffered
+     * (unless concurrent) or streaming.
+     * <p>
+     * Split reads and read-ahead could not be enabled: every asynchronous read holds a thread of the same
+     * executor while it waits for sub-reads queued on it, which starves bounded pool under load.
+     *
+     * @return asynchronous channel
+     */
+    public AsynchronousS3ReadableObjectChannel buildAsynchronous() {
+        if (executorService == null) {
+            throw new IllegalArgumentException("Executor service must be set");
+        }
+        if ((bufferSize != null && concurrentBlocks == 0) || inputPolicy != null) {
+            throw new IllegalArgumentException("Asynchronous channel requires channel safe for concurrent reads");
+        }
+        if (splitSize > 0 || readAheadBlocks > 0) {
+            throw new IllegalArgumentException(
+                    "Asynchronous channel could not be combined with split reads or read-ahead");
+        }
+        return new AsynchronousS3ReadableObjectChannel(channelOwnExecutor().build(), executorService);
+    }
+
+    /**
+     * Wraps built {@link S3ReadableObjectChannel} with {@link S3ReadableObjectChannelAsFileChannel}
+     *
+     * Note, {@link S3ReadableObjectChannelAsFileChannel} extends {@link java.nio.channels.FileChannel}
+     * @return {@link S3ReadableObjectChannelAsFileChannel}
+     */
+    public S3ReadableObjectChannelAsFileChannel buildAsFileChannel() {
+        return new S3ReadableObjectChannelAsFileChannel(build());
+    }
+
+    /**
+     * Wraps built {@link S3ReadableObjectChannel} with {@link S3ReadableObjectChannelAsFileChannel},
+     * which maps regions of the object through local file in given directory
+     *
+     * @param directory  directory of local file, default temporary-file directory if {@code null}
+     * @param regionSize size of region downloaded into local file at once
+     * @return {@link S3ReadableObjectChannelAsFileChannel}
+     */
+    public S3ReadableObjectChannelAsFileChannel buildAsFileChannel(Path directory, int regionSize) {
+        if (regionSize <= 0) {
+            throw new IllegalArgumentException("Region size must be positive");
+        }
+        return new S3ReadableObjectChannelAsFileChannel(build(), directory, regionSize);
+    }
+
+    /**
+     * Builds channel which reads given objects as one concatenated object. Every object is read by its own
+     * channel built by this builder's settings (taken at the moment of this call), except key.
+     * Metadata of all objects is resolved concurrently on open, by builder's metadata cache if it is set.
+     * Requires executor service.
+     *
+     * @param keys object keys, in order of concatenation
+     * @return concatenated channel
+     */
+    public S3ConcatenatedReadObjectChannel buildConcatenated(List<String> keys) {
+        S3ReadableObjectChannelBuilder objects = concatenatedObjects();
+        return new S3ConcatenatedReadObjectChannel(keys, bucket, amazonS3, objects.metadataCache, executorService,
+                objects::build, S3ConcatenatedReadObjectChannel.DEFAULT_READ_AHEAD_SIZE);
+    }
+
+    /**
+     * The same as {@link S3ReadableObjectChannelBuilder#buildConcatenated(List)}, but concatenates all objects
+     * under given prefix, in lexicographical order. Metadata is taken from listing, so no HEAD request is sent.
+     *
+     * @param prefix key prefix, e.g. {@code dataset/part-}
+     * @return concatenated channel
+     */
+    public S3ConcatenatedReadObjectChannel buildConcatenatedPrefix(String prefix) {
+        S3ReadableObjectChannelBuilder objects = concatenatedObjects();
+        List<String> keys = objects.metadataCache.listPrefix(amazonS3, bucket, prefix);
+        return new S3ConcatenatedReadObjectChannel(keys, bucket, amazonS3, objects.metadataCache, executorService,
+                objects::build, S3ConcatenatedReadObjectChannel.DEFAULT_READ_AHEAD_SIZE);
+    }
+
+    private S3ReadableObjectChannelBuilder concatenatedObjects() {
+        if (bucket == null) {
+            throw new IllegalArgumentException("S3 bucket must be set");
+        }
+        if (amazonS3 == null) {
+            throw new IllegalArgumentException("Amazon s3 must be set");
+        }
+        if (executorService == null) {
+            throw new IllegalArgumentException("Executor service must be set");
+        }
+        S3ReadableObjectChannelBuilder objects = channelOwnExecutor();
+        if (objects.metadataCache == null) {
+            objects.metadataCache = new ObjectMetadataCache(1, TimeUnit.HOURS);
+        }
+        return objects;
+    }
+
+    /**
+     * Copy of this builder for channels wrapped by another one, which runs on builder's executor service.
+     * Cached channel takes no executor, so it is left out of the copy.
+     */
+    private S3ReadableObjectChannelBuilder channelOwnExecutor() {
+        S3ReadableObjectChannelBuilder copy;
+        try {
+            copy = (S3ReadableObjectChannelBuilder) clone();
+        } catch (CloneNotSupportedException e) {
+            throw new IllegalStateException(e);
+        }
+        if (copy.blockCache != null) {
+            copy.executorService = null;
+        }
+        return copy;
     }
 
     /**
@@ -53,6 +261,161 @@ public class S3ReadableObjectChannelBuilder {
 
     public S3ReadableObjectChannelBuilder buffered(Integer bufferSize) {
         this.bufferSize = bufferSize;
+        this.bufferAllocator = null;
+        return this;
+    }
+
+    /**
+     * Buffered channel which takes its buffers from given allocator, buffer size is equal to allocator's block size.
+     * E.g. {@link io.github.mentegy.s3.channels.util.DirectSlabBlockAllocator} keeps buffers off-heap
+     */
+    public S3ReadableObjectChannelBuilder buffered(BlockAllocator allocator) {
+        this.bufferSize = allocator.blockSize();
+        this.bufferAllocator = allocator;
+        return this;
+    }
+
+    /**
+     * Executor service which takes care of background reads, e.g. read-ahead or split reads.
+     */
+    public S3ReadableObjectChannelBuilder executorService(ExecutorService executorService) {
+        this.executorService = executorService;
+        return this;
+    }
+
+    /**
+     * Enables sequential read-ahead for buffered channel: once sequential access is detected,
+     * given number of next buffer sized blocks are fetched in background.
+     *
+     * Requires {@link S3ReadableObjectChannelBuilder#buffered(Integer)} and executor service. Default 0 (disabled)
+     */
+    public S3ReadableObjectChannelBuilder readAhead(int blocks) {
+        this.readAheadBlocks = blocks;
+        return this;
+    }
+
+    /**
+     * Enables sequential read-ahead with given executor service, the same as
+     * {@link S3ReadableObjectChannelBuilder#readAhead(int)} followed by
+     * {@link S3ReadableObjectChannelBuilder#executorService(ExecutorService)}
+     */
+    public S3ReadableObjectChannelBuilder readAhead(int blocks, ExecutorService executor) {
+        return readAhead(blocks).executorService(executor);
+    }
+
+    /**
+     * Reads bigger than given size are split into sub-ranges of this size, which are fetched concurrently.
+     *
+     * Requires executor service. Default 0 (disabled)
+     */
+    public S3ReadableObjectChannelBuilder splitSize(int splitSize) {
+        this.splitSize = splitSize;
+        return this;
+    }
+
+    /**
+     * Shared block cache. If set, reads are served by blocks of {@link BlockCache#blockSize()}
+     * through given cache, which could be shared across many channels.
+     *
+     * Could not be combined with {@link S3ReadableObjectChannelBuilder#buffered(Integer)}, split reads,
+     * read-ahead, concurrent or adaptive channel. Executor service is used only by asynchronous or
+     * concatenated channel which wraps cached one.
+     */
+    public S3ReadableObjectChannelBuilder blockCache(BlockCache blockCache) {
+        this.blockCache = blockCache;
+        return this;
+    }
+
+    /**
+     * Shared object metadata cache. If set, channel takes object metadata from it instead of sending HEAD request
+     */
+    public S3ReadableObjectChannelBuilder metadataCache(ObjectMetadataCache metadataCache) {
+        this.metadataCache = metadataCache;
+        return this;
+    }
+
+    /**
+     * Whereas to open channel lazily: no request is sent until the first read, which resolves object size
+     * from its response. HEAD request is sent only if size is requested before any read.
+     *
+     * Default false
+     */
+    public S3ReadableObjectChannelBuilder lazyOpen(boolean lazyOpen) {
+        this.lazyOpen = lazyOpen;
+        return this;
+    }
+
+    /**
+     * Access pattern hint. If set, channel keeps single GET stream open for sequential reads
+     * instead of sending ranged request per read, see {@link InputPolicy}.
+     *
+     * Could not be combined with buffered or cached channel. Default not set (ranged request per read)
+     */
+    public S3ReadableObjectChannelBuilder inputPolicy(InputPolicy inputPolicy) {
+        this.inputPolicy = inputPolicy;
+        return this;
+    }
+
+    /**
+     * Max forward seek which is served by skipping bytes of open stream instead of opening new one.
+     *
+     * Default {@link S3StreamingReadObjectChannel#DEFAULT_SEEK_THRESHOLD}
+     */
+    public S3ReadableObjectChannelBuilder seekThreshold(long seekThreshold) {
+        this.seekThreshold = seekThreshold;
+        return this;
+    }
+
+    /**
+     * Makes buffered channel safe for concurrent reads by absolute position: given number of buffer sized blocks
+     * are shared by all reader threads as immutable snapshots.
+     *
+     * Requires {@link S3ReadableObjectChannelBuilder#buffered(Integer)}. Default 0 (disabled)
+     */
+    public S3ReadableObjectChannelBuilder concurrent(int blocks) {
+        this.concurrentBlocks = blocks;
+        return this;
+    }
+
+    /**
+     * Number of object's last bytes to be fetched on open by suffix ranged GET, which replaces HEAD request.
+     * The tail is kept in memory, so reads within it (e.g. footer of Parquet, ORC or ZIP) cost no request.
+     *
+     * Could not be combined with lazy open. Default 0 (disabled)
+     */
+    public S3ReadableObjectChannelBuilder tailPrefetch(int tailSize) {
+        this.tailSize = tailSize;
+        return this;
+    }
+
+    /**
+     * Makes buffered channel adapt number of fetched bytes to access pattern: from given min block size
+     * up to buffer size for sequential scans and back for random reads.
+     *
+     * Requires {@link S3ReadableObjectChannelBuilder#buffered(Integer)}. Default 0 (disabled, whole buffer is fetched)
+     */
+    public S3ReadableObjectChannelBuilder adaptive(int minBlockSize) {
+        this.minBlockSize = minBlockSize;
+        return this;
+    }
+
+    /**
+     * Shared hedging policy: ranged request which is slower than usual is duplicated and the first response wins.
+     *
+     * Default not set (no hedging)
+     */
+    public S3ReadableObjectChannelBuilder hedge(HedgePolicy hedgePolicy) {
+        this.hedgePolicy = hedgePolicy;
+        return this;
+    }
+
+    /**
+     * Shared adaptive limit of concurrent ranged requests, which backs off on S3 throttling.
+     *
+     * Default not set (no limit)
+     */
+    public S3ReadableObjectChannelBuilder concurrencyLimiter(ConcurrencyLimiter limiter) {
+        this.limiter = limiter;
         return this;
     }
 
@@ -75,4 +438,63 @@ public class S3ReadableObjectChannelBuilder {
     public Integer bufferSize() {
         return bufferSize;
     }
+
+    public BlockAllocator bufferAllocator() {
+        if (bufferAllocator == null && bufferSize != null) {
+            return new HeapBlockAllocator(bufferSize);
+        }
+        return bufferAllocator;
+    }
+
+    public int readAheadBlocks() {
+        return readAheadBlocks;
+    }
+
+    public int splitSize() {
+        return splitSize;
+    }
+
+    public ExecutorService executorService() {
+        return executorService;
+    }
+
+    public BlockCache blockCache() {
+        return blockCache;
+    }
+
+    public ObjectMetadataCache metadataCache() {
+        return metadataCache;
+    }
+
+    public boolean isLazyOpen() {
+        return lazyOpen;
+    }
+
+    public InputPolicy inputPolicy() {
+        return inputPolicy;
+    }
+
+    public long seekThreshold() {
+        return seekThreshold;
+    }
+
+    public int concurrentBlocks() {
+        return concurrentBlocks;
+    }
+
+    public int tailSize() {
+        return tailSize;
+    }
+
+    public int minBlockSize() {
+        return minBlockSize;
+    }
+
+    public HedgePolicy hedgePolicy() {
+        return hedgePolicy;
+    }
+
+    public ConcurrencyLimiter concurrencyLimiter() {
+        return limiter;
+    }
 }
@@ -6,9 +6,16 @@ import io.github.mentegy.s3.channels.S3WritableObjectChannel;
 import io.github.mentegy.s3.channels.impl.S3AppendableDelayedHeaderObjectChannel;
 import io.github.mentegy.s3.channels.impl.S3AppendableObjectChannel;
 import io.github.mentegy.s3.channels.impl.S3WritableObjectChannelAsFileChannel;
+import io.github.mentegy.s3.channels.util.BlockAllocator;
+import io.github.mentegy.s3.channels.util.ConcurrencyLimiter;
+import io.github.mentegy.s3.channels.util.InFlightLimit;
+import io.github.mentegy.s3.channels.util.PartSizePolicy;
+import io.github.mentegy.s3.channels.util.TempFileBlockAllocator;
 
+import java.nio.file.Path;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
 
 public class S3WritableObjectChannelBuilder {
     private String key;
@@ -20,6 +27,13 @@ public class S3WritableObjectChannelBuilder {
     private ExecutorService executorService;
     private boolean delayedHeader = false;
     private boolean closeExecutorOnChannelClose = false;
+    private ConcurrencyLimiter limiter;
+    private BlockAllocator partAllocator;
+    private InFlightLimit inFlightLimit;
+    private Path spillDirectory;
+    private PartSizePolicy partSizePolicy;
+    private boolean adaptivePartSize = false;
+    private long objectSizeHint = -1;
 
     /**
      * Builds instance of {@link S3WritableObjectChannel}
@@ -42,10 +56,26 @@ public class S3WritableObjectChannelBuilder {
         if (executorService == null) {
             throw new IllegalArgumentException("Executor service must be set");
         }
+        if (partAllocator != null && spillDirectory != null) {
+            throw new IllegalArgumentException("Part allocator and spill directory could not be set together");
+        }
+        BlockAllocator partAllocator = spillDirectory != null ?
+                new TempFileBlockAllocator(spillDirectory, partSize) :
+                this.partAllocator;
+        PartSizePolicy partSizePolicy = this.partSizePolicy != null ? this.partSizePolicy :
+                objectSizeHint >= 0 ? PartSizePolicy.forObjectSize(objectSizeHint, partSize) :
+                adaptivePartSize ? PartSizePolicy.adaptive(partSize) :
+                null;
+        // parts bigger than allocator's blocks would bypass its pool, explicit policy is taken as is
+        if (this.partAllocator != null && this.partSizePolicy == null && partSizePolicy != null
+                && partSizePolicy.maxPartSize > partSize) {
+            throw new IllegalArgumentException("Part allocator could not be used with growing part size, " +
+                    "set either part allocator or adaptive part size / object size hint");
+        }
 
         return delayedHeader ?
-                new S3AppendableDelayedHeaderObjectChannel(key, bucket, uploadId, partSize, amazonS3, executorService, closeExecutorOnChannelClose, failedPartUploadRetries) :
-                new S3AppendableObjectChannel(key, bucket, uploadId, partSize, amazonS3, executorService, closeExecutorOnChannelClose, failedPartUploadRetries);
+                new S3AppendableDelayedHeaderObjectChannel(key, bucket, uploadId, partSize, amazonS3, executorService, closeExecutorOnChannelClose, failedPartUploadRetries, limiter, partAllocator, inFlightLimit, partSizePolicy) :
+                new S3AppendableObjectChannel(key, bucket, uploadId, partSize, amazonS3, executorService, closeExecutorOnChannelClose, failedPartUploadRetries, limiter, partAllocator, inFlightLimit, partSizePolicy);
     }
 
     /**
@@ -157,6 +187,94 @@ public class S3WritableObjectChannelBuilder {
         return this;
     }
 
+    /**
+     * Shared adaptive limit of concurrent part uploads, which backs off on S3 throttling.
+     *
+     * Default not set (no limit)
+     */
+    public S3WritableObjectChannelBuilder concurrencyLimiter(ConcurrencyLimiter limiter) {
+        this.limiter = limiter;
+        return this;
+    }
+
+    /**
+     * Shared allocator of part buffers, e.g. {@link io.github.mentegy.s3.channels.util.PooledBlockAllocator}.
+     * Its block size must be equal to part size, blocks could be heap or direct buffers.
+     * Could not be combined with adaptive part size or object size hint which needs bigger parts.
+     *
+     * Default not set (every part buffer is allocated on heap and left to GC)
+     */
+    public S3WritableObjectChannelBuilder partAllocator(BlockAllocator partAllocator) {
+        this.partAllocator = partAllocator;
+        return this;
+    }
+
+    /**
+     * Policy which decides size of every part, takes precedence over adaptive part size and object size hint.
+     * If part allocator is set too, parts of other size than its block size are allocated outside of its pool.
+     *
+     * Default not set (every part is of part size)
+     */
+    public S3WritableObjectChannelBuilder partSizePolicy(PartSizePolicy partSizePolicy) {
+        this.partSizePolicy = partSizePolicy;
+        return this;
+    }
+
+    /**
+     * Whereas part size should grow geometrically starting from part size, so stream of unknown length
+     * could reach S3 max object size, see {@link PartSizePolicy#adaptive(int)}
+     *
+     * Default false
+     */
+    public S3WritableObjectChannelBuilder adaptivePartSize(boolean adaptivePartSize) {
+        this.adaptivePartSize = adaptivePartSize;
+        return this;
+    }
+
+    /**
+     * Expected size of the object, which picks the smallest fixed part size (not less than part size)
+     * fitting max number of parts, see {@link PartSizePolicy#forObjectSize(long, int)}.
+     * Takes precedence over adaptive part size.
+     *
+     * Default not set
+     */
+    public S3WritableObjectChannelBuilder objectSizeHint(long objectSize) {
+        this.objectSizeHint = objectSize;
+        return this;
+    }
+
+    /**
+     * Stages parts in temporary files within given directory instead of memory,
+     * see {@link TempFileBlockAllocator}. Could not be combined with part allocator.
+     *
+     * Default not set (parts are staged in memory)
+     */
+    public S3WritableObjectChannelBuilder spillToDisk(Path directory) {
+        this.spillDirectory = directory;
+        return this;
+    }
+
+    /**
+     * Bound of parts being uploaded at once, could be shared by many channels.
+     * Once reached, {@link S3WritableObjectChannel#write(java.nio.ByteBuffer)} waits up to limit's timeout and
+     * {@link S3WritableObjectChannel#tryWrite(java.nio.ByteBuffer)} accepts only bytes which fit in current part.
+     *
+     * Default not set (writes never wait, parts are unbounded)
+     */
+    public S3WritableObjectChannelBuilder inFlightLimit(InFlightLimit inFlightLimit) {
+        this.inFlightLimit = inFlightLimit;
+        return this;
+    }
+
+    /**
+     * Bounds in-flight parts of built channel by given number of parts and bytes
+     *
+     * @see S3WritableObjectChannelBuilder#inFlightLimit(InFlightLimit)
+     */
+    public S3WritableObjectChannelBuilder maxInFlight(int parts, long bytes, long timeout, TimeUnit unit) {
+        return inFlightLimit(new InFlightLimit(parts, bytes, timeout, unit));
+    }
+
     public String key() {
         return key;
     }
@@ -192,4 +310,32 @@ public class S3WritableObjectChannelBuilder {
     public boolean closeExecutorOnChannelClose() {
         return closeExecutorOnChannelClose;
     }
+
+    public ConcurrencyLimiter concurrencyLimiter() {
+        return limiter;
+    }
+
+    public BlockAllocator partAllocator() {
+        return partAllocator;
+    }
+
+    public InFlightLimit inFlightLimit() {
+        return inFlightLimit;
+    }
+
+    public Path spillDirectory() {
+        return spillDirectory;
+    }
+
+    public PartSizePolicy partSizePolicy() {
+        return partSizePolicy;
+    }
+
+    public boolean hasAdaptivePartSize() {
+        return adaptivePartSize;
+    }
+
+    public long objectSizeHint() {
+        return objectSizeHint;
+    }
 }
@@ -0,0 +1,23 @@
+package io.github.mentegy.s3.channels.cache;
+
+/**
+ * Decides whereas new block should replace eviction victim in {@link BlockCache}.
+ */
+public interface AdmissionPolicy {
+
+    /**
+     * Records access of given block, either hit or miss
+     *
+     * @param key accessed block
+     */
+    void record(BlockKey key);
+
+    /**
+     * Tells whereas candidate should be cached in place of victim
+     *
+     * @param candidate new block
+     * @param victim    block which would be evicted
+     * @return {@code true} if candidate should be admitted
+     */
+    boolean admit(BlockKey candidate, BlockKey victim);
+}
@@ -0,0 +1,52 @@
+package io.github.mentegy.s3.channels.cache;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Cache of fixed-size s3 object blocks, which could be shared across many readable channels.
+ * <p>
+ * Implementations must be thread-safe.
+ */
+public interface BlockCache {
+
+    /**
+     * Returns size in bytes of each cached block. Only last block of an object could be smaller.
+     *
+     * @return block size
+     */
+    int blockSize();
+
+    /**
+     * Copies cached block data starting from given offset within block into destination buffer.
+     * This method does not overflow destination buffer.
+     *
+     * @param key    block key
+     * @param offset offset within block
+     * @param dst    destination buffer
+     * @return number of copied bytes or {@code -1} if block is not cached
+     */
+    int read(BlockKey key, int offset, ByteBuffer dst);
+
+    /**
+     * Puts block into cache. Remaining bytes of given buffer are copied, buffer itself is not retained.
+     * Cache could decide to not store the block at all.
+     *
+     * @param key   block key
+     * @param block block data
+     */
+    void put(BlockKey key, ByteBuffer block);
+
+    /**
+     * Removes block from cache if any
+     *
+     * @param key block key
+     */
+    void invalidate(BlockKey key);
+
+    /**
+     * Returns amount of cached bytes
+     *
+     * @return cached bytes
+     */
+    long size();
+}
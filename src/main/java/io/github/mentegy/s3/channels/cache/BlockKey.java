@@ -0,0 +1,50 @@
+package io.github.mentegy.s3.channels.cache;
+
+import java.util.Objects;
+
+/**
+ * Identifies single block of s3 object in {@link BlockCache}.
+ * Block with index {@code i} covers object range {@code [i * blockSize, (i + 1) * blockSize)}.
+ * If ETag is known, it is part of the key, so blocks of modified object never match.
+ */
+public final class BlockKey {
+    public final String bucket;
+    public final String key;
+    /**
+     * Object's ETag, could be {@code null}
+     */
+    public final String etag;
+    public final long blockIndex;
+
+    public BlockKey(String bucket, String key, long blockIndex) {
+        this(bucket, key, null, blockIndex);
+    }
+
+    public BlockKey(String bucket, String key, String etag, long blockIndex) {
+        this.bucket = bucket;
+        this.key = key;
+        this.etag = etag;
+        this.blockIndex = blockIndex;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        BlockKey blockKey = (BlockKey) o;
+        return blockIndex == blockKey.blockIndex &&
+                Objects.equals(bucket, blockKey.bucket) &&
+                Objects.equals(key, blockKey.key) &&
+                Objects.equals(etag, blockKey.etag);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(bucket, key, etag, blockIndex);
+    }
+
+    @Override
+    public String toString() {
+        return bucket + "/" + key + (etag == null ? "" : "@" + etag) + "#" + blockIndex;
+    }
+}
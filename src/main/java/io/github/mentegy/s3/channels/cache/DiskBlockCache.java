@@ -0,0 +1,381 @@
+package io.github.mentegy.s3.channels.cache;
+
+import io.github.mentegy.s3.channels.util.ByteBufferUtils;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.AbstractMap;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.CRC32;
+
+import static java.nio.file.StandardOpenOption.*;
+
+/**
+ * Local disk {@link BlockCache} which survives restarts of the process, bounded by bytes,
+ * evicts least recently used blocks first.
+ * <p>
+ * Blocks are stored in preallocated segment files within given directory, which must be dedicated to the cache.
+ * Every segment is memory mapped and split into slots of header plus {@link DiskBlockCache#blockSize()}.
+ * Slot header keeps bucket, key, ETag and index of the block together with checksums of the header and
+ * of the block data. Index of cached blocks is kept in memory and recovered on startup by scanning slot headers:
+ * slot with torn header is treated as free, block data is verified by its checksum on the first read after
+ * recovery. Recovered blocks keep their original order of insertion.
+ * <p>
+ * Only blocks with known ETag are cached, since blocks without it could not be validated after restart.
+ * Directory could not be used by two caches (e.g. processes) at once.
+ * <p>
+ * Thread-safe. Single instance is meant to be shared across many channels.
+ */
+public class DiskBlockCache implements BlockCache, Closeable {
+
+    public static final int DEFAULT_SEGMENT_SIZE = 256 * 1024 * 1024;
+
+    /**
+     * Max size of slot header, which limits length of bucket, key and ETag
+     */
+    public static final int HEADER_SIZE = 2048;
+
+    private static final int MAGIC = 0x53334243;
+    // magic, header crc, sequence, block index, data length, data crc
+    private static final int FIXED_HEADER_SIZE = 4 + 4 + 8 + 8 + 4 + 4;
+
+    /**
+     * Max amount of cached bytes
+     */
+    public final long capacity;
+
+    /**
+     * Cache directory
+     */
+    public final Path directory;
+
+    protected final int blockSize;
+    protected final int slotSize;
+    protected final int slotsPerSegment;
+    protected final MappedByteBuffer[] segments;
+    protected final LinkedHashMap<BlockKey, Slot> blocks = new LinkedHashMap<>(16, 0.75f, true);
+    protected final ArrayDeque<Integer> free = new ArrayDeque<>();
+    protected final AtomicLong hits = new AtomicLong();
+    protected final AtomicLong misses = new AtomicLong();
+    protected long size;
+    protected long sequence;
+    private final FileChannel lockFile;
+    private final FileLock lock;
+
+    public DiskBlockCache(Path directory, long capacity, int blockSize) throws IOException {
+        this(directory, capacity, blockSize, DEFAULT_SEGMENT_SIZE);
+    }
+
+    /**
+     * Opens cache in given directory, recovering blocks cached by previous instance of the same block size.
+     *
+     * @param directory   cache directory, created if missing
+     * @param capacity    max amount of cached bytes, rounded down to whole blocks
+     * @param blockSize   size of cached block
+     * @param segmentSize approximate size of single segment file
+     * @throws IOException           if segment files could not be created or mapped
+     * @throws IllegalStateException if directory is used by another cache
+     */
+    public DiskBlockCache(Path directory, long capacity, int blockSize, int segmentSize) throws IOException {
+        if (blockSize <= 0 || capacity < blockSize) {
+            throw new IllegalArgumentException("Cache capacity must fit at least single block");
+        }
+        this.directory = directory;
+        this.capacity = capacity;
+        this.blockSize = blockSize;
+        this.slotSize = HEADER_SIZE + blockSize;
+        this.slotsPerSegment = Math.max(1, segmentSize / slotSize);
+        long slots = capacity / blockSize;
+        this.segments = new MappedByteBuffer[(int) ((slots + slotsPerSegment - 1) / slotsPerSegment)];
+
+        Files.createDirectories(directory);
+        lockFile = FileChannel.open(directory.resolve("cache.lock"), CREATE, WRITE);
+        FileLock acquired;
+        try {
+            acquired = lockFile.tryLock();
+        } catch (OverlappingFileLockException e) {
+            // held by another cache of this process
+            acquired = null;
+        }
+        lock = acquired;
+        if (lock == null) {
+            lockFile.close();
+            throw new IllegalStateException("Cache directory " + directory + " is used by another cache");
+        }
+        for (int s = 0; s < segments.length; s++) {
+            int segmentSlots = (int) Math.min(slotsPerSegment, slots - (long) s * slotsPerSegment);
+            Path path = directory.resolve("segment-" + blockSize + "-" + s + ".dat");
+            try (FileChannel file = FileChannel.open(path, CREATE, READ, WRITE)) {
+                segments[s] = file.map(FileChannel.MapMode.READ_WRITE, 0, (long) segmentSlots * slotSize);
+            }
+        }
+        recover(slots);
+    }
+
+    /**
+     * Rebuilds index from slot headers, slots with missing or torn headers become free
+     */
+    private void recover(long slots) {
+        List<Map.Entry<BlockKey, Slot>> recovered = new ArrayList<>();
+        for (int id = 0; id < slots; id++) {
+            Slot slot = new Slot(id);
+            ByteBuffer header = header(id);
+            BlockKey key = readHeader(header, slot);
+            if (key == null) {
+                free.add(id);
+            } else {
+                recovered.add(new AbstractMap.SimpleEntry<>(key, slot));
+            }
+        }
+        recovered.sort(Comparator.comparingLong(e -> e.getValue().sequence));
+        for (Map.Entry<BlockKey, Slot> e : recovered) {
+            Slot previous = blocks.put(e.getKey(), e.getValue());
+            if (previous != null) {
+                size -= previous.length;
+                clear(previous);
+            }
+            size += e.getValue().length;
+            sequence = Math.max(sequence, e.getValue().sequence + 1);
+        }
+    }
+
+    private BlockKey readHeader(ByteBuffer header, Slot slot) {
+        if (header.getInt(0) != MAGIC) {
+            return null;
+        }
+        try {
+            int crc = header.getInt(4);
+            slot.sequence = header.getLong(8);
+            long blockIndex = header.getLong(16);
+            slot.length = header.getInt(24);
+            slot.crc = header.getInt(28);
+            header.position(FIXED_HEADER_SIZE);
+            String bucket = readString(header);
+            String key = readString(header);
+            String etag = readString(header);
+            if (crc != headerCrc(header, header.position()) || slot.length < 0 || slot.length > blockSize) {
+                return null;
+            }
+            return new BlockKey(bucket, key, etag, blockIndex);
+        } catch (RuntimeException e) {
+            // torn header
+            return null;
+        }
+    }
+
+    @Override
+    public int blockSize() {
+        return blockSize;
+    }
+
+    @Override
+    public int read(BlockKey key, int offset, ByteBuffer dst) {
+        synchronized (blocks) {
+            Slot slot = blocks.get(key);
+            if (slot != null && !slot.verified) {
+                ByteBuffer data = data(slot);
+                if (crc(data) == slot.crc) {
+                    slot.verified = true;
+                } else {
+                    remove(key);
+                    slot = null;
+                }
+            }
+            if (slot == null) {
+                misses.incrementAndGet();
+                return -1;
+            }
+            hits.incrementAndGet();
+            if (offset >= slot.length) {
+                return 0;
+            }
+            ByteBuffer src = data(slot);
+            src.position(offset);
+            return ByteBufferUtils.putBiggerBuffer(dst, src);
+        }
+    }
+
+    /**
+     * Puts block into cache. Block without ETag or with too long bucket and key is ignored.
+     */
+    @Override
+    public void put(BlockKey key, ByteBuffer block) {
+        int len = block.remaining();
+        if (len > blockSize) {
+            throw new IllegalArgumentException("Block (" + len + " bytes) is bigger than block size ("
+                    + blockSize + " bytes)");
+        }
+        if (key.etag == null) {
+            return;
+        }
+        byte[][] strings = {bytes(key.bucket), bytes(key.key), bytes(key.etag)};
+        if (FIXED_HEADER_SIZE + 6 + strings[0].length + strings[1].length + strings[2].length > HEADER_SIZE) {
+            return;
+        }
+        synchronized (blocks) {
+            remove(key);
+            if (free.isEmpty()) {
+                Iterator<Map.Entry<BlockKey, Slot>> it = blocks.entrySet().iterator();
+                Slot victim = it.next().getValue();
+                it.remove();
+                size -= victim.length;
+                clear(victim);
+            }
+            Slot slot = new Slot(free.poll());
+            slot.length = len;
+            slot.sequence = sequence++;
+            slot.verified = true;
+            // header is invalidated first and completed last, so torn write is detected on recovery
+            ByteBuffer header = header(slot.id);
+            header.putInt(0, 0);
+            data(slot).put(block.duplicate());
+            slot.crc = crc(data(slot));
+            header.position(8);
+            header.putLong(slot.sequence);
+            header.putLong(key.blockIndex);
+            header.putInt(slot.length);
+            header.putInt(slot.crc);
+            for (byte[] s : strings) {
+                header.putShort((short) s.length);
+                header.put(s);
+            }
+            header.putInt(4, headerCrc(header, header.position()));
+            header.putInt(0, MAGIC);
+            blocks.put(key, slot);
+            size += len;
+        }
+    }
+
+    @Override
+    public void invalidate(BlockKey key) {
+        synchronized (blocks) {
+            remove(key);
+        }
+    }
+
+    @Override
+    public long size() {
+        synchronized (blocks) {
+            return size;
+        }
+    }
+
+    /**
+     * Returns number of cache hits
+     *
+     * @return hits
+     */
+    public long hits() {
+        return hits.get();
+    }
+
+    /**
+     * Returns number of cache misses
+     *
+     * @return misses
+     */
+    public long misses() {
+        return misses.get();
+    }
+
+    /**
+     * Flushes segments to disk and releases cache directory. Cache must not be used afterwards.
+     *
+     * @throws IOException - if any
+     */
+    @Override
+    public void close() throws IOException {
+        synchronized (blocks) {
+            for (MappedByteBuffer segment : segments) {
+                segment.force();
+            }
+            blocks.clear();
+            free.clear();
+            size = 0;
+        }
+        try {
+            lock.release();
+        } finally {
+            lockFile.close();
+        }
+    }
+
+    /**
+     * Must be called holding {@link DiskBlockCache#blocks} lock.
+     */
+    private void remove(BlockKey key) {
+        Slot removed = blocks.remove(key);
+        if (removed != null) {
+            size -= removed.length;
+            clear(removed);
+        }
+    }
+
+    private void clear(Slot slot) {
+        header(slot.id).putInt(0, 0);
+        free.add(slot.id);
+    }
+
+    private ByteBuffer header(int id) {
+        ByteBuffer segment = segments[id / slotsPerSegment].duplicate();
+        int offset = (id % slotsPerSegment) * slotSize;
+        segment.limit(offset + HEADER_SIZE).position(offset);
+        return segment.slice();
+    }
+
+    private ByteBuffer data(Slot slot) {
+        ByteBuffer segment = segments[slot.id / slotsPerSegment].duplicate();
+        int offset = (slot.id % slotsPerSegment) * slotSize + HEADER_SIZE;
+        segment.limit(offset + slot.length).position(offset);
+        return segment.slice();
+    }
+
+    private static int headerCrc(ByteBuffer header, int end) {
+        ByteBuffer covered = header.duplicate();
+        covered.limit(end).position(8);
+        return crc(covered);
+    }
+
+    private static int crc(ByteBuffer data) {
+        CRC32 crc = new CRC32();
+        crc.update(data.duplicate());
+        return (int) crc.getValue();
+    }
+
+    private static byte[] bytes(String s) {
+        return s.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static String readString(ByteBuffer header) {
+        byte[] bytes = new byte[header.getShort() & 0xFFFF];
+        header.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    protected static final class Slot {
+        final int id;
+        int length;
+        int crc;
+        long sequence;
+        boolean verified;
+
+        Slot(int id) {
+            this.id = id;
+        }
+    }
+}
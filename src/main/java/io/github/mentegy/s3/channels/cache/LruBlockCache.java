@@ -0,0 +1,190 @@
+package io.github.mentegy.s3.channels.cache;
+
+import io.github.mentegy.s3.channels.util.BlockAllocator;
+import io.github.mentegy.s3.channels.util.ByteBufferUtils;
+import io.github.mentegy.s3.channels.util.HeapBlockAllocator;
+
+import java.nio.ByteBuffer;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * In-memory {@link BlockCache} bounded by bytes, evicts least recently used blocks first.
+ * <p>
+ * Optionally, {@link AdmissionPolicy} could be set (e.g. {@link TinyLfuAdmissionPolicy}),
+ * then new block replaces eviction victims only if policy admits it.
+ * <p>
+ * Cached blocks are allocated by given {@link BlockAllocator} and released on eviction. Heap is used
+ * by default, {@link io.github.mentegy.s3.channels.util.DirectSlabBlockAllocator} keeps cached data off-heap.
+ * <p>
+ * Thread-safe. Single instance is meant to be shared across many channels.
+ */
+public class LruBlockCache implements BlockCache {
+
+    /**
+     * Max amount of cached bytes
+     */
+    public final long capacity;
+
+    protected final BlockAllocator allocator;
+    protected final AdmissionPolicy admission;
+    protected final LinkedHashMap<BlockKey, ByteBuffer> blocks = new LinkedHashMap<>(16, 0.75f, true);
+    protected final AtomicLong hits = new AtomicLong();
+    protected final AtomicLong misses = new AtomicLong();
+    protected long size;
+
+    public LruBlockCache(long capacity, int blockSize) {
+        this(capacity, blockSize, null);
+    }
+
+    public LruBlockCache(long capacity, int blockSize, AdmissionPolicy admission) {
+        this(capacity, new HeapBlockAllocator(blockSize), admission);
+    }
+
+    public LruBlockCache(long capacity, BlockAllocator allocator) {
+        this(capacity, allocator, null);
+    }
+
+    public LruBlockCache(long capacity, BlockAllocator allocator, AdmissionPolicy admission) {
+        if (allocator.blockSize() <= 0 || capacity < allocator.blockSize()) {
+            throw new IllegalArgumentException("Cache capacity must fit at least single block");
+        }
+        this.capacity = capacity;
+        this.allocator = allocator;
+        this.admission = admission;
+    }
+
+    @Override
+    public int blockSize() {
+        return allocator.blockSize();
+    }
+
+    @Override
+    public int read(BlockKey key, int offset, ByteBuffer dst) {
+        if (admission != null) {
+            admission.record(key);
+        }
+        synchronized (blocks) {
+            ByteBuffer block = blocks.get(key);
+            if (block == null) {
+                misses.incrementAndGet();
+                return -1;
+            }
+            hits.incrementAndGet();
+            if (offset >= block.limit()) {
+                return 0;
+            }
+            ByteBuffer src = block.duplicate();
+            src.position(offset);
+            return ByteBufferUtils.putBiggerBuffer(dst, src);
+        }
+    }
+
+    @Override
+    public void put(BlockKey key, ByteBuffer block) {
+        int len = block.remaining();
+        if (len > blockSize()) {
+            throw new IllegalArgumentException("Block (" + len + " bytes) is bigger than block size ("
+                    + blockSize() + " bytes)");
+        }
+        synchronized (blocks) {
+            invalidate(key);
+            if (!evictFor(key, len)) {
+                return;
+            }
+            ByteBuffer copy = allocate(key);
+            if (copy == null) {
+                return;
+            }
+            copy.put(block.duplicate());
+            copy.flip();
+            blocks.put(key, copy);
+            size += len;
+        }
+    }
+
+    @Override
+    public void invalidate(BlockKey key) {
+        synchronized (blocks) {
+            ByteBuffer removed = blocks.remove(key);
+            if (removed != null) {
+                size -= removed.limit();
+                allocator.release(removed);
+            }
+        }
+    }
+
+    @Override
+    public long size() {
+        synchronized (blocks) {
+            return size;
+        }
+    }
+
+    /**
+     * Returns number of cache hits
+     *
+     * @return hits
+     */
+    public long hits() {
+        return hits.get();
+    }
+
+    /**
+     * Returns number of cache misses
+     *
+     * @return misses
+     */
+    public long misses() {
+        return misses.get();
+    }
+
+    /**
+     * Evicts least recently used blocks until given amount of bytes fits into cache.
+     * Must be called holding {@link LruBlockCache#blocks} lock.
+     *
+     * @return {@code false} if admission policy rejected candidate
+     */
+    protected boolean evictFor(BlockKey candidate, int len) {
+        Iterator<Map.Entry<BlockKey, ByteBuffer>> it = blocks.entrySet().iterator();
+        while (size + len > capacity && it.hasNext()) {
+            Map.Entry<BlockKey, ByteBuffer> victim = it.next();
+            if (admission != null && !admission.admit(candidate, victim.getKey())) {
+                return false;
+            }
+            it.remove();
+            size -= victim.getValue().limit();
+            allocator.release(victim.getValue());
+        }
+        return true;
+    }
+
+    /**
+     * Allocates block, evicting least recently used blocks while allocator is exhausted, e.g. when slabs of
+     * {@link io.github.mentegy.s3.channels.util.DirectSlabBlockAllocator} are used up by short blocks
+     * before cache reaches its capacity. Must be called holding {@link LruBlockCache#blocks} lock.
+     *
+     * @return block or {@code null} if it could not be allocated or admission policy rejected candidate
+     */
+    protected ByteBuffer allocate(BlockKey candidate) {
+        Iterator<Map.Entry<BlockKey, ByteBuffer>> it = blocks.entrySet().iterator();
+        while (true) {
+            try {
+                return allocator.allocate();
+            } catch (IllegalStateException e) {
+                if (!it.hasNext()) {
+                    return null;
+                }
+            }
+            Map.Entry<BlockKey, ByteBuffer> victim = it.next();
+            if (admission != null && !admission.admit(candidate, victim.getKey())) {
+                return null;
+            }
+            it.remove();
+            size -= victim.getValue().limit();
+            allocator.release(victim.getValue());
+        }
+    }
+}
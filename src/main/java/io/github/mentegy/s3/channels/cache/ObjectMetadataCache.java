@@ -0,0 +1,211 @@
+package io.github.mentegy.s3.channels.cache;
+
+import com.amazonaws.services.s3.AmazonS3;
+import com.amazonaws.services.s3.Headers;
+import com.amazonaws.services.s3.model.ListObjectsV2Request;
+import com.amazonaws.services.s3.model.ListObjectsV2Result;
+import com.amazonaws.services.s3.model.ObjectMetadata;
+import com.amazonaws.services.s3.model.S3ObjectSummary;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cache of s3 object metadata, which could be shared across many builders and channels.
+ * Opening readable channel of an object with fresh cached metadata does not issue HEAD request.
+ * <p>
+ * Entries expire after given time to live. Since cached metadata could be stale anyway, channels opened
+ * with this cache send every ranged request with matching ETag constraint. If object was modified, the entry
+ * is invalidated and read fails with {@link io.github.mentegy.s3.channels.impl.ObjectModifiedException}.
+ * <p>
+ * Thread-safe.
+ */
+public class ObjectMetadataCache {
+
+    /**
+     * Time to live of each entry in nanoseconds
+     */
+    public final long ttlNanos;
+
+    /**
+     * Max number of cached entries
+     */
+    public final int maxEntries;
+
+    private final ConcurrentHashMap<String, Entry> entries = new ConcurrentHashMap<>();
+
+    public ObjectMetadataCache(long ttl, TimeUnit unit) {
+        this(ttl, unit, Integer.MAX_VALUE);
+    }
+
+    public ObjectMetadataCache(long ttl, TimeUnit unit, int maxEntries) {
+        this.ttlNanos = unit.toNanos(ttl);
+        this.maxEntries = maxEntries;
+    }
+
+    /**
+     * Returns cached metadata of given object or sends HEAD request if there is no fresh entry.
+     *
+     * @param s3     Amazon S3 client
+     * @param bucket S3 bucket
+     * @param key    object key
+     * @return object metadata
+     */
+    public ObjectMetadata get(AmazonS3 s3, String bucket, String key) {
+        ObjectMetadata metadata = getIfPresent(bucket, key);
+        if (metadata == null) {
+            metadata = s3.getObjectMetadata(bucket, key);
+            put(bucket, key, metadata);
+        }
+        return metadata;
+    }
+
+    /**
+     * Returns cached metadata of given object
+     *
+     * @param bucket S3 bucket
+     * @param key    object key
+     * @return fresh metadata or {@code null} if there is no such entry or it is expired
+     */
+    public ObjectMetadata getIfPresent(String bucket, String key) {
+        String id = id(bucket, key);
+        Entry entry = entries.get(id);
+        if (entry == null) {
+            return null;
+        }
+        if (entry.isExpired(System.nanoTime())) {
+            entries.remove(id, entry);
+            return null;
+        }
+        return entry.metadata;
+    }
+
+    /**
+     * Puts metadata of given object into cache
+     */
+    public void put(String bucket, String key, ObjectMetadata metadata) {
+        entries.put(id(bucket, key), new Entry(metadata, System.nanoTime() + ttlNanos));
+        if (entries.size() > maxEntries) {
+            evict();
+        }
+    }
+
+    /**
+     * Removes metadata of given object from cache if any
+     */
+    public void invalidate(String bucket, String key) {
+        entries.remove(id(bucket, key));
+    }
+
+    /**
+     * Returns number of cached entries, including expired ones which are not removed yet
+     *
+     * @return number of entries
+     */
+    public int size() {
+        return entries.size();
+    }
+
+    /**
+     * Resolves metadata of given objects concurrently by HEAD requests, skipping objects with fresh entries.
+     * Non-blocking call.
+     *
+     * @param s3       Amazon S3 client
+     * @param bucket   S3 bucket
+     * @param keys     object keys
+     * @param executor executor service to send requests on
+     * @return task completed once every object is resolved, completes exceptionally if any request fails
+     */
+    public CompletableFuture<Void> prewarm(AmazonS3 s3, String bucket, Collection<String> keys,
+                                           ExecutorService executor) {
+        CompletableFuture<?>[] tasks = keys.stream()
+                .filter(key -> getIfPresent(bucket, key) == null)
+                .map(key -> CompletableFuture.runAsync(() -> get(s3, bucket, key), executor))
+                .toArray(CompletableFuture[]::new);
+        return CompletableFuture.allOf(tasks);
+    }
+
+    /**
+     * Resolves metadata (size and ETag) of all objects under given prefix by listing them.
+     * Single list request covers up to 1000 objects, which is much cheaper than HEAD per object.
+     * Blocking call.
+     *
+     * @param s3     Amazon S3 client
+     * @param bucket S3 bucket
+     * @param prefix key prefix
+     * @return number of cached entries
+     */
+    public int prewarmPrefix(AmazonS3 s3, String bucket, String prefix) {
+        return listPrefix(s3, bucket, prefix).size();
+    }
+
+    /**
+     * The same as {@link ObjectMetadataCache#prewarmPrefix(AmazonS3, String, String)}, but returns listed keys.
+     * Blocking call.
+     *
+     * @param s3     Amazon S3 client
+     * @param bucket S3 bucket
+     * @param prefix key prefix
+     * @return keys of listed objects, in lexicographical order
+     */
+    public List<String> listPrefix(AmazonS3 s3, String bucket, String prefix) {
+        ListObjectsV2Request req = new ListObjectsV2Request().withBucketName(bucket).withPrefix(prefix);
+        List<String> keys = new ArrayList<>();
+        ListObjectsV2Result res;
+        do {
+            res = s3.listObjectsV2(req);
+            for (S3ObjectSummary summary : res.getObjectSummaries()) {
+                put(bucket, summary.getKey(), toMetadata(summary));
+                keys.add(summary.getKey());
+            }
+            req.setContinuationToken(res.getNextContinuationToken());
+        } while (res.isTruncated());
+        return keys;
+    }
+
+    protected static ObjectMetadata toMetadata(S3ObjectSummary summary) {
+        ObjectMetadata metadata = new ObjectMetadata();
+        metadata.setContentLength(summary.getSize());
+        metadata.setLastModified(summary.getLastModified());
+        metadata.setHeader(Headers.ETAG, summary.getETag());
+        return metadata;
+    }
+
+    /**
+     * Removes expired entries, then arbitrary ones until max number of entries is satisfied
+     */
+    protected void evict() {
+        long now = System.nanoTime();
+        entries.values().removeIf(e -> e.isExpired(now));
+        Iterator<Map.Entry<String, Entry>> it = entries.entrySet().iterator();
+        while (entries.size() > maxEntries && it.hasNext()) {
+            it.next();
+            it.remove();
+        }
+    }
+
+    private static String id(String bucket, String key) {
+        return bucket + "/" + key;
+    }
+
+    private static final class Entry {
+        private final ObjectMetadata metadata;
+        private final long expiresAt;
+
+        private Entry(ObjectMetadata metadata, long expiresAt) {
+            this.metadata = metadata;
+            this.expiresAt = expiresAt;
+        }
+
+        private boolean isExpired(long now) {
+            return now - expiresAt >= 0;
+        }
+    }
+}
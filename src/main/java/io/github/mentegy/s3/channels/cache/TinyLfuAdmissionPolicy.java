@@ -0,0 +1,81 @@
+package io.github.mentegy.s3.channels.cache;
+
+/**
+ * TinyLFU admission policy: candidate block is admitted only if it was accessed
+ * more frequently than eviction victim.
+ * <p>
+ * Frequencies are approximated by count-min sketch of small saturating counters.
+ * Once number of recorded accesses reaches sample size all counters are halved,
+ * so old history fades away. This protects cache from being flushed by one-time scans.
+ */
+public class TinyLfuAdmissionPolicy implements AdmissionPolicy {
+
+    private static final int DEPTH = 4;
+    private static final int MAX_COUNT = 15;
+    private static final int[] SEEDS = {0x9E3779B9, 0x85EBCA6B, 0xC2B2AE35, 0x27D4EB2F};
+
+    private final int[][] table;
+    private final int mask;
+    private final int sampleSize;
+    private int additions;
+
+    /**
+     * @param expectedBlocks approximate number of distinct blocks the cache could hold
+     */
+    public TinyLfuAdmissionPolicy(int expectedBlocks) {
+        int width = Integer.highestOneBit(Math.max(16, expectedBlocks - 1) << 1);
+        this.table = new int[DEPTH][width];
+        this.mask = width - 1;
+        this.sampleSize = 10 * width;
+    }
+
+    @Override
+    public synchronized void record(BlockKey key) {
+        int hash = key.hashCode();
+        boolean added = false;
+        for (int i = 0; i < DEPTH; i++) {
+            int idx = index(hash, i);
+            if (table[i][idx] < MAX_COUNT) {
+                table[i][idx]++;
+                added = true;
+            }
+        }
+        if (added && ++additions >= sampleSize) {
+            reset();
+        }
+    }
+
+    @Override
+    public synchronized boolean admit(BlockKey candidate, BlockKey victim) {
+        return frequency(candidate) > frequency(victim);
+    }
+
+    /**
+     * Returns estimated access frequency of given block
+     *
+     * @param key block key
+     * @return estimated frequency
+     */
+    public synchronized int frequency(BlockKey key) {
+        int hash = key.hashCode();
+        int min = MAX_COUNT;
+        for (int i = 0; i < DEPTH; i++) {
+            min = Math.min(min, table[i][index(hash, i)]);
+        }
+        return min;
+    }
+
+    private void reset() {
+        for (int[] row : table) {
+            for (int i = 0; i < row.length; i++) {
+                row[i] >>>= 1;
+            }
+        }
+        additions /= 2;
+    }
+
+    private int index(int hash, int row) {
+        int h = (hash ^ SEEDS[row]) * SEEDS[row];
+        return (h ^ (h >>> 16)) & mask;
+    }
+}
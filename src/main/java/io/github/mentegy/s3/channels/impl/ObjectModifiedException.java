@@ -0,0 +1,10 @@
+package io.github.mentegy.s3.channels.impl;
+
+import java.io.IOException;
+
+public class ObjectModifiedException extends IOException {
+    public ObjectModifiedException(String bucket, String key, String etag) {
+        super("S3 object " + bucket + "/" + key + " has been modified since channel was opened " +
+                "(expected ETag " + etag + ")");
+    }
+}
@@ -0,0 +1,117 @@
+package io.github.mentegy.s3.channels.impl;
+
+import com.amazonaws.services.s3.AmazonS3;
+import com.amazonaws.services.s3.model.S3Object;
+import io.github.mentegy.s3.channels.cache.ObjectMetadataCache;
+import io.github.mentegy.s3.channels.util.BlockAllocator;
+import io.github.mentegy.s3.channels.util.ConcurrencyLimiter;
+import io.github.mentegy.s3.channels.util.HedgePolicy;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.concurrent.ExecutorService;
+
+/**
+ * Extends {@link S3BufferedRangedReadObjectChannel} by adapting number of bytes fetched on buffer miss
+ * to observed access pattern. Please refer parent implementation for more details.
+ * <p>
+ * Fetch size starts from {@link S3AdaptiveBufferedReadObjectChannel#minBlockSize} and is doubled on every miss
+ * which continues right after previous buffer (sequential scan), up to buffer capacity
+ * {@link S3AdaptiveBufferedReadObjectChannel#maxBlockSize}. Forward seek within current fetch size keeps it,
+ * any other seek halves it, but not below the size of the last request or min block size.
+ * <p>
+ * Efficiency of adaptation could be checked by {@link S3AdaptiveBufferedReadObjectChannel#overFetchRatio()}.
+ * Not thread safe, the same as parent.
+ */
+public class S3AdaptiveBufferedReadObjectChannel extends S3BufferedRangedReadObjectChannel {
+
+    /**
+     * Min fetch size
+     */
+    public final int minBlockSize;
+
+    /**
+     * Max fetch size, equal to allocator's block size
+     */
+    public final int maxBlockSize;
+
+    protected int blockSize;
+    protected long fetchedBytes;
+    protected long usedBytes;
+    protected int lastRequestSize;
+    private boolean reading;
+
+    public S3AdaptiveBufferedReadObjectChannel(String key, String bucket, AmazonS3 s3, BlockAllocator allocator,
+                                               int minBlockSize) {
+        this(key, bucket, s3, allocator, minBlockSize, null, false, null, 0, 0, null, null);
+    }
+
+    public S3AdaptiveBufferedReadObjectChannel(String key, String bucket, AmazonS3 s3, BlockAllocator allocator,
+                                               int minBlockSize, ObjectMetadataCache metadataCache,
+                                               boolean lazyOpen, ExecutorService executor, int splitSize,
+                                               int tailSize, HedgePolicy hedgePolicy, ConcurrencyLimiter limiter) {
+        super(key, bucket, s3, allocator, metadataCache, lazyOpen, executor, splitSize, tailSize, hedgePolicy, limiter);
+        this.maxBlockSize = allocator.blockSize();
+        this.minBlockSize = Math.min(minBlockSize, maxBlockSize);
+        this.blockSize = this.minBlockSize;
+    }
+
+    @Override
+    public int read(ByteBuffer dst, long position) throws IOException {
+        // prefetched tail is not fetched into the buffer, so it is neither fetched nor used bytes
+        int fromTail = readTail(dst, position);
+        if (fromTail >= 0) {
+            return fromTail;
+        }
+        if (reading || dst.remaining() > buffer.capacity()) {
+            return super.read(dst, position);
+        }
+        reading = true;
+        lastRequestSize = dst.remaining();
+        try {
+            int read = super.read(dst, position);
+            if (read > 0) {
+                usedBytes += read;
+            }
+            return read;
+        } finally {
+            reading = false;
+        }
+    }
+
+    @Override
+    protected int fetchSize(long position) {
+        long distance = position - bufferLimit;
+        if (bufferLimit > 0 && distance == 0) {
+            blockSize = (int) Math.min(Math.max((long) blockSize * 2, lastRequestSize), maxBlockSize);
+        } else if (bufferLimit == 0 || distance < 0 || distance > blockSize) {
+            blockSize = Math.min(Math.max(minBlockSize, Math.max(blockSize / 2, lastRequestSize)), maxBlockSize);
+        }
+        return blockSize;
+    }
+
+    @Override
+    protected S3Object readS3ObjectByRange(long start, long size) throws IOException {
+        fetchedBytes += this.size >= 0 ? Math.min(size, this.size - start) : size;
+        return super.readS3ObjectByRange(start, size);
+    }
+
+    /**
+     * Returns number of bytes which is fetched on the next buffer miss, before adaptation to that miss
+     *
+     * @return current fetch size
+     */
+    public int currentBlockSize() {
+        return blockSize;
+    }
+
+    /**
+     * Returns ratio of bytes fetched into the buffer to bytes read from it, {@code 1.0} if nothing is wasted.
+     * Reads bigger than buffer bypass it and are not counted, as well as reads served by prefetched tail
+     *
+     * @return over-fetch ratio, {@code 0} if nothing is read yet
+     */
+    public double overFetchRatio() {
+        return usedBytes == 0 ? 0 : (double) fetchedBytes / usedBytes;
+    }
+}
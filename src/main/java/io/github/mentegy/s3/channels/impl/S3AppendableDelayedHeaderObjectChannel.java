@@ -2,7 +2,11 @@ package io.github.mentegy.s3.channels.impl;
 
 import com.amazonaws.services.s3.AmazonS3;
 import io.github.mentegy.s3.channels.S3WritableObjectChannel;
+import io.github.mentegy.s3.channels.util.BlockAllocator;
 import io.github.mentegy.s3.channels.util.ByteBufferUtils;
+import io.github.mentegy.s3.channels.util.ConcurrencyLimiter;
+import io.github.mentegy.s3.channels.util.InFlightLimit;
+import io.github.mentegy.s3.channels.util.PartSizePolicy;
 
 import java.nio.ByteBuffer;
 import java.util.concurrent.ExecutorService;
@@ -21,10 +25,20 @@ public class S3AppendableDelayedHeaderObjectChannel extends S3AppendableObjectCh
 
     public S3AppendableDelayedHeaderObjectChannel(String key, String bucket, String uploadId, int partSize, AmazonS3 s3,
                                                   ExecutorService executor, boolean closeExecutorOnFinish, int failedPartUploadRetries) {
-        super(key, bucket, uploadId, partSize, s3, executor, closeExecutorOnFinish, failedPartUploadRetries);
-        this.header = ByteBuffer.allocate(this.partSize);
-        this.partBody = ByteBuffer.allocate(this.partSize);
+        this(key, bucket, uploadId, partSize, s3, executor, closeExecutorOnFinish, failedPartUploadRetries, null,
+                null, null, null);
+    }
+
+    public S3AppendableDelayedHeaderObjectChannel(String key, String bucket, String uploadId, int partSize, AmazonS3 s3,
+                                                  ExecutorService executor, boolean closeExecutorOnFinish, int failedPartUploadRetries,
+                                                  ConcurrencyLimiter limiter, BlockAllocator partAllocator,
+                                                  InFlightLimit inFlightLimit, PartSizePolicy partSizePolicy) {
+        super(key, bucket, uploadId, partSize, s3, executor, closeExecutorOnFinish, failedPartUploadRetries, limiter,
+                partAllocator, inFlightLimit, partSizePolicy);
+        // the first part buffer is taken as header, body starts from the second part
+        this.header = partBody;
         this.id = 2;
+        this.partBody = allocatePart(id);
         this.pos = 0;
         this.size = 0;
     }
@@ -53,7 +67,7 @@ public class S3AppendableDelayedHeaderObjectChannel extends S3AppendableObjectCh
     }
 
     @Override
-    public int write(ByteBuffer src) {
+    protected int append(ByteBuffer src, boolean block) {
         checkOnError();
         int bytes = src.remaining();
 
@@ -72,10 +86,10 @@ public class S3AppendableDelayedHeaderObjectChannel extends S3AppendableObjectCh
                 bytes = ByteBufferUtils.putBiggerBuffer(header, src);
                 pos += bytes;
                 size += bytes;
-                return bytes + write(src);
+                return bytes + append(src, block);
             }
         } else {
-            bytes = super.write(src);
+            bytes = super.append(src, block);
             size += bytes;
             return bytes;
         }
@@ -84,11 +98,18 @@ public class S3AppendableDelayedHeaderObjectChannel extends S3AppendableObjectCh
 
     @Override
     protected void uploadPendingParts() {
+        forceInFlight(header.capacity());
         startWorker(createRequest(1, header), 0); // header part
         super.uploadPendingParts(); // last part
 
     }
 
+    @Override
+    protected void releaseCurrentParts() {
+        super.releaseCurrentParts();
+        partAllocator.release(header);
+    }
+
     @Override
     public S3WritableObjectChannel position(long newPosition) {
         if (newPosition > size) {
@@ -6,15 +6,27 @@ import com.amazonaws.services.s3.model.CompleteMultipartUploadRequest;
 import com.amazonaws.services.s3.model.UploadPartRequest;
 import com.amazonaws.services.s3.model.UploadPartResult;
 import io.github.mentegy.s3.channels.S3WritableObjectChannel;
+import io.github.mentegy.s3.channels.util.BlockAllocator;
+import io.github.mentegy.s3.channels.util.ByteBufferInputStream;
 import io.github.mentegy.s3.channels.util.ByteBufferUtils;
+import io.github.mentegy.s3.channels.util.ConcurrencyLimiter;
 import io.github.mentegy.s3.channels.util.ExceptionUtils;
+import io.github.mentegy.s3.channels.util.InFlightLimit;
+import io.github.mentegy.s3.channels.util.PartSizePolicy;
 
-import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.UncheckedIOException;
 import java.nio.ByteBuffer;
+import java.nio.channels.InterruptedByTimeoutException;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 
 /**
  * A write-only, stateful S3 object byte channel backed by S3 multi-part upload API.
@@ -23,16 +35,38 @@ import java.util.concurrent.ExecutorService;
  * <p>
  * Writes operation are non-blocking, e.g. caller does not wait on particular part
  * to be uploaded into S3. The actual upload will be performed on dedicated thread
- * only if part buffer is full-filled.
+ * only if part buffer is full-filled. If in-flight limit is set (see {@link InFlightLimit}), full part
+ * waits for its permit in the writing thread, so memory held by parts being uploaded stays bounded.
  * <p>
  * All operations are done on-the-fly, e.g. no sync with actual disk is made.
  * <p>
+ * Failed part is retried after exponential backoff with jitter. If concurrency limiter is set, every part
+ * upload waits for its permit on executor's thread, so number of concurrent uploads follows the limit
+ * (see {@link ConcurrencyLimiter}).
+ * <p>
+ * Part buffers are taken from {@link S3WritableObjectChannel#partAllocator} and given back once part is
+ * uploaded or failed for good, so pooled allocator (see {@link io.github.mentegy.s3.channels.util.PooledBlockAllocator})
+ * makes steady writes allocation free. Part buffers could be direct ones, e.g. allocated by
+ * {@link io.github.mentegy.s3.channels.util.DirectSlabBlockAllocator} or mapped temporary files of
+ * {@link io.github.mentegy.s3.channels.util.TempFileBlockAllocator}, since part body is handed to S3 client
+ * as {@link ByteBufferInputStream}, which is replayed on retries without copying it.
+ * <p>
+ * Size of every part is decided by {@link PartSizePolicy}, e.g. growing part size lets stream of unknown
+ * length exceed {@code MAX_PARTS * partSize} bytes.
+ * <p>
  * Not thread safe since maintaining current position
  */
 public class S3AppendableObjectChannel extends S3WritableObjectChannel {
 
+    private static final ScheduledExecutorService RETRIES = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "s3-part-upload-retries");
+        t.setDaemon(true);
+        return t;
+    });
+
     protected final ConcurrentLinkedQueue<UploadPartResult> done = new ConcurrentLinkedQueue<>();
     protected final ConcurrentHashMap<Integer, CompletableFuture<Void>> workers = new ConcurrentHashMap<>();
+    protected final ConcurrentHashMap<Integer, ByteBuffer> buffers = new ConcurrentHashMap<>();
     protected long pos;
     protected int id;
     protected ByteBuffer partBody;
@@ -42,9 +76,18 @@ public class S3AppendableObjectChannel extends S3WritableObjectChannel {
 
     public S3AppendableObjectChannel(String key, String bucket, String uploadId, int partSize, AmazonS3 s3,
                                      ExecutorService executor, boolean closeExecutorOnFinish, int failedPartUploadRetries) {
-        super(key, bucket, uploadId, partSize, s3, executor, closeExecutorOnFinish, failedPartUploadRetries);
+        this(key, bucket, uploadId, partSize, s3, executor, closeExecutorOnFinish, failedPartUploadRetries, null,
+                null, null, null);
+    }
+
+    public S3AppendableObjectChannel(String key, String bucket, String uploadId, int partSize, AmazonS3 s3,
+                                     ExecutorService executor, boolean closeExecutorOnFinish, int failedPartUploadRetries,
+                                     ConcurrencyLimiter limiter, BlockAllocator partAllocator,
+                                     InFlightLimit inFlightLimit, PartSizePolicy partSizePolicy) {
+        super(key, bucket, uploadId, partSize, s3, executor, closeExecutorOnFinish, failedPartUploadRetries, limiter,
+                partAllocator, inFlightLimit, partSizePolicy);
         this.id = 1;
-        this.partBody = ByteBuffer.allocate(this.partSize);
+        this.partBody = allocatePart(id);
     }
 
     @Override
@@ -64,6 +107,20 @@ public class S3AppendableObjectChannel extends S3WritableObjectChannel {
 
     @Override
     public int write(ByteBuffer src) {
+        return append(src, true);
+    }
+
+    @Override
+    public int tryWrite(ByteBuffer src) {
+        return append(src, false);
+    }
+
+    /**
+     * Appends bytes to current part, uploading full parts
+     *
+     * @param block whereas to wait for in-flight limit's permit, otherwise stops at full part
+     */
+    protected int append(ByteBuffer src, boolean block) {
         checkOnError();
         int bytes = src.remaining();
         if (partBody.remaining() >= bytes) {
@@ -72,20 +129,77 @@ public class S3AppendableObjectChannel extends S3WritableObjectChannel {
             return bytes;
         } else {
             bytes = ByteBufferUtils.putBiggerBuffer(partBody, src);
-            uploadCurrentPart();
             pos += bytes;
-            return bytes + write(src);
+            if (!uploadCurrentPart(block)) {
+                return bytes;
+            }
+            return bytes + append(src, block);
         }
     }
 
     protected void uploadCurrentPart() {
+        uploadCurrentPart(true);
+    }
+
+    /**
+     * Uploads full part buffer, once in-flight limit's permit is taken
+     *
+     * @param block whereas to wait for permit
+     * @return {@code false} if permit is not available and block is not set, part stays current
+     * @throws UncheckedIOException if waiting for permit timed out or was interrupted
+     */
+    protected boolean uploadCurrentPart(boolean block) {
+        if (!acquireInFlight(block)) {
+            return false;
+        }
         UploadPartRequest req = createRequest(id, partBody);
         id += 1;
-        partBody = ByteBuffer.allocate(partSize);
+        partBody = allocatePart(id);
         startWorker(req, 0);
+        return true;
+    }
+
+    /**
+     * Allocates buffer of given part, sized by part size policy
+     */
+    protected ByteBuffer allocatePart(int id) {
+        return partAllocator.allocate(partSizePolicy.partSize(id));
+    }
+
+    /**
+     * Takes in-flight permit of part which is uploaded on close without waiting
+     */
+    protected void forceInFlight(int size) {
+        if (inFlightLimit != null) {
+            inFlightLimit.forceAcquire(size);
+        }
+    }
+
+    protected boolean acquireInFlight(boolean block) {
+        if (inFlightLimit == null) {
+            return true;
+        }
+        if (!block) {
+            return inFlightLimit.tryAcquire(partBody.capacity());
+        }
+        try {
+            if (!inFlightLimit.acquire(partBody.capacity())) {
+                throw new UncheckedIOException("Timed out waiting for in-flight parts to be uploaded",
+                        new InterruptedByTimeoutException());
+            }
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new UncheckedIOException(new InterruptedIOException("Interrupted waiting for in-flight parts"));
+        }
     }
 
+    /**
+     * Creates request of given part. Buffer is owned by the request until it is released by
+     * {@link S3AppendableObjectChannel#releaseBuffer(int)}
+     */
     protected UploadPartRequest createRequest(int id, ByteBuffer buffer) {
+        buffers.put(id, buffer);
         buffer.rewind();
         return new UploadPartRequest()
                 .withBucketName(bucket)
@@ -93,32 +207,106 @@ public class S3AppendableObjectChannel extends S3WritableObjectChannel {
                 .withUploadId(uploadId)
                 .withPartNumber(id)
                 .withPartSize(buffer.limit())
-                .withInputStream(new ByteArrayInputStream(buffer.array(), 0, buffer.limit()));
+                .withInputStream(new ByteBufferInputStream(buffer));
     }
 
     protected void startWorker(UploadPartRequest req, int retries) {
+        CompletableFuture<Void> f = new CompletableFuture<>();
+        workers.put(req.getPartNumber(), f);
+        uploadPart(req, retries, f);
+    }
+
+    /**
+     * Uploads part on executor service. Failed upload is retried after backoff until retries are exhausted,
+     * then whole upload is cancelled.
+     *
+     * @param worker completed once part is uploaded or failed for good
+     */
+    protected void uploadPart(UploadPartRequest req, int retries, CompletableFuture<Void> worker) {
         int id = req.getPartNumber();
 
-        CompletableFuture<Void> f = CompletableFuture
-                .supplyAsync(() -> s3.uploadPart(req), executor)
-                .handle((res, error) -> {
-                    workers.remove(id);
+        CompletableFuture
+                .supplyAsync(() -> sendPart(req, retries), executor)
+                .whenComplete((res, error) -> {
                     if (res != null) {
                         done.add(res);
+                    } else if (cancellation == null && retries < failedPartUploadRetries) {
+                        retryLater(req, retries, worker);
+                        return;
+                    } else if (cancellation == null) {
+                        this.error = new IllegalStateException("Could not upload part " + id + " after "
+                                + retries + " retries. Aborting upload", error.getCause());
+                        // current part is still being written by writer, it is released on close
+                        abort();
                     }
-                    if (error != null && isOpen()) {
-                        if (retries < failedPartUploadRetries) {
-                            startWorker(req, retries + 1);
-                        } else {
-                            this.error = new IllegalStateException("Could not upload part " + id + " after "
-                                    + retries + " retries. Aborting upload", error.getCause());
-                            cancel();
-                        }
-                    }
-                    return null;
+                    releaseBuffer(id);
+                    workers.remove(id);
+                    worker.complete(null);
                 });
+    }
 
-        workers.put(id, f);
+    /**
+     * Gives buffer of uploaded or failed part back to part allocator, returns its in-flight permit
+     */
+    protected void releaseBuffer(int id) {
+        ByteBuffer buffer = buffers.remove(id);
+        if (buffer != null) {
+            partAllocator.release(buffer);
+            if (inFlightLimit != null) {
+                inFlightLimit.release(buffer.capacity());
+            }
+        }
+    }
+
+    private void retryLater(UploadPartRequest req, int retries, CompletableFuture<Void> worker) {
+        long backoff = limiter != null ?
+                limiter.backoffNanos(retries) :
+                ConcurrencyLimiter.backoffNanos(retries,
+                        ConcurrencyLimiter.DEFAULT_BASE_BACKOFF_NANOS, ConcurrencyLimiter.DEFAULT_MAX_BACKOFF_NANOS);
+        RETRIES.schedule(() -> {
+            try {
+                uploadPart(req, retries + 1, worker);
+            } catch (RuntimeException e) {
+                releaseBuffer(req.getPartNumber());
+                workers.remove(req.getPartNumber());
+                worker.completeExceptionally(e);
+            }
+        }, backoff, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Sends part under concurrency limiter's permit, if limiter is set
+     */
+    protected UploadPartResult sendPart(UploadPartRequest req, int retries) {
+        if (retries > 0) {
+            try {
+                // body could be partially consumed by failed attempt
+                req.getInputStream().reset();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+        if (limiter == null) {
+            return s3.uploadPart(req);
+        }
+        try {
+            limiter.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CompletionException(e);
+        }
+        try {
+            UploadPartResult res = s3.uploadPart(req);
+            limiter.onSuccess();
+            return res;
+        } catch (RuntimeException e) {
+            if (ConcurrencyLimiter.isThrottling(e)) {
+                limiter.onThrottled();
+            } else {
+                limiter.onFailure();
+            }
+            throw e;
+        }
     }
 
     @Override
@@ -140,6 +328,8 @@ public class S3AppendableObjectChannel extends S3WritableObjectChannel {
     @SuppressWarnings("unchecked")
     public void close() {
         if (!isOpen()) {
+            // upload was cancelled by failed part, current parts are not uploaded anymore
+            discard();
             return;
         }
         closed = true;
@@ -172,15 +362,21 @@ public class S3AppendableObjectChannel extends S3WritableObjectChannel {
     protected void uploadPendingParts() {
         partBody.flip();
         if (partBody.limit() > 0) {
+            forceInFlight(partBody.capacity());
             startWorker(createRequest(id, partBody).withLastPart(true), 0);
+        } else {
+            partAllocator.release(partBody);
         }
     }
 
     protected void checkOnError() {
         if (error != null) {
             throw new IllegalStateException("Caught error during uploading part to s3", error);
+        } else if (closed) {
+            throw new IllegalStateException("Channel is closed or cancelled");
         } else if (id > MAX_PARTS) {
-            throw new IllegalStateException("Reached max allowed number of parts (10000)");
+            throw new IllegalStateException("Reached max allowed number of parts (10000), consider adaptive " +
+                    "part size policy or object size hint");
         }
     }
 
@@ -192,6 +388,11 @@ public class S3AppendableObjectChannel extends S3WritableObjectChannel {
 
     @Override
     public CompletableFuture<Void> cancel() {
+        discard();
+        return abort();
+    }
+
+    protected CompletableFuture<Void> abort() {
         if (cancellation == null) {
             cancellation = CompletableFuture.runAsync(() ->
                     s3.abortMultipartUpload(new AbortMultipartUploadRequest(bucket, key, uploadId)));
@@ -199,6 +400,24 @@ public class S3AppendableObjectChannel extends S3WritableObjectChannel {
         return cancellation;
     }
 
+    /**
+     * Closes channel without uploading current parts, their buffers are given back to part allocator.
+     * No-op if channel is already closed, then current parts are owned by upload workers.
+     */
+    protected void discard() {
+        if (!closed) {
+            closed = true;
+            releaseCurrentParts();
+        }
+    }
+
+    /**
+     * Gives buffers of parts which are not handed over to upload yet back to part allocator
+     */
+    protected void releaseCurrentParts() {
+        partAllocator.release(partBody);
+    }
+
     @Override
     public CompletableFuture<Void> getCancellation() {
         return cancellation;
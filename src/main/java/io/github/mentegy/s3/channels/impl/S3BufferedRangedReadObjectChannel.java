@@ -1,23 +1,45 @@
 package io.github.mentegy.s3.channels.impl;
 
 import com.amazonaws.services.s3.AmazonS3;
-import com.amazonaws.services.s3.model.GetObjectRequest;
 import com.amazonaws.services.s3.model.S3Object;
+import io.github.mentegy.s3.channels.cache.ObjectMetadataCache;
+import io.github.mentegy.s3.channels.util.BlockAllocator;
 import io.github.mentegy.s3.channels.util.ByteBufferUtils;
+import io.github.mentegy.s3.channels.util.HeapBlockAllocator;
+import io.github.mentegy.s3.channels.util.ConcurrencyLimiter;
+import io.github.mentegy.s3.channels.util.HedgePolicy;
 
 import java.io.IOException;
 import java.nio.ByteBuffer;
+import java.util.concurrent.ExecutorService;
 
 
 public class S3BufferedRangedReadObjectChannel extends S3RangedReadObjectChannel {
 
+    /**
+     * Allocator of read buffer, buffer size is equal to allocator's block size
+     */
+    public final BlockAllocator allocator;
+
     protected ByteBuffer buffer;
     protected long bufferOffset;
     protected long bufferLimit;
 
     public S3BufferedRangedReadObjectChannel(String key, String bucket, AmazonS3 s3, int bufferSize) {
-        super(key, bucket, s3);
-        buffer = ByteBuffer.allocate(bufferSize);
+        this(key, bucket, s3, new HeapBlockAllocator(bufferSize));
+    }
+
+    public S3BufferedRangedReadObjectChannel(String key, String bucket, AmazonS3 s3, BlockAllocator allocator) {
+        this(key, bucket, s3, allocator, null, false, null, 0, 0, null, null);
+    }
+
+    public S3BufferedRangedReadObjectChannel(String key, String bucket, AmazonS3 s3, BlockAllocator allocator,
+                                             ObjectMetadataCache metadataCache, boolean lazyOpen,
+                                             ExecutorService executor, int splitSize, int tailSize,
+                                             HedgePolicy hedgePolicy, ConcurrencyLimiter limiter) {
+        super(key, bucket, s3, metadataCache, lazyOpen, executor, splitSize, tailSize, hedgePolicy, limiter);
+        this.allocator = allocator;
+        buffer = allocator.allocate();
     }
 
     @Override
@@ -25,6 +47,10 @@ public class S3BufferedRangedReadObjectChannel extends S3RangedReadObjectChannel
         if (!dst.hasRemaining()) {
             return 0;
         }
+        int fromTail = readTail(dst, position);
+        if (fromTail >= 0) {
+            return fromTail;
+        }
         int need = dst.remaining();
         if (inRange(position)) {
             buffer.position((int)(position - bufferOffset));
@@ -33,38 +59,48 @@ public class S3BufferedRangedReadObjectChannel extends S3RangedReadObjectChannel
                 return ByteBufferUtils.putBiggerBuffer(dst, buffer);
             }
             dst.put(buffer);
+            if (bufferLimit >= size) {
+                return has;
+            }
             return has + read(dst, position + has);
         }
-        buffer.rewind();
+        buffer.clear();
 
         if (need <= buffer.capacity()) {
-            S3Object object = readS3ObjectByRange(position, buffer.capacity());
+            int fetch = Math.max(need, fetchSize(position));
+            buffer.limit(fetch);
+            S3Object object = readS3ObjectByRange(position, fetch);
             ByteBufferUtils.readFromInputStream(object.getObjectContent(), buffer, true);
+            buffer.flip();
             bufferOffset = position;
-            bufferLimit = position + buffer.position();
-            buffer.position(0);
+            bufferLimit = position + buffer.limit();
             return ByteBufferUtils.putBiggerBuffer(dst, buffer);
         } else {
-            S3Object object = readS3ObjectByRange(position, dst.remaining());
-            return ByteBufferUtils.readFromInputStream(object.getObjectContent(), dst, true);
+            return super.read(dst, position);
         }
     }
 
-    @Override
-    public boolean isOpen() {
-        return buffer != null;
-    }
 
     @Override
     public void close() {
+        if (buffer != null) {
+            allocator.release(buffer);
+        }
         buffer = null;
         super.close();
     }
 
 
-    protected S3Object readS3ObjectByRange(long start, long size) {
-        return s3.getObject(new GetObjectRequest(bucket, key)
-                .withRange(start, start + size));
+    /**
+     * Number of bytes to be fetched into the buffer on miss at given position, not greater than buffer capacity.
+     * Whole buffer by default
+     */
+    protected int fetchSize(long position) {
+        return buffer.capacity();
+    }
+
+    protected S3Object readS3ObjectByRange(long start, long size) throws IOException {
+        return getObject(start, start + size - 1);
     }
 
     protected boolean inRange(long position) {
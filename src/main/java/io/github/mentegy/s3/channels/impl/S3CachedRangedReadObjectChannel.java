@@ -0,0 +1,114 @@
+package io.github.mentegy.s3.channels.impl;
+
+import com.amazonaws.services.s3.AmazonS3;
+import com.amazonaws.services.s3.model.ObjectMetadata;
+import com.amazonaws.services.s3.model.S3Object;
+import io.github.mentegy.s3.channels.cache.BlockCache;
+import io.github.mentegy.s3.channels.cache.BlockKey;
+import io.github.mentegy.s3.channels.cache.ObjectMetadataCache;
+import io.github.mentegy.s3.channels.util.ByteBufferUtils;
+import io.github.mentegy.s3.channels.util.ConcurrencyLimiter;
+import io.github.mentegy.s3.channels.util.HedgePolicy;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Objects;
+
+/**
+ * Extends {@link S3RangedReadObjectChannel} by reading data through shared {@link BlockCache}.
+ * Please refer parent implementation for more details.
+ * <p>
+ * Object is split into blocks of {@link BlockCache#blockSize()}. Each read is served block by block,
+ * only missing blocks are fetched from S3 and put into the cache, so other channels of the same
+ * object could reuse them. Blocks are keyed by object's ETag once it is known and cached under ETag of
+ * the response they were fetched by, so blocks of previous object version are never read.
+ * <p>
+ * Thread-safety is the same as parent's, e.g. reads by absolute position are thread-safe
+ * as long as given cache is.
+ */
+public class S3CachedRangedReadObjectChannel extends S3RangedReadObjectChannel {
+
+    /**
+     * Shared block cache
+     */
+    public final BlockCache cache;
+
+    public S3CachedRangedReadObjectChannel(String key, String bucket, AmazonS3 s3, BlockCache cache) {
+        this(key, bucket, s3, cache, null);
+    }
+
+    public S3CachedRangedReadObjectChannel(String key, String bucket, AmazonS3 s3, BlockCache cache,
+                                           ObjectMetadataCache metadataCache) {
+        this(key, bucket, s3, cache, metadataCache, false);
+    }
+
+    public S3CachedRangedReadObjectChannel(String key, String bucket, AmazonS3 s3, BlockCache cache,
+                                           ObjectMetadataCache metadataCache, boolean lazyOpen) {
+        this(key, bucket, s3, cache, metadataCache, lazyOpen, 0, null, null);
+    }
+
+    public S3CachedRangedReadObjectChannel(String key, String bucket, AmazonS3 s3, BlockCache cache,
+                                           ObjectMetadataCache metadataCache, boolean lazyOpen, int tailSize,
+                                           HedgePolicy hedgePolicy, ConcurrencyLimiter limiter) {
+        super(key, bucket, s3, metadataCache, lazyOpen, null, 0, tailSize, hedgePolicy, limiter);
+        this.cache = cache;
+    }
+
+    @Override
+    public int read(ByteBuffer dst, long position) throws IOException {
+        int fromTail = readTail(dst, position);
+        if (fromTail >= 0) {
+            return fromTail;
+        }
+        int blockSize = cache.blockSize();
+        int read = 0;
+        while (dst.hasRemaining() && (size < 0 || position < size)) {
+            BlockKey block = new BlockKey(bucket, key, etag(), position / blockSize);
+            int offset = (int) (position % blockSize);
+            int n = cache.read(block, offset, dst);
+            if (n < 0) {
+                n = readBlock(block, offset, dst);
+            }
+            if (n <= 0) {
+                break;
+            }
+            read += n;
+            position += n;
+        }
+        return read;
+    }
+
+    private String etag() {
+        ObjectMetadata m = metadata;
+        return m != null ? m.getETag() : etag;
+    }
+
+    /**
+     * Fills given buffers in order through the cache
+     */
+    @Override
+    public long read(ByteBuffer[] dsts, int offset, int length, long position) throws IOException {
+        return readEach(dsts, offset, length, position);
+    }
+
+    /**
+     * Fetches whole block from S3, puts it into cache and copies requested part into destination.
+     * Block is cached under ETag of the response, so bytes of modified object are never cached under
+     * ETag of its previous version, even if the request is not guarded by ETag constraint.
+     */
+    protected int readBlock(BlockKey block, int offset, ByteBuffer dst) throws IOException {
+        int blockSize = cache.blockSize();
+        long start = block.blockIndex * blockSize;
+        ByteBuffer data = ByteBuffer.allocate(size < 0 ? blockSize : (int) Math.min(blockSize, size - start));
+        S3Object object = getObject(start, start + data.capacity() - 1);
+        String etag = object.getObjectMetadata().getETag();
+        ByteBufferUtils.readFromInputStream(object.getObjectContent(), data, true);
+        data.flip();
+        cache.put(Objects.equals(etag, block.etag) ? block : new BlockKey(bucket, key, etag, block.blockIndex), data);
+        if (offset >= data.limit()) {
+            return 0;
+        }
+        data.position(offset);
+        return ByteBufferUtils.putBiggerBuffer(dst, data);
+    }
+}
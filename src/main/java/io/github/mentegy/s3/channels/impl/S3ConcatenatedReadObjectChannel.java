@@ -0,0 +1,389 @@
+package io.github.mentegy.s3.channels.impl;
+
+import com.amazonaws.services.s3.AmazonS3;
+import io.github.mentegy.s3.channels.FileRange;
+import io.github.mentegy.s3.channels.S3ReadableObjectChannel;
+import io.github.mentegy.s3.channels.cache.ObjectMetadataCache;
+import io.github.mentegy.s3.channels.util.ByteBufferUtils;
+import io.github.mentegy.s3.channels.util.ExceptionUtils;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.function.Function;
+import java.util.function.IntFunction;
+
+/**
+ * A readonly channel which presents ordered list of s3 objects (e.g. {@code part-00000 ... part-NNNNN})
+ * as one continuous object, i.e. the first byte of every object follows the last byte of the previous one.
+ * <p>
+ * Metadata of all objects is resolved on open concurrently on executor service (or taken from given
+ * metadata cache, e.g. after prefix listing) and turned into index of cumulative offsets, so object which
+ * covers given position is found by binary search. Per-object channels are opened on first access by given
+ * opener, which should use the same metadata cache to not send HEAD request again.
+ * <p>
+ * Once a read gets within {@link S3ConcatenatedReadObjectChannel#readAheadSize} of object's end, the first
+ * {@link S3ConcatenatedReadObjectChannel#readAheadSize} bytes of the next object are fetched on executor service,
+ * so sequential scan does not stall on object boundary.
+ * <p>
+ * Vectored read and transfer to another channel are delegated to per-object channels.
+ * <p>
+ * Not thread safe, per-object channels are shared by all reads.
+ */
+public class S3ConcatenatedReadObjectChannel extends S3ReadableObjectChannel {
+
+    public static final int DEFAULT_READ_AHEAD_SIZE = 1024 * 1024;
+
+    /**
+     * Object keys, in order of concatenation
+     */
+    public final List<String> keys;
+
+    /**
+     * Number of bytes of the next object which are fetched in background, disabled if {@code 0}
+     */
+    public final int readAheadSize;
+
+    /**
+     * Executor service which fetches metadata and reads ahead
+     */
+    public final ExecutorService executor;
+
+    protected final ObjectMetadataCache metadataCache;
+    protected final Function<String, S3ReadableObjectChannel> opener;
+    /**
+     * Start offset of every object, the last element is total size
+     */
+    protected final long[] offsets;
+    protected final S3ReadableObjectChannel[] channels;
+    protected long pos;
+    protected boolean open = true;
+    /**
+     * Read ahead heads by object index, only of the object being read and the next one
+     */
+    protected final Map<Integer, CompletableFuture<ByteBuffer>> ahead = new HashMap<>();
+
+    public S3ConcatenatedReadObjectChannel(List<String> keys, String bucket, AmazonS3 s3,
+                                           ObjectMetadataCache metadataCache, ExecutorService executor) {
+        this(keys, bucket, s3, metadataCache, executor,
+                key -> new S3RangedReadObjectChannel(key, bucket, s3, metadataCache, false, null, 0, 0, null, null),
+                DEFAULT_READ_AHEAD_SIZE);
+    }
+
+    /**
+     * @param keys          object keys, in order of concatenation
+     * @param bucket        S3 bucket
+     * @param s3            Amazon S3 client
+     * @param metadataCache metadata cache, filled on open
+     * @param executor      executor service which fetches metadata and reads ahead
+     * @param opener        opens channel of given key
+     * @param readAheadSize number of bytes of the next object fetched in background, disabled if {@code 0}
+     */
+    public S3ConcatenatedReadObjectChannel(List<String> keys, String bucket, AmazonS3 s3,
+                                           ObjectMetadataCache metadataCache, ExecutorService executor,
+                                           Function<String, S3ReadableObjectChannel> opener, int readAheadSize) {
+        super(keys.isEmpty() ? "" : keys.get(0), bucket, s3);
+        this.keys = Collections.unmodifiableList(new ArrayList<>(keys));
+        this.metadataCache = metadataCache;
+        this.executor = executor;
+        this.opener = opener;
+        this.readAheadSize = readAheadSize;
+        this.channels = new S3ReadableObjectChannel[keys.size()];
+        this.offsets = new long[keys.size() + 1];
+        try {
+            metadataCache.prewarm(s3, bucket, this.keys, executor).get();
+        } catch (Exception e) {
+            throw ExceptionUtils.mapExecutionException(e);
+        }
+        for (int i = 0; i < keys.size(); i++) {
+            offsets[i + 1] = offsets[i] + metadataCache.get(s3, bucket, keys.get(i)).getContentLength();
+        }
+    }
+
+    /**
+     * Returns index of the object which covers given position
+     *
+     * @param position position within concatenated object, less than its size
+     * @return object index
+     */
+    protected int indexOf(long position) {
+        int i = Arrays.binarySearch(offsets, position);
+        if (i < 0) {
+            return -i - 2;
+        }
+        // skip empty objects starting at the same offset
+        while (offsets[i + 1] == position) {
+            i++;
+        }
+        return i;
+    }
+
+    protected S3ReadableObjectChannel channel(int index) {
+        if (channels[index] == null) {
+            channels[index] = opener.apply(keys.get(index));
+        }
+        return channels[index];
+    }
+
+    @Override
+    public int read(ByteBuffer dst, long position) throws IOException {
+        if (!dst.hasRemaining()) {
+            return 0;
+        }
+        if (position >= size()) {
+            return -1;
+        }
+        int read = 0;
+        while (dst.hasRemaining() && position + read < size()) {
+            int n = readObject(dst, position + read);
+            if (n <= 0) {
+                throw new EOFException("Object " + bucket + "/" + keys.get(indexOf(position + read))
+                        + " is shorter than expected");
+            }
+            read += n;
+        }
+        return read;
+    }
+
+    /**
+     * Reads from single object which covers given position
+     */
+    private int readObject(ByteBuffer dst, long position) throws IOException {
+        int index = indexOf(position);
+        long local = position - offsets[index];
+        long objectEnd = offsets[index + 1] - offsets[index];
+        ByteBuffer target = dst;
+        if (dst.remaining() > objectEnd - local) {
+            target = dst.duplicate();
+            target.limit(dst.position() + (int) (objectEnd - local));
+        }
+        int read = readAhead(index, target, local);
+        if (read < 0) {
+            read = channel(index).read(target, local);
+        }
+        if (target != dst && read > 0) {
+            dst.position(dst.position() + read);
+        }
+        if (read > 0 && local + read > objectEnd - readAheadSize) {
+            startReadAhead(index);
+        }
+        return read;
+    }
+
+    /**
+     * Reads from read ahead head of the object, if given position is within it
+     *
+     * @return read bytes or {@code -1} if position is not within read ahead
+     */
+    private int readAhead(int index, ByteBuffer dst, long local) throws IOException {
+        CompletableFuture<ByteBuffer> future = ahead.get(index);
+        if (future == null || local >= readAheadSize) {
+            return -1;
+        }
+        ByteBuffer head;
+        try {
+            head = future.get().duplicate();
+        } catch (Exception e) {
+            ahead.remove(index);
+            throw ExceptionUtils.mapExecutionIOException(e);
+        }
+        if (local >= head.limit()) {
+            return -1;
+        }
+        head.position((int) local);
+        return ByteBufferUtils.putBiggerBuffer(dst, head);
+    }
+
+    /**
+     * Starts read ahead of the next non-empty object after given one
+     */
+    private void startReadAhead(int current) {
+        int index = current + 1;
+        while (index < keys.size() && offsets[index + 1] == offsets[index]) {
+            index++;
+        }
+        if (readAheadSize <= 0 || index >= keys.size() || ahead.containsKey(index)) {
+            return;
+        }
+        ahead.entrySet().removeIf(e -> {
+            if (e.getKey() < current) {
+                e.getValue().cancel(false);
+                return true;
+            }
+            return false;
+        });
+        String next = keys.get(index);
+        int length = (int) Math.min(readAheadSize, offsets[index + 1] - offsets[index]);
+        // separate stateless channel, since channel of the next object could be not safe for concurrent reads
+        ahead.put(index, CompletableFuture.supplyAsync(() -> {
+            ByteBuffer head = ByteBuffer.allocate(length);
+            try {
+                new S3RangedReadObjectChannel(next, bucket, s3, metadataCache, false, null, 0, 0, null, null)
+                        .read(head, 0);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            head.flip();
+            return head;
+        }, executor));
+    }
+
+    @Override
+    public long read(ByteBuffer[] dsts, int offset, int length, long position) throws IOException {
+        if (offset < 0 || length < 0 || offset > dsts.length - length) {
+            throw new IndexOutOfBoundsException();
+        }
+        long read = 0;
+        for (int i = offset; i < offset + length; i++) {
+            if (!dsts[i].hasRemaining()) {
+                continue;
+            }
+            int n = read(dsts[i], position + read);
+            if (n < 0) {
+                return read == 0 ? -1 : read;
+            }
+            read += n;
+            if (dsts[i].hasRemaining()) {
+                break;
+            }
+        }
+        return read;
+    }
+
+    @Override
+    public int read(ByteBuffer dst) throws IOException {
+        int read = read(dst, pos);
+        if (read > 0) {
+            pos += read;
+        }
+        return read;
+    }
+
+    /**
+     * Ranges within single object are delegated to its channel, ranges across object boundary are read
+     * in calling thread.
+     */
+    @Override
+    public List<CompletableFuture<ByteBuffer>> readVectored(List<FileRange> ranges, IntFunction<ByteBuffer> allocator,
+                                                            int maxGap, int maxMergedSize) {
+        List<CompletableFuture<ByteBuffer>> results = new ArrayList<>(ranges.size());
+        List<List<Integer>> perObject = new ArrayList<>(keys.size());
+        for (int i = 0; i < keys.size(); i++) {
+            perObject.add(new ArrayList<>());
+        }
+        for (int i = 0; i < ranges.size(); i++) {
+            results.add(new CompletableFuture<>());
+            FileRange range = ranges.get(i);
+            if (range.end() > size()) {
+                results.get(i).completeExceptionally(new EOFException(
+                        "Range " + range + " exceeds concatenated object " + bucket + "/" + key));
+            } else if (range.length == 0) {
+                results.get(i).complete(allocator.apply(0));
+            } else if (indexOf(range.offset) == indexOf(range.end() - 1)) {
+                perObject.get(indexOf(range.offset)).add(i);
+            } else {
+                ByteBuffer dst = allocator.apply(range.length);
+                try {
+                    read(dst, range.offset);
+                    dst.flip();
+                    results.get(i).complete(dst);
+                } catch (Exception e) {
+                    results.get(i).completeExceptionally(e);
+                }
+            }
+        }
+        for (int o = 0; o < keys.size(); o++) {
+            List<Integer> indexes = perObject.get(o);
+            if (indexes.isEmpty()) {
+                continue;
+            }
+            List<FileRange> local = new ArrayList<>(indexes.size());
+            for (int i : indexes) {
+                local.add(new FileRange(ranges.get(i).offset - offsets[o], ranges.get(i).length));
+            }
+            List<CompletableFuture<ByteBuffer>> delegated = channel(o).readVectored(local, allocator,
+                    maxGap, maxMergedSize);
+            for (int j = 0; j < indexes.size(); j++) {
+                CompletableFuture<ByteBuffer> result = results.get(indexes.get(j));
+                delegated.get(j).whenComplete((data, e) -> {
+                    if (e != null) {
+                        result.completeExceptionally(e);
+                    } else {
+                        result.complete(data);
+                    }
+                });
+            }
+        }
+        return results;
+    }
+
+    @Override
+    public long transferTo(long position, long count, WritableByteChannel target, int partSize, int parallelism)
+            throws IOException {
+        S3RangedReadObjectChannel.checkTransferArguments(partSize, parallelism);
+        long end = Math.min(size(), position + Math.min(count, size() - position));
+        long next = position;
+        while (next < end) {
+            int index = indexOf(next);
+            long local = next - offsets[index];
+            long length = Math.min(end, offsets[index + 1]) - next;
+            long n = channel(index).transferTo(local, length, target, partSize, parallelism);
+            if (n < length) {
+                throw new EOFException("Object " + bucket + "/" + keys.get(index) + " is shorter than expected");
+            }
+            next += n;
+        }
+        return Math.max(0, end - position);
+    }
+
+    @Override
+    public long position() {
+        return pos;
+    }
+
+    @Override
+    public S3ConcatenatedReadObjectChannel position(long newPosition) {
+        if (0 <= newPosition && newPosition <= size()) {
+            pos = newPosition;
+        }
+        return this;
+    }
+
+    /**
+     * Returns total size of all objects
+     *
+     * @return size
+     */
+    @Override
+    public long size() {
+        return offsets[offsets.length - 1];
+    }
+
+    @Override
+    public boolean isOpen() {
+        return open;
+    }
+
+    @Override
+    public void close() {
+        open = false;
+        ahead.values().forEach(f -> f.cancel(false));
+        ahead.clear();
+        for (int i = 0; i < channels.length; i++) {
+            if (channels[i] != null) {
+                channels[i].close();
+                channels[i] = null;
+            }
+        }
+    }
+}
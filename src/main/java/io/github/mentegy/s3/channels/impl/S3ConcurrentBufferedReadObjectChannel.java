@@ -0,0 +1,149 @@
+package io.github.mentegy.s3.channels.impl;
+
+import com.amazonaws.services.s3.AmazonS3;
+import com.amazonaws.services.s3.model.S3Object;
+import io.github.mentegy.s3.channels.cache.ObjectMetadataCache;
+import io.github.mentegy.s3.channels.util.ByteBufferUtils;
+import io.github.mentegy.s3.channels.util.ExceptionUtils;
+import io.github.mentegy.s3.channels.util.ConcurrencyLimiter;
+import io.github.mentegy.s3.channels.util.HedgePolicy;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Buffered channel which could be shared by many threads reading by absolute position
+ * {@link S3ConcurrentBufferedReadObjectChannel#read(ByteBuffer, long)}.
+ * Please refer {@link S3RangedReadObjectChannel} for more details.
+ * <p>
+ * Object is split into aligned blocks of {@link S3ConcurrentBufferedReadObjectChannel#blockSize}.
+ * Fetched blocks are kept as immutable snapshots in a fixed table of
+ * {@link S3ConcurrentBufferedReadObjectChannel#blocks} slots, block {@code i} lives in slot {@code i % blocks}.
+ * Readers never lock: they copy from the snapshot found in the slot or fetch the block and publish
+ * new snapshot, replacing previous one. Concurrent misses of the same block are served by single request.
+ * <p>
+ * Snapshots are heap buffers which are never reused, since other readers may still copy from them.
+ * Reads bigger than block size bypass the blocks. Reads by current position are not thread safe, the same as parent.
+ */
+public class S3ConcurrentBufferedReadObjectChannel extends S3RangedReadObjectChannel {
+
+    /**
+     * Size of single block
+     */
+    public final int blockSize;
+
+    /**
+     * Number of blocks kept in memory
+     */
+    public final int blocks;
+
+    protected final AtomicReferenceArray<Block> table;
+    protected final ConcurrentHashMap<Long, CompletableFuture<Block>> loading = new ConcurrentHashMap<>();
+
+    public S3ConcurrentBufferedReadObjectChannel(String key, String bucket, AmazonS3 s3, int blockSize, int blocks) {
+        this(key, bucket, s3, blockSize, blocks, null, false, null, 0, 0, null, null);
+    }
+
+    public S3ConcurrentBufferedReadObjectChannel(String key, String bucket, AmazonS3 s3, int blockSize, int blocks,
+                                                 ObjectMetadataCache metadataCache, boolean lazyOpen,
+                                                 ExecutorService executor, int splitSize, int tailSize,
+                                                 HedgePolicy hedgePolicy, ConcurrencyLimiter limiter) {
+        super(key, bucket, s3, metadataCache, lazyOpen, executor, splitSize, tailSize, hedgePolicy, limiter);
+        this.blockSize = blockSize;
+        this.blocks = blocks;
+        this.table = new AtomicReferenceArray<>(blocks);
+    }
+
+    @Override
+    public int read(ByteBuffer dst, long position) throws IOException {
+        if (!dst.hasRemaining()) {
+            return 0;
+        }
+        int fromTail = readTail(dst, position);
+        if (fromTail >= 0) {
+            return fromTail;
+        }
+        if (dst.remaining() > blockSize) {
+            return super.read(dst, position);
+        }
+        int read = 0;
+        while (dst.hasRemaining() && (size < 0 || position < size)) {
+            Block block = block(position / blockSize);
+            int offset = (int) (position - block.index * blockSize);
+            if (offset >= block.data.limit()) {
+                break;
+            }
+            ByteBuffer src = block.data.duplicate();
+            src.position(offset);
+            int n = ByteBufferUtils.putBiggerBuffer(dst, src);
+            read += n;
+            position += n;
+        }
+        return read;
+    }
+
+    /**
+     * Returns snapshot of block with given index, fetching it if it is not in the table
+     */
+    protected Block block(long index) throws IOException {
+        int slot = (int) (index % blocks);
+        Block block = table.get(slot);
+        if (block != null && block.index == index) {
+            return block;
+        }
+        CompletableFuture<Block> future = new CompletableFuture<>();
+        CompletableFuture<Block> existing = loading.putIfAbsent(index, future);
+        if (existing != null) {
+            try {
+                return existing.join();
+            } catch (Exception e) {
+                throw ExceptionUtils.mapExecutionIOException(e);
+            }
+        }
+        try {
+            block = fetch(index);
+            table.set(slot, block);
+            future.complete(block);
+            return block;
+        } catch (IOException | RuntimeException e) {
+            future.completeExceptionally(e);
+            throw e;
+        } finally {
+            loading.remove(index, future);
+        }
+    }
+
+    protected Block fetch(long index) throws IOException {
+        long start = index * blockSize;
+        ByteBuffer data = ByteBuffer.allocate(size < 0 ? blockSize : (int) Math.min(blockSize, size - start));
+        S3Object object = getObject(start, start + data.capacity() - 1);
+        ByteBufferUtils.readFromInputStream(object.getObjectContent(), data, true);
+        data.flip();
+        return new Block(index, data.asReadOnlyBuffer());
+    }
+
+    @Override
+    public void close() {
+        for (int i = 0; i < blocks; i++) {
+            table.set(i, null);
+        }
+        super.close();
+    }
+
+    /**
+     * Immutable block snapshot
+     */
+    protected static class Block {
+        protected final long index;
+        protected final ByteBuffer data;
+
+        protected Block(long index, ByteBuffer data) {
+            this.index = index;
+            this.data = data;
+        }
+    }
+}
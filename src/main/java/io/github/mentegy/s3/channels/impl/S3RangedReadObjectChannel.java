@@ -1,14 +1,42 @@
 package io.github.mentegy.s3.channels.impl;
 
+import com.amazonaws.AmazonServiceException;
 import com.amazonaws.services.s3.AmazonS3;
+import com.amazonaws.services.s3.Headers;
 import com.amazonaws.services.s3.model.GetObjectRequest;
 import com.amazonaws.services.s3.model.ObjectMetadata;
 import com.amazonaws.services.s3.model.S3Object;
+import com.amazonaws.services.s3.model.S3ObjectInputStream;
+import io.github.mentegy.s3.channels.FileRange;
 import io.github.mentegy.s3.channels.S3ReadableObjectChannel;
+import io.github.mentegy.s3.channels.cache.ObjectMetadataCache;
 import io.github.mentegy.s3.channels.util.ByteBufferUtils;
+import io.github.mentegy.s3.channels.util.ExceptionUtils;
+import io.github.mentegy.s3.channels.util.ConcurrencyLimiter;
+import io.github.mentegy.s3.channels.util.HedgePolicy;
 
+import java.io.EOFException;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.UncheckedIOException;
 import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiConsumer;
+import java.util.function.IntFunction;
+import java.util.function.Supplier;
 
 /**
  * A readonly, stateless (except current position) s3 object byte channel.
@@ -19,17 +47,227 @@ import java.nio.ByteBuffer;
  * Maintaining current position does not make it thread-safe. However it could be
  * treated as thread-safe only bu calling read with absolute position, which does
  * not change current position {@link S3RangedReadObjectChannel#read(ByteBuffer, long)}.
+ * <p>
+ * If executor service and split size are set, reads bigger than split size are split into
+ * sub-ranges of split size, which are fetched concurrently and written directly into
+ * corresponding slices of destination buffer.
+ * <p>
+ * If metadata cache is set, object metadata is taken from it instead of HEAD request. In this case every
+ * ranged request is sent with matching ETag constraint, so stale metadata is detected by
+ * {@link ObjectModifiedException}.
+ * <p>
+ * If lazy open is enabled, no request is sent until the first read. Size and metadata are taken
+ * from {@code Content-Range} of the first ranged GET, which is guarded by ETag constraint afterwards.
+ * HEAD request is sent only if {@link S3RangedReadObjectChannel#size()} is called before any read.
+ * <p>
+ * If tail size is set, last bytes of the object are fetched on open by suffix ranged GET instead of HEAD request,
+ * object size is taken from its {@code Content-Range}. Tail is kept in memory, so reads within it
+ * (e.g. footer of columnar formats) do not send any request.
+ * <p>
+ * Vectored read merges nearby ranges and fetches every merged range by its own request, concurrently
+ * on executor service if it is set, otherwise one by one in calling thread. Vectored read does not use
+ * any buffering or caching of subclasses.
+ * <p>
+ * If hedge policy is set, ranged request which does not respond within usual latency
+ * (see {@link HedgePolicy}) is duplicated. Whichever responds first is used, the other one is aborted.
+ * <p>
+ * If concurrency limiter is set, every ranged request holds its permit until response is received,
+ * throttled requests are retried after backoff (see {@link ConcurrencyLimiter}).
+ * <p>
+ * Transfer to another channel fetches parts on executor service if it is set, otherwise one by one in calling
+ * thread. The same as vectored read, it does not use any buffering or caching of subclasses.
+ * <p>
+ * Scattering read is served by single ranged request covering all given buffers, which are filled in order
+ * from its stream.
  */
 public class S3RangedReadObjectChannel extends S3ReadableObjectChannel {
 
-    protected ObjectMetadata metadata;
-    protected final long size;
+    /**
+     * Executor service which takes care of background reads. Could be {@code null}
+     */
+    public final ExecutorService executor;
+
+    /**
+     * Reads bigger than this value are split into concurrent ranged requests of this size.
+     * Split is disabled if {@code 0} or if there is no executor service
+     */
+    public final int splitSize;
+
+    /**
+     * Shared metadata cache. Could be {@code null}
+     */
+    public final ObjectMetadataCache metadataCache;
+
+    /**
+     * Whereas metadata is resolved by the first read instead of HEAD request on open
+     */
+    public final boolean lazyOpen;
+
+    /**
+     * Number of object's last bytes which are fetched on open and kept in memory. Disabled if {@code 0}
+     */
+    public final int tailSize;
+
+    /**
+     * Shared hedging policy of ranged requests. Could be {@code null}
+     */
+    public final HedgePolicy hedgePolicy;
+
+    /**
+     * Shared limit of concurrent ranged requests. Could be {@code null}
+     */
+    public final ConcurrencyLimiter limiter;
+
+    /**
+     * Max number of retries of throttled request if limiter is set
+     */
+    public static final int THROTTLED_REQUEST_RETRIES = 5;
+
+    private static final int TRANSFER_CHUNK = 64 * 1024;
+
+    protected volatile ObjectMetadata metadata;
+    protected volatile String etag;
+    /**
+     * Object size, {@code -1} until resolved in lazy open mode
+     */
+    protected volatile long size = -1;
+    protected volatile boolean open = true;
     protected long pos;
+    /**
+     * Pinned object tail, read-only
+     */
+    protected volatile ByteBuffer tail;
+    protected long tailOffset;
 
     public S3RangedReadObjectChannel(String key, String bucket, AmazonS3 s3) {
+        this(key, bucket, s3, null, false, null, 0, 0, null, null);
+    }
+
+    public S3RangedReadObjectChannel(String key, String bucket, AmazonS3 s3, ObjectMetadataCache metadataCache,
+                                     boolean lazyOpen, ExecutorService executor, int splitSize, int tailSize,
+                                     HedgePolicy hedgePolicy, ConcurrencyLimiter limiter) {
         super(key, bucket, s3);
-        metadata = s3.getObjectMetadata(bucket, key);
-        size = metadata.getContentLength();
+        this.executor = executor;
+        this.splitSize = splitSize;
+        this.metadataCache = metadataCache;
+        this.lazyOpen = lazyOpen;
+        this.tailSize = tailSize;
+        this.hedgePolicy = hedgePolicy;
+        this.limiter = limiter;
+        if (metadataCache != null) {
+            // suffix GET of the tail resolves missing metadata instead of HEAD request
+            ObjectMetadata cached = lazyOpen || tailSize > 0 ?
+                    metadataCache.getIfPresent(bucket, key) :
+                    metadataCache.get(s3, bucket, key);
+            if (cached != null) {
+                init(cached);
+            }
+        } else if (!lazyOpen && tailSize <= 0) {
+            init(s3.getObjectMetadata(bucket, key));
+        }
+        if (tailSize > 0) {
+            fetchTail();
+        }
+    }
+
+    /**
+     * Sets object metadata and size. Every further request is guarded by metadata's ETag
+     * if it may be stale (taken from cache) or if it is resolved lazily.
+     */
+    protected void init(ObjectMetadata metadata) {
+        this.metadata = metadata;
+        if (metadataCache != null || lazyOpen) {
+            this.etag = metadata.getETag();
+        }
+        this.size = metadata.getContentLength();
+    }
+
+    /**
+     * Resolves metadata from response of the first ranged GET in lazy open mode
+     */
+    protected void initFromResponse(ObjectMetadata response) {
+        ObjectMetadata resolved = response.clone();
+        resolved.setContentLength(response.getInstanceLength());
+        if (metadataCache != null) {
+            metadataCache.put(bucket, key, resolved);
+        }
+        init(resolved);
+    }
+    /**
+     * Fetches last {@link S3RangedReadObjectChannel#tailSize} bytes by suffix ranged GET,
+     * resolving metadata from the response if it is not known yet
+     */
+    protected void fetchTail() {
+        if (size == 0) {
+            emptyTail();
+            return;
+        }
+        GetObjectRequest req = new GetObjectRequest(bucket, key);
+        req.putCustomRequestHeader(Headers.RANGE, "bytes=-" + tailSize);
+        if (etag != null) {
+            req.withMatchingETagConstraint(etag);
+        }
+        S3Object object;
+        try {
+            object = send(req);
+        } catch (AmazonServiceException e) {
+            if (e.getStatusCode() != 416) {
+                throw e;
+            }
+            // suffix range of empty object is not satisfiable, metadata is resolved by HEAD request instead
+            ObjectMetadata resolved = s3.getObjectMetadata(bucket, key);
+            if (metadataCache != null) {
+                metadataCache.put(bucket, key, resolved);
+            }
+            init(resolved);
+            emptyTail();
+            return;
+        }
+        if (object == null) {
+            if (metadataCache != null) {
+                metadataCache.invalidate(bucket, key);
+            }
+            throw new UncheckedIOException(new ObjectModifiedException(bucket, key, etag));
+        }
+        ObjectMetadata response = object.getObjectMetadata();
+        if (size < 0) {
+            ObjectMetadata resolved = response.clone();
+            resolved.setContentLength(response.getInstanceLength());
+            if (metadataCache != null) {
+                metadataCache.put(bucket, key, resolved);
+            }
+            this.metadata = resolved;
+            this.size = resolved.getContentLength();
+        }
+        ByteBuffer data = ByteBuffer.allocate((int) Math.min(tailSize, size));
+        try {
+            ByteBufferUtils.readFromInputStream(object.getObjectContent(), data, true);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        data.flip();
+        tailOffset = size - data.limit();
+        tail = data.asReadOnlyBuffer();
+    }
+
+    private void emptyTail() {
+        tailOffset = size;
+        tail = ByteBuffer.allocate(0).asReadOnlyBuffer();
+    }
+
+    /**
+     * Reads from pinned tail if given position is within it
+     *
+     * @return read bytes or {@code -1} if position is not within the tail
+     */
+    protected int readTail(ByteBuffer dst, long position) {
+        ByteBuffer t = tail;
+        if (t == null || position < tailOffset || position >= size) {
+            return -1;
+        }
+        ByteBuffer src = t.duplicate();
+        src.position((int) (position - tailOffset));
+        return ByteBufferUtils.putBiggerBuffer(dst, src);
     }
 
     @Override
@@ -37,15 +275,430 @@ public class S3RangedReadObjectChannel extends S3ReadableObjectChannel {
         if (!dst.hasRemaining()) {
             return 0;
         }
-        S3Object object = s3.getObject(new GetObjectRequest(bucket, key)
-                .withRange(position, position + dst.remaining()));
+        int fromTail = readTail(dst, position);
+        if (fromTail >= 0) {
+            return fromTail;
+        }
+        if (executor != null && splitSize > 0 && dst.remaining() > splitSize && size >= 0) {
+            return readSplit(dst, position);
+        }
+        return readRange(dst, position);
+    }
+
+    /**
+     * Reads given range by single request
+     */
+    protected int readRange(ByteBuffer dst, long position) throws IOException {
+        S3Object object = getObject(position, position + dst.remaining() - 1);
         return ByteBufferUtils.readFromInputStream(object.getObjectContent(), dst, true);
     }
 
+    /**
+     * Sends ranged GET request, guarded by ETag constraint if metadata was taken from cache or resolved lazily.
+     *
+     * @param start range start
+     * @param end   range end, inclusive
+     * @return s3 object
+     * @throws ObjectModifiedException if object does not match cached ETag anymore
+     */
+    protected S3Object getObject(long start, long end) throws IOException {
+        S3Object object;
+        try {
+            object = hedgePolicy != null ? getObjectHedged(start, end) : send(newRequest(start, end));
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        if (object == null) {
+            if (metadataCache != null) {
+                metadataCache.invalidate(bucket, key);
+            }
+            ObjectMetadata m = metadata;
+            throw new ObjectModifiedException(bucket, key, etag != null || m == null ? etag : m.getETag());
+        }
+        if (size < 0) {
+            initFromResponse(object.getObjectMetadata());
+        }
+        return object;
+    }
+
+    protected GetObjectRequest newRequest(long start, long end) {
+        GetObjectRequest req = new GetObjectRequest(bucket, key).withRange(start, end);
+        if (etag != null) {
+            req.withMatchingETagConstraint(etag);
+        }
+        return req;
+    }
+
+    /**
+     * Sends GET request under concurrency limiter's permit, if limiter is set
+     *
+     * @throws UncheckedIOException wrapping {@link InterruptedIOException} if interrupted while waiting for permit
+     */
+    protected S3Object send(GetObjectRequest req) {
+        if (limiter == null) {
+            return s3.getObject(req);
+        }
+        try {
+            return limiter.call(() -> s3.getObject(req), THROTTLED_REQUEST_RETRIES);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new UncheckedIOException(new InterruptedIOException(e.getMessage()));
+        }
+    }
+
+    /**
+     * Sends ranged GET request on hedge policy's executor and waits for it for hedge delay. If there is no response yet,
+     * sends the same request again, if hedge policy permits. The first successful response wins,
+     * the other one is aborted once it arrives.
+     */
+    protected S3Object getObjectHedged(long start, long end) throws IOException {
+        long started = System.nanoTime();
+        hedgePolicy.onRequest();
+        CompletableFuture<S3Object> primary = CompletableFuture.supplyAsync(
+                () -> send(newHedgedRequest(start, end)), hedgePolicy.executor);
+        try {
+            long delay = hedgePolicy.delayNanos();
+            S3Object object;
+            if (delay < 0) {
+                object = primary.get();
+            } else {
+                try {
+                    object = primary.get(delay, TimeUnit.NANOSECONDS);
+                } catch (TimeoutException e) {
+                    object = hedgePolicy.tryHedge() ? race(primary, start, end) : primary.get();
+                }
+            }
+            hedgePolicy.record(System.nanoTime() - started);
+            return object;
+        } catch (Exception e) {
+            // response which arrives after caller gave up is not consumed by anyone
+            primary.whenComplete((object, error) -> {
+                if (object != null) {
+                    object.getObjectContent().abort();
+                }
+            });
+            throw ExceptionUtils.mapExecutionIOException(e);
+        }
+    }
+
+    /**
+     * Ranged request of hedged read, pinned to object's ETag whenever it is known (even if plain requests
+     * are not guarded), so primary and hedged requests never read different versions of the object
+     */
+    protected GetObjectRequest newHedgedRequest(long start, long end) {
+        GetObjectRequest req = newRequest(start, end);
+        ObjectMetadata m = metadata;
+        if (etag == null && m != null && m.getETag() != null) {
+            req.withMatchingETagConstraint(m.getETag());
+        }
+        return req;
+    }
+
+    private S3Object race(CompletableFuture<S3Object> primary, long start, long end) throws Exception {
+        CompletableFuture<S3Object> hedge = CompletableFuture.supplyAsync(
+                () -> send(newHedgedRequest(start, end)), hedgePolicy.executor);
+        CompletableFuture<S3Object> winner = new CompletableFuture<>();
+        AtomicInteger failures = new AtomicInteger();
+        BiConsumer<S3Object, Throwable> complete = (object, e) -> {
+            if (e != null) {
+                if (failures.incrementAndGet() == 2) {
+                    winner.completeExceptionally(e);
+                }
+            } else if (!winner.complete(object) && object != null) {
+                object.getObjectContent().abort();
+            }
+        };
+        primary.whenComplete(complete);
+        hedge.whenComplete(complete);
+        try {
+            return winner.get();
+        } catch (InterruptedException e) {
+            // responses arriving later are aborted
+            winner.cancel(false);
+            throw e;
+        }
+    }
+
+    /**
+     * Splits given range into sub-ranges of {@link S3RangedReadObjectChannel#splitSize}
+     * and reads them concurrently, each one into its own slice of destination buffer.
+     * If any part fails, parts which are not started yet are skipped and running ones are awaited,
+     * so nothing is written into destination buffer once this method returns or throws.
+     */
+    protected int readSplit(ByteBuffer dst, long position) throws IOException {
+        int total = (int) Math.min(dst.remaining(), size - position);
+        if (total <= 0) {
+            return readRange(dst, position);
+        }
+        int start = dst.position();
+        List<CompletableFuture<Integer>> parts = new ArrayList<>();
+        AtomicBoolean aborted = new AtomicBoolean();
+        for (int offset = 0; offset < total; offset += splitSize) {
+            ByteBuffer slice = dst.duplicate();
+            slice.limit(start + Math.min(offset + splitSize, total));
+            slice.position(start + offset);
+            long partPosition = position + offset;
+            parts.add(CompletableFuture.supplyAsync(() -> {
+                if (aborted.get()) {
+                    throw new CancellationException();
+                }
+                try {
+                    return readRange(slice, partPosition);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }, executor));
+        }
+        int read = 0;
+        try {
+            for (CompletableFuture<Integer> part : parts) {
+                read += part.get();
+            }
+        } catch (Exception e) {
+            // cancel does not stop running parts, which still write into their slices
+            aborted.set(true);
+            CompletableFuture.allOf(parts.toArray(new CompletableFuture[0])).handle((r, error) -> null).join();
+            throw ExceptionUtils.mapExecutionIOException(e);
+        }
+        dst.position(start + read);
+        return read;
+    }
+
+    @Override
+    public long read(ByteBuffer[] dsts, int offset, int length, long position) throws IOException {
+        checkBounds(dsts, offset, length);
+        long total = 0;
+        for (int i = offset; i < offset + length; i++) {
+            total += dsts[i].remaining();
+        }
+        if (total == 0) {
+            return 0;
+        }
+        if (size >= 0) {
+            if (position >= size) {
+                return -1;
+            }
+            total = Math.min(total, size - position);
+        }
+        S3Object object = getObject(position, position + total - 1);
+        long read = 0;
+        try (InputStream is = object.getObjectContent()) {
+            for (int i = offset; i < offset + length && read < total; i++) {
+                int want = dsts[i].remaining();
+                int n = ByteBufferUtils.readFromInputStream(is, dsts[i], false);
+                read += n;
+                if (n < want) {
+                    break;
+                }
+            }
+        }
+        return read;
+    }
+
+    /**
+     * Reads given buffers one by one by {@link S3RangedReadObjectChannel#read(ByteBuffer, long)},
+     * for implementations which serve reads from their own buffers or streams
+     */
+    protected long readEach(ByteBuffer[] dsts, int offset, int length, long position) throws IOException {
+        checkBounds(dsts, offset, length);
+        long read = 0;
+        for (int i = offset; i < offset + length; i++) {
+            if (!dsts[i].hasRemaining()) {
+                continue;
+            }
+            int want = dsts[i].remaining();
+            int n = read(dsts[i], position + read);
+            if (n < 0) {
+                return read == 0 ? -1 : read;
+            }
+            read += n;
+            if (n < want) {
+                break;
+            }
+        }
+        return read;
+    }
+
+    private static void checkBounds(ByteBuffer[] dsts, int offset, int length) {
+        if (offset < 0 || length < 0 || offset > dsts.length - length) {
+            throw new IndexOutOfBoundsException();
+        }
+    }
+
+    @Override
+    public List<CompletableFuture<ByteBuffer>> readVectored(List<FileRange> ranges, IntFunction<ByteBuffer> allocator,
+                                                            int maxGap, int maxMergedSize) {
+        List<CompletableFuture<ByteBuffer>> results = new ArrayList<>(ranges.size());
+        for (int i = 0; i < ranges.size(); i++) {
+            results.add(new CompletableFuture<>());
+        }
+        List<Integer> order = new ArrayList<>(ranges.size());
+        for (int i = 0; i < ranges.size(); i++) {
+            order.add(i);
+        }
+        order.sort(Comparator.comparingLong(i -> ranges.get(i).offset));
+
+        List<Integer> group = new ArrayList<>();
+        long start = 0;
+        long end = 0;
+        for (int i : order) {
+            FileRange range = ranges.get(i);
+            if (!group.isEmpty() && range.offset - end <= maxGap &&
+                    Math.max(end, range.end()) - start <= maxMergedSize) {
+                end = Math.max(end, range.end());
+            } else {
+                if (!group.isEmpty()) {
+                    fetchMerged(start, end, group, ranges, results, allocator);
+                }
+                group = new ArrayList<>();
+                start = range.offset;
+                end = range.end();
+            }
+            group.add(i);
+        }
+        if (!group.isEmpty()) {
+            fetchMerged(start, end, group, ranges, results, allocator);
+        }
+        return results;
+    }
+
+    private void fetchMerged(long start, long end, List<Integer> group, List<FileRange> ranges,
+                             List<CompletableFuture<ByteBuffer>> results, IntFunction<ByteBuffer> allocator) {
+        Runnable fetch = () -> {
+            try {
+                long fetchEnd = size >= 0 ? Math.min(end, size) : end;
+                ByteBuffer merged = allocator.apply((int) Math.max(0, fetchEnd - start));
+                if (fetchEnd > start) {
+                    S3Object object = getObject(start, fetchEnd - 1);
+                    ByteBufferUtils.readFromInputStream(object.getObjectContent(), merged, true);
+                }
+                merged.flip();
+                for (int i : group) {
+                    FileRange range = ranges.get(i);
+                    int from = (int) (range.offset - start);
+                    if (from + range.length > merged.limit()) {
+                        results.get(i).completeExceptionally(new EOFException(
+                                "Range " + range + " exceeds object " + bucket + "/" + key));
+                        continue;
+                    }
+                    ByteBuffer slice = merged.duplicate();
+                    slice.limit(from + range.length).position(from);
+                    results.get(i).complete(slice.slice());
+                }
+            } catch (Exception e) {
+                group.forEach(i -> results.get(i).completeExceptionally(e));
+            }
+        };
+        if (executor != null) {
+            executor.execute(fetch);
+        } else {
+            fetch.run();
+        }
+    }
+
+    @Override
+    public long transferTo(long position, long count, WritableByteChannel target, int partSize, int parallelism)
+            throws IOException {
+        checkTransferArguments(partSize, parallelism);
+        long size = size();
+        if (position >= size || count <= 0) {
+            return 0;
+        }
+        long end = position + Math.min(count, size - position);
+        FileChannel file = target instanceof FileChannel ? (FileChannel) target : null;
+        long base = file != null ? file.position() : 0;
+        ArrayDeque<CompletableFuture<ByteBuffer>> window = new ArrayDeque<>();
+        AtomicBoolean cancelled = new AtomicBoolean();
+        long next = position;
+        try {
+            while (next < end || !window.isEmpty()) {
+                while (next < end && window.size() < parallelism) {
+                    int length = (int) Math.min(partSize, end - next);
+                    window.addLast(transferPart(next, length, file, base + next - position, cancelled));
+                    next += length;
+                }
+                ByteBuffer data = window.pollFirst().get();
+                if (file == null) {
+                    while (data.hasRemaining()) {
+                        target.write(data);
+                    }
+                }
+            }
+        } catch (Exception e) {
+            // parts which are already running stop writing into the target at the next chunk
+            cancelled.set(true);
+            window.forEach(f -> f.cancel(true));
+            throw ExceptionUtils.mapExecutionIOException(e);
+        }
+        if (file != null) {
+            file.position(base + end - position);
+        }
+        return end - position;
+    }
+
+    /**
+     * Fetches single part of transfer. Part is written directly into given file at given offset,
+     * otherwise it is returned as buffer. Once transfer is cancelled, part is aborted before its next chunk.
+     */
+    private CompletableFuture<ByteBuffer> transferPart(long start, int length, FileChannel file, long fileOffset,
+                                                       AtomicBoolean cancelled) {
+        Supplier<ByteBuffer> part = () -> {
+            try {
+                if (cancelled.get()) {
+                    throw new CancellationException();
+                }
+                S3Object object = getObject(start, start + length - 1);
+                ByteBuffer buffer = ByteBuffer.allocate(file == null ? length : Math.min(length, TRANSFER_CHUNK));
+                long offset = fileOffset;
+                int read = 0;
+                try (S3ObjectInputStream is = object.getObjectContent()) {
+                    int n;
+                    do {
+                        if (cancelled.get()) {
+                            is.abort();
+                            throw new CancellationException();
+                        }
+                        buffer.clear();
+                        n = ByteBufferUtils.readFromInputStream(is, buffer, false);
+                        read += n;
+                        buffer.flip();
+                        while (file != null && buffer.hasRemaining()) {
+                            offset += file.write(buffer, offset);
+                        }
+                    } while (file != null && n > 0 && read < length);
+                }
+                if (read < length) {
+                    throw new EOFException("Object " + bucket + "/" + key + " is shorter than expected");
+                }
+                return buffer;
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        };
+        if (executor != null) {
+            return CompletableFuture.supplyAsync(part, executor);
+        }
+        CompletableFuture<ByteBuffer> result = new CompletableFuture<>();
+        try {
+            result.complete(part.get());
+        } catch (RuntimeException e) {
+            result.completeExceptionally(e);
+        }
+        return result;
+    }
+
+    static void checkTransferArguments(int partSize, int parallelism) {
+        if (partSize <= 0 || parallelism <= 0) {
+            throw new IllegalArgumentException("Part size and parallelism must be positive");
+        }
+    }
+
     @Override
     public int read(ByteBuffer dst) throws IOException {
         int read = read(dst, pos);
-        pos += read;
+        if (read > 0) {
+            pos += read;
+        }
         return read;
     }
 
@@ -56,24 +709,36 @@ public class S3RangedReadObjectChannel extends S3ReadableObjectChannel {
 
     @Override
     public S3RangedReadObjectChannel position(long newPosition) {
-        if (0 <= newPosition && newPosition <= size) {
+        if (0 <= newPosition && (size < 0 || newPosition <= size)) {
             pos = newPosition;
         }
         return this;
     }
 
+    /**
+     * Returns object size. In lazy open mode sends HEAD request if called before any read.
+     *
+     * @return size
+     */
     @Override
     public long size() {
+        if (size < 0) {
+            init(metadataCache != null ?
+                    metadataCache.get(s3, bucket, key) :
+                    s3.getObjectMetadata(bucket, key));
+        }
         return size;
     }
 
     @Override
     public boolean isOpen() {
-        return metadata != null;
+        return open;
     }
 
     @Override
     public void close() {
+        open = false;
         metadata = null;
+        tail = null;
     }
 }
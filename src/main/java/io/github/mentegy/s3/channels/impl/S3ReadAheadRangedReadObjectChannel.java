@@ -0,0 +1,178 @@
+package io.github.mentegy.s3.channels.impl;
+
+import com.amazonaws.services.s3.AmazonS3;
+import com.amazonaws.services.s3.model.S3Object;
+import io.github.mentegy.s3.channels.cache.ObjectMetadataCache;
+import io.github.mentegy.s3.channels.util.BlockAllocator;
+import io.github.mentegy.s3.channels.util.ByteBufferUtils;
+import io.github.mentegy.s3.channels.util.HeapBlockAllocator;
+import io.github.mentegy.s3.channels.util.ConcurrencyLimiter;
+import io.github.mentegy.s3.channels.util.HedgePolicy;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+
+/**
+ * Extends {@link S3BufferedRangedReadObjectChannel} by adding sequential read-ahead.
+ * Please refer parent implementation for more details.
+ * <p>
+ * Once sequential access is detected (read starts exactly where previous one ended)
+ * next {@link S3ReadAheadRangedReadObjectChannel#readAheadBlocks} blocks of buffer size are
+ * fetched in background on channel's executor. When reader reaches the end of current buffer,
+ * next block is taken from already fetched ones instead of issuing new request.
+ * <p>
+ * Any non-sequential read drops all pending blocks.
+ * Prefetched blocks are allocated by the same {@link BlockAllocator} as regular buffer.
+ * <p>
+ * Not thread safe, the same as parent.
+ */
+public class S3ReadAheadRangedReadObjectChannel extends S3BufferedRangedReadObjectChannel {
+
+    /**
+     * Number of blocks to be fetched ahead of current buffer
+     */
+    public final int readAheadBlocks;
+
+    protected final ArrayDeque<Block> ahead = new ArrayDeque<>();
+    protected long lastReadEnd = -1;
+
+    public S3ReadAheadRangedReadObjectChannel(String key, String bucket, AmazonS3 s3, int bufferSize,
+                                              int readAheadBlocks, ExecutorService executor) {
+        this(key, bucket, s3, new HeapBlockAllocator(bufferSize), readAheadBlocks, null, false, executor, 0, 0, null,
+                null);
+    }
+
+    public S3ReadAheadRangedReadObjectChannel(String key, String bucket, AmazonS3 s3, BlockAllocator allocator,
+                                              int readAheadBlocks, ObjectMetadataCache metadataCache,
+                                              boolean lazyOpen, ExecutorService executor, int splitSize,
+                                              int tailSize, HedgePolicy hedgePolicy, ConcurrencyLimiter limiter) {
+        super(key, bucket, s3, allocator, metadataCache, lazyOpen, executor, splitSize, tailSize, hedgePolicy, limiter);
+        this.readAheadBlocks = readAheadBlocks;
+    }
+
+    @Override
+    public int read(ByteBuffer dst, long position) throws IOException {
+        if (!dst.hasRemaining()) {
+            return 0;
+        }
+        int fromTail = readTail(dst, position);
+        if (fromTail >= 0) {
+            return fromTail;
+        }
+        boolean sequential = position == lastReadEnd;
+        if (!inRange(position) && dst.remaining() <= buffer.capacity()) {
+            Block block = takeBlock(position);
+            if (block != null) {
+                allocator.release(buffer);
+                buffer = block.data.join();
+                bufferOffset = block.offset;
+                bufferLimit = block.offset + buffer.limit();
+            } else {
+                cancelAhead();
+            }
+        }
+        int read = super.read(dst, position);
+        lastReadEnd = position + read;
+        if (sequential) {
+            scheduleAhead();
+        }
+        return read;
+    }
+
+    /**
+     * Takes prefetched block which contains given position, dropping every block before it.
+     *
+     * @param position requested position
+     * @return completed block or {@code null} if there is no such block or it failed to be fetched
+     */
+    protected Block takeBlock(long position) {
+        while (!ahead.isEmpty()) {
+            Block b = ahead.peekFirst();
+            if (position < b.offset) {
+                return null;
+            }
+            ahead.pollFirst();
+            if (position < b.offset + buffer.capacity()) {
+                try {
+                    if (position < b.offset + b.data.get().limit()) {
+                        return b;
+                    }
+                } catch (Exception e) {
+                    // fallback to regular read
+                    return null;
+                }
+            }
+            drop(b);
+        }
+        return null;
+    }
+
+    /**
+     * Prefetches next blocks after the last read. Reads bigger than buffer bypass it, so both buffer
+     * and prefetched blocks could be behind the reader, such blocks are dropped.
+     */
+    protected void scheduleAhead() {
+        while (!ahead.isEmpty() && ahead.peekFirst().offset + buffer.capacity() <= lastReadEnd) {
+            drop(ahead.pollFirst());
+        }
+        long next = ahead.isEmpty() ?
+                Math.max(bufferLimit, lastReadEnd) :
+                ahead.peekLast().offset + buffer.capacity();
+        while (ahead.size() < readAheadBlocks && next < size) {
+            ahead.addLast(new Block(next, fetchAsync(next, buffer.capacity())));
+            next += buffer.capacity();
+        }
+    }
+
+    protected CompletableFuture<ByteBuffer> fetchAsync(long offset, int blockSize) {
+        return CompletableFuture.supplyAsync(() -> {
+            ByteBuffer block = allocator.allocate();
+            try {
+                S3Object object = readS3ObjectByRange(offset, blockSize);
+                ByteBufferUtils.readFromInputStream(object.getObjectContent(), block, true);
+            } catch (IOException e) {
+                allocator.release(block);
+                throw new UncheckedIOException(e);
+            } catch (RuntimeException e) {
+                allocator.release(block);
+                throw e;
+            }
+            block.flip();
+            return block;
+        }, executor);
+    }
+
+    protected void cancelAhead() {
+        Block b;
+        while ((b = ahead.pollFirst()) != null) {
+            drop(b);
+        }
+    }
+
+    /**
+     * Gives block back to allocator once it is fetched. Block fetch is not interrupted.
+     */
+    protected void drop(Block b) {
+        b.data.thenAccept(allocator::release);
+    }
+
+    @Override
+    public void close() {
+        cancelAhead();
+        super.close();
+    }
+
+    protected static class Block {
+        protected final long offset;
+        protected final CompletableFuture<ByteBuffer> data;
+
+        protected Block(long offset, CompletableFuture<ByteBuffer> data) {
+            this.offset = offset;
+            this.data = data;
+        }
+    }
+}
@@ -0,0 +1,284 @@
+package io.github.mentegy.s3.channels.impl;
+
+import io.github.mentegy.s3.channels.S3ReadableObjectChannel;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.NonWritableChannelException;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.BitSet;
+
+import static java.nio.file.StandardOpenOption.*;
+
+/**
+ * Read-only {@link FileChannel} view of readable s3 object channel.
+ * <p>
+ * Reads are delegated to underlying channel. {@link S3ReadableObjectChannelAsFileChannel#map(MapMode, long, long)}
+ * is backed by sparse local file of object size: regions of
+ * {@link S3ReadableObjectChannelAsFileChannel#regionSize} which are covered by requested mapping are downloaded
+ * into the file on demand, only once, and the file is mapped as usual. Local file is deleted on close,
+ * already returned buffers stay valid.
+ */
+public class S3ReadableObjectChannelAsFileChannel extends FileChannel {
+
+    public static final int DEFAULT_REGION_SIZE = 1024 * 1024;
+
+    /**
+     * Size of region downloaded into local file at once
+     */
+    public final int regionSize;
+
+    private final S3ReadableObjectChannel channel;
+    private final Path directory;
+    private final BitSet filled = new BitSet();
+    private FileChannel local;
+
+    public S3ReadableObjectChannelAsFileChannel(S3ReadableObjectChannel channel) {
+        this(channel, null, DEFAULT_REGION_SIZE);
+    }
+
+    /**
+     * @param channel    underlying channel
+     * @param directory  directory of local file, default temporary-file directory if {@code null}
+     * @param regionSize size of region downloaded into local file at once
+     * @throws IllegalArgumentException if region size is not positive
+     */
+    public S3ReadableObjectChannelAsFileChannel(S3ReadableObjectChannel channel, Path directory, int regionSize) {
+        if (regionSize <= 0) {
+            throw new IllegalArgumentException("Region size must be positive");
+        }
+        this.channel = channel;
+        this.directory = directory;
+        this.regionSize = regionSize;
+    }
+
+    /**
+     * Maps region of the object into memory, downloading its missing parts into local file first.
+     *
+     * @param mode     only {@link MapMode#READ_ONLY} is supported
+     * @param position object position of mapped region
+     * @param size     size of mapped region, region must be within the object
+     * @return mapped buffer
+     * @throws ClosedChannelException     if channel is closed
+     * @throws NonWritableChannelException if mode is not read only
+     * @throws IOException                 - if any
+     */
+    @Override
+    public MappedByteBuffer map(MapMode mode, long position, long size) throws IOException {
+        ensureOpen();
+        if (mode != MapMode.READ_ONLY) {
+            throw new NonWritableChannelException();
+        }
+        if (position < 0 || size < 0 || position + size > channel.size()) {
+            throw new IllegalArgumentException("Mapped region must be within the object");
+        }
+        synchronized (filled) {
+            // channel could be closed concurrently, local file is released under the same lock
+            ensureOpen();
+            FileChannel file = local();
+            if (size > 0) {
+                for (long r = position / regionSize; r <= (position + size - 1) / regionSize; r++) {
+                    if (!filled.get((int) r)) {
+                        fill(file, r * regionSize);
+                        filled.set((int) r);
+                    }
+                }
+            }
+            return file.map(MapMode.READ_ONLY, position, size);
+        }
+    }
+
+    private void ensureOpen() throws ClosedChannelException {
+        if (!isOpen()) {
+            throw new ClosedChannelException();
+        }
+    }
+
+    private FileChannel local() throws IOException {
+        if (local == null) {
+            Path path = directory == null ?
+                    Files.createTempFile("s3-channel-", ".map") :
+                    Files.createTempFile(directory, "s3-channel-", ".map");
+            // recreate as sparse file, which could be done only on creation
+            Files.delete(path);
+            local = FileChannel.open(path, CREATE_NEW, SPARSE, READ, WRITE, DELETE_ON_CLOSE);
+            long size = channel.size();
+            if (size > 0) {
+                local.write(ByteBuffer.allocate(1), size - 1);
+            }
+        }
+        return local;
+    }
+
+    private void fill(FileChannel file, long start) throws IOException {
+        ByteBuffer region = ByteBuffer.allocate((int) Math.min(regionSize, channel.size() - start));
+        while (region.hasRemaining()) {
+            int read = channel.read(region, start + region.position());
+            if (read <= 0) {
+                throw new EOFException("Object " + channel.bucket + "/" + channel.key + " is shorter than expected");
+            }
+        }
+        region.flip();
+        long offset = start;
+        while (region.hasRemaining()) {
+            offset += file.write(region, offset);
+        }
+    }
+
+    /**
+     * Behaves the same as {@link S3ReadableObjectChannel#read(ByteBuffer)}
+     */
+    @Override
+    public int read(ByteBuffer dst) throws IOException {
+        return channel.read(dst);
+    }
+
+    /**
+     * Behaves the same as {@link S3ReadableObjectChannel#read(ByteBuffer[], int, int)}
+     */
+    @Override
+    public long read(ByteBuffer[] dsts, int offset, int length) throws IOException {
+        return channel.read(dsts, offset, length);
+    }
+
+    /**
+     * Behaves the same as {@link S3ReadableObjectChannel#read(ByteBuffer, long)}
+     */
+    @Override
+    public int read(ByteBuffer dst, long position) throws IOException {
+        return channel.read(dst, position);
+    }
+
+    /**
+     * Behaves the same as {@link S3ReadableObjectChannel#transferTo(long, long, WritableByteChannel)}
+     */
+    @Override
+    public long transferTo(long position, long count, WritableByteChannel target) throws IOException {
+        return channel.transferTo(position, count, target);
+    }
+
+    /**
+     * Behaves the same as {@link S3ReadableObjectChannel#position()}
+     */
+    @Override
+    public long position() {
+        return channel.position();
+    }
+
+    /**
+     * Behaves the same as {@link S3ReadableObjectChannel#position(long)}
+     */
+    @Override
+    public S3ReadableObjectChannelAsFileChannel position(long newPosition) {
+        channel.position(newPosition);
+        return this;
+    }
+
+    /**
+     * Behaves the same as {@link S3ReadableObjectChannel#size()}
+     */
+    @Override
+    public long size() {
+        return channel.size();
+    }
+
+    /**
+     * No effect
+     *
+     * @param metaData - ignored
+     */
+    @Override
+    public void force(boolean metaData) {
+        // no effect, channel is read only
+    }
+
+    @Override
+    protected void implCloseChannel() throws IOException {
+        synchronized (filled) {
+            if (local != null) {
+                local.close();
+                local = null;
+            }
+            filled.clear();
+        }
+        channel.close();
+    }
+
+    /**
+     * S3 objects are readonly
+     *
+     * @throws UnsupportedOperationException - not supported
+     */
+    @Override
+    public int write(ByteBuffer src) {
+        throw new UnsupportedOperationException();
+    }
+
+    /**
+     * S3 objects are readonly
+     *
+     * @throws UnsupportedOperationException - not supported
+     */
+    @Override
+    public long write(ByteBuffer[] srcs, int offset, int length) {
+        throw new UnsupportedOperationException();
+    }
+
+    /**
+     * S3 objects are readonly
+     *
+     * @throws UnsupportedOperationException - not supported
+     */
+    @Override
+    public int write(ByteBuffer src, long position) {
+        throw new UnsupportedOperationException();
+    }
+
+    /**
+     * S3 objects are readonly
+     *
+     * @throws UnsupportedOperationException - not supported
+     */
+    @Override
+    public FileChannel truncate(long size) {
+        throw new UnsupportedOperationException();
+    }
+
+    /**
+     * S3 objects are readonly
+     *
+     * @throws UnsupportedOperationException - not supported
+     */
+    @Override
+    public long transferFrom(ReadableByteChannel src, long position, long count) {
+        throw new UnsupportedOperationException();
+    }
+
+    /**
+     * Operation is not supported by this channel implementation.
+     *
+     * @throws UnsupportedOperationException - not supported
+     */
+    @Override
+    public FileLock lock(long position, long size, boolean shared) {
+        throw new UnsupportedOperationException();
+    }
+
+    /**
+     * Operation is not supported by this channel implementation.
+     *
+     * @throws UnsupportedOperationException - not supported
+     */
+    @Override
+    public FileLock tryLock(long position, long size, boolean shared) {
+        throw new UnsupportedOperationException();
+    }
+}
@@ -0,0 +1,181 @@
+package io.github.mentegy.s3.channels.impl;
+
+import com.amazonaws.services.s3.AmazonS3;
+import com.amazonaws.services.s3.model.S3Object;
+import io.github.mentegy.s3.channels.InputPolicy;
+import io.github.mentegy.s3.channels.cache.ObjectMetadataCache;
+import io.github.mentegy.s3.channels.util.ByteBufferUtils;
+import io.github.mentegy.s3.channels.util.ConcurrencyLimiter;
+import io.github.mentegy.s3.channels.util.HedgePolicy;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.util.concurrent.ExecutorService;
+
+/**
+ * Extends {@link S3RangedReadObjectChannel} by keeping single GET stream open between reads,
+ * depending on {@link InputPolicy}. Please refer parent implementation for more details.
+ * <p>
+ * In sequential mode the stream is requested from read position till the end of object and consumed
+ * incrementally by following reads. Forward seek within {@link S3StreamingReadObjectChannel#seekThreshold}
+ * skips bytes of open stream, any other seek aborts the stream and opens new one.
+ * In random mode reads are served by parent, i.e. by separate ranged requests.
+ * Scattering reads fill given buffers one by one from the same stream, unless policy is random.
+ * <p>
+ * Not thread safe, even reads with absolute position share the same stream.
+ */
+public class S3StreamingReadObjectChannel extends S3RangedReadObjectChannel {
+
+    public static final long DEFAULT_SEEK_THRESHOLD = 1024 * 1024;
+
+    /**
+     * Number of consecutive sequential reads after which adaptive policy switches back to sequential mode
+     */
+    public static final int ADAPTIVE_SEQUENTIAL_READS = 2;
+
+    public final InputPolicy policy;
+
+    /**
+     * Max forward seek which is served by skipping bytes of open stream
+     */
+    public final long seekThreshold;
+
+    protected S3Object stream;
+    protected long streamPosition;
+    protected boolean sequential;
+    protected long lastReadEnd = -1;
+    protected int sequentialReads;
+
+    public S3StreamingReadObjectChannel(String key, String bucket, AmazonS3 s3, InputPolicy policy) {
+        this(key, bucket, s3, policy, DEFAULT_SEEK_THRESHOLD, null, false, null, 0, 0, null, null);
+    }
+
+    public S3StreamingReadObjectChannel(String key, String bucket, AmazonS3 s3, InputPolicy policy,
+                                        long seekThreshold, ObjectMetadataCache metadataCache, boolean lazyOpen,
+                                        ExecutorService executor, int splitSize, int tailSize,
+                                        HedgePolicy hedgePolicy, ConcurrencyLimiter limiter) {
+        super(key, bucket, s3, metadataCache, lazyOpen, executor, splitSize, tailSize, hedgePolicy, limiter);
+        this.policy = policy;
+        this.seekThreshold = seekThreshold;
+        this.sequential = policy != InputPolicy.RANDOM;
+    }
+
+    @Override
+    public int read(ByteBuffer dst, long position) throws IOException {
+        if (!dst.hasRemaining()) {
+            return 0;
+        }
+        if (size >= 0 && position >= size) {
+            return -1;
+        }
+        int fromTail = readTail(dst, position);
+        if (fromTail >= 0) {
+            return fromTail;
+        }
+        adapt(position);
+        int read = sequential ? readStream(dst, position) : super.read(dst, position);
+        if (read > 0) {
+            lastReadEnd = position + read;
+        }
+        return read;
+    }
+
+    /**
+     * Fills given buffers in order from open stream in sequential mode, otherwise by single ranged request
+     */
+    @Override
+    public long read(ByteBuffer[] dsts, int offset, int length, long position) throws IOException {
+        if (policy == InputPolicy.RANDOM) {
+            return super.read(dsts, offset, length, position);
+        }
+        return readEach(dsts, offset, length, position);
+    }
+
+    /**
+     * Switches between sequential and random mode in case of adaptive policy
+     */
+    protected void adapt(long position) {
+        if (policy != InputPolicy.ADAPTIVE) {
+            return;
+        }
+        if (sequential) {
+            if (lastReadEnd >= 0 && !reachable(position)) {
+                sequential = false;
+                sequentialReads = 0;
+                closeStream();
+            }
+        } else {
+            sequentialReads = position == lastReadEnd ? sequentialReads + 1 : 0;
+            sequential = sequentialReads >= ADAPTIVE_SEQUENTIAL_READS;
+        }
+    }
+
+    /**
+     * Whereas given position could be served by open stream
+     */
+    protected boolean reachable(long position) {
+        return stream != null && position >= streamPosition && position - streamPosition <= seekThreshold;
+    }
+
+    protected int readStream(ByteBuffer dst, long position) throws IOException {
+        if (reachable(position)) {
+            skip(stream.getObjectContent(), position - streamPosition);
+        } else {
+            closeStream();
+            stream = getObject(position, size >= 0 ? size - 1 : Long.MAX_VALUE - 1);
+        }
+        streamPosition = position;
+        int read;
+        try {
+            read = ByteBufferUtils.readFromInputStream(stream.getObjectContent(), dst, false);
+        } catch (IOException | RuntimeException e) {
+            closeStream();
+            throw e;
+        }
+        streamPosition += read;
+        if (streamPosition >= size) {
+            closeStream();
+        }
+        return read;
+    }
+
+    /**
+     * Closes open stream. Aborts underlying connection if stream is not fully consumed,
+     * so remaining bytes are not drained.
+     */
+    protected void closeStream() {
+        if (stream == null) {
+            return;
+        }
+        try {
+            if (streamPosition < size) {
+                stream.getObjectContent().abort();
+            } else {
+                stream.close();
+            }
+        } catch (IOException e) {
+            // nothing to do, stream is not used anymore
+        }
+        stream = null;
+    }
+
+    private static void skip(InputStream is, long n) throws IOException {
+        while (n > 0) {
+            long skipped = is.skip(n);
+            if (skipped <= 0) {
+                if (is.read() == -1) {
+                    return;
+                }
+                skipped = 1;
+            }
+            n -= skipped;
+        }
+    }
+
+    @Override
+    public void close() {
+        closeStream();
+        super.close();
+    }
+}
@@ -0,0 +1,43 @@
+package io.github.mentegy.s3.channels.util;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Allocates fixed-size byte buffers (blocks) and takes them back once they are not needed anymore.
+ * <p>
+ * Implementations must be thread-safe.
+ */
+public interface BlockAllocator {
+
+    /**
+     * Returns capacity of each allocated block
+     *
+     * @return block size
+     */
+    int blockSize();
+
+    /**
+     * Allocates cleared block of {@link BlockAllocator#blockSize()} capacity
+     *
+     * @return block
+     */
+    ByteBuffer allocate();
+
+    /**
+     * Allocates cleared block of given capacity, e.g. part of grown size. Block of other than
+     * {@link BlockAllocator#blockSize()} is allocated on heap by default.
+     *
+     * @param size block capacity
+     * @return block
+     */
+    default ByteBuffer allocate(int size) {
+        return size == blockSize() ? allocate() : ByteBuffer.allocate(size);
+    }
+
+    /**
+     * Gives block back to allocator. Block must not be used by caller after this call.
+     *
+     * @param block block previously allocated by this allocator, of any size
+     */
+    void release(ByteBuffer block);
+}
@@ -0,0 +1,74 @@
+package io.github.mentegy.s3.channels.util;
+
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+
+/**
+ * Input stream over remaining bytes of byte buffer, heap or direct one. Bytes are read straight
+ * from the buffer, nothing is copied or buffered by the stream itself.
+ * <p>
+ * Stream supports {@link InputStream#mark(int)} / {@link InputStream#reset()} regardless of read limit
+ * (initial mark is the start of the stream), so HTTP client could replay the body on retry
+ * without wrapping it into buffering stream.
+ * <p>
+ * Position and limit of given buffer are not changed, but its content must not be modified
+ * while stream is in use. Not thread safe.
+ */
+public class ByteBufferInputStream extends InputStream {
+
+    private final ByteBuffer buffer;
+    private int mark;
+
+    public ByteBufferInputStream(ByteBuffer buffer) {
+        this.buffer = buffer.slice();
+        this.mark = 0;
+    }
+
+    @Override
+    public int read() {
+        return buffer.hasRemaining() ? buffer.get() & 0xFF : -1;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) {
+        if (off < 0 || len < 0 || len > b.length - off) {
+            throw new IndexOutOfBoundsException();
+        }
+        if (len == 0) {
+            return 0;
+        }
+        if (!buffer.hasRemaining()) {
+            return -1;
+        }
+        int n = Math.min(len, buffer.remaining());
+        buffer.get(b, off, n);
+        return n;
+    }
+
+    @Override
+    public long skip(long n) {
+        int skipped = (int) Math.max(0, Math.min(n, buffer.remaining()));
+        buffer.position(buffer.position() + skipped);
+        return skipped;
+    }
+
+    @Override
+    public int available() {
+        return buffer.remaining();
+    }
+
+    @Override
+    public boolean markSupported() {
+        return true;
+    }
+
+    @Override
+    public void mark(int readLimit) {
+        mark = buffer.position();
+    }
+
+    @Override
+    public void reset() {
+        buffer.position(mark);
+    }
+}
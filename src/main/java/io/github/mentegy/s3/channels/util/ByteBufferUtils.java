@@ -8,6 +8,8 @@ public final class ByteBufferUtils {
 
     public final static int _16_KB = 16 * 1024;
 
+    private static final ThreadLocal<byte[]> CHUNK = ThreadLocal.withInitial(() -> new byte[_16_KB]);
+
     /**
      * Writes bigger source buffer into destination since regular Java ByteBuffer API does not alow this.
      *
@@ -22,7 +24,7 @@ public final class ByteBufferUtils {
             return written - dest.remaining();
         }
         int srcLimit = src.limit();
-        src.limit(written);
+        src.limit(src.position() + written);
         dest.put(src);
         src.limit(srcLimit);
         return written;
@@ -32,6 +34,10 @@ public final class ByteBufferUtils {
      * Reads data from given input stream into byte buffer.
      * This helper does not overflow destination byte buffer.
      * Bytes are read until input stream have those or until byte buffer has remaining space for them.
+     * <p>
+     * If destination buffer is backed by accessible array, bytes are read directly into it at the
+     * current position. Otherwise (e.g. direct buffer) they are copied through per-thread staging chunk.
+     * No memory is allocated per call in both cases.
      *
      * @param src         source input stream
      * @param dest        destination byte buffer
@@ -41,24 +47,24 @@ public final class ByteBufferUtils {
      */
     public static int readFromInputStream(InputStream src, ByteBuffer dest, boolean closeStream) throws IOException {
         try {
-            int chunkSize = dest.remaining() > _16_KB ? _16_KB : dest.remaining();
-
-            byte[] chunk = new byte[chunkSize];
-            int read;
-
             int written = 0;
-
-            while ((read = src.read(chunk)) != -1) {
-                if (!dest.hasRemaining()) {
-                    return written;
+            int read;
+            if (dest.hasArray()) {
+                byte[] array = dest.array();
+                int offset = dest.arrayOffset();
+                while (dest.hasRemaining() &&
+                        (read = src.read(array, offset + dest.position(), dest.remaining())) != -1) {
+                    dest.position(dest.position() + read);
+                    written += read;
                 }
-                if (read > dest.remaining()) {
-                    read = dest.remaining();
+            } else {
+                byte[] chunk = CHUNK.get();
+                while (dest.hasRemaining() &&
+                        (read = src.read(chunk, 0, Math.min(chunk.length, dest.remaining()))) != -1) {
+                    dest.put(chunk, 0, read);
+                    written += read;
                 }
-                written += read;
-                dest.put(chunk, 0, read);
             }
-
             return written;
         } finally {
             if (closeStream) {
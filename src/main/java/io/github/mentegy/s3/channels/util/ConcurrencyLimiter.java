@@ -0,0 +1,222 @@
+package io.github.mentegy.s3.channels.util;
+
+import com.amazonaws.AmazonServiceException;
+
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Adaptive limit of concurrent S3 requests, could be shared by many channels (e.g. all channels of one prefix).
+ * <p>
+ * Limit is adjusted by AIMD: every successful request increases it by {@code 1 / limit}, e.g. by one per
+ * window of requests, every throttled request ({@code 503 SlowDown}, see
+ * {@link ConcurrencyLimiter#isThrottling(Throwable)}) multiplies it by
+ * {@link ConcurrencyLimiter#decreaseRatio}. Limit stays within [min limit, max limit], so throughput
+ * converges to what S3 could sustain.
+ * <p>
+ * Retries of throttled requests are delayed by exponential backoff with full jitter, see
+ * {@link ConcurrencyLimiter#backoffNanos(int)}.
+ * <p>
+ * Thread safe.
+ */
+public class ConcurrencyLimiter {
+
+    public static final double DEFAULT_DECREASE_RATIO = 0.5;
+    public static final long DEFAULT_BASE_BACKOFF_NANOS = TimeUnit.MILLISECONDS.toNanos(50);
+    public static final long DEFAULT_MAX_BACKOFF_NANOS = TimeUnit.SECONDS.toNanos(20);
+
+    /**
+     * Min number of concurrent requests, at least 1
+     */
+    public final int minLimit;
+
+    /**
+     * Max number of concurrent requests
+     */
+    public final int maxLimit;
+
+    /**
+     * Multiplier of the limit on throttling, within (0, 1)
+     */
+    public final double decreaseRatio;
+
+    /**
+     * Backoff of the first retry, in nanoseconds
+     */
+    public final long baseBackoffNanos;
+
+    /**
+     * Max backoff of any retry, in nanoseconds
+     */
+    public final long maxBackoffNanos;
+
+    private double limit;
+    private int inFlight;
+
+    public ConcurrencyLimiter(int initialLimit, int minLimit, int maxLimit) {
+        this(initialLimit, minLimit, maxLimit, DEFAULT_DECREASE_RATIO,
+                DEFAULT_BASE_BACKOFF_NANOS, DEFAULT_MAX_BACKOFF_NANOS, TimeUnit.NANOSECONDS);
+    }
+
+    public ConcurrencyLimiter(int initialLimit, int minLimit, int maxLimit, double decreaseRatio,
+                              long baseBackoff, long maxBackoff, TimeUnit unit) {
+        if (minLimit < 1 || maxLimit < minLimit) {
+            throw new IllegalArgumentException("Limits must satisfy 1 <= min limit <= max limit");
+        }
+        if (decreaseRatio <= 0 || decreaseRatio >= 1) {
+            throw new IllegalArgumentException("Decrease ratio must be within (0, 1)");
+        }
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.decreaseRatio = decreaseRatio;
+        this.baseBackoffNanos = unit.toNanos(baseBackoff);
+        this.maxBackoffNanos = unit.toNanos(maxBackoff);
+        this.limit = Math.min(Math.max(initialLimit, minLimit), maxLimit);
+    }
+
+    /**
+     * Blocks until number of in-flight requests is below current limit and takes a permit.
+     * Permit must be returned by one of {@link ConcurrencyLimiter#onSuccess()},
+     * {@link ConcurrencyLimiter#onThrottled()} or {@link ConcurrencyLimiter#onFailure()}
+     *
+     * @throws InterruptedException if interrupted while waiting
+     */
+    public synchronized void acquire() throws InterruptedException {
+        while (inFlight >= (int) limit) {
+            wait();
+        }
+        inFlight++;
+    }
+
+    /**
+     * Takes a permit if number of in-flight requests is below current limit
+     *
+     * @return whereas permit is taken
+     */
+    public synchronized boolean tryAcquire() {
+        if (inFlight >= (int) limit) {
+            return false;
+        }
+        inFlight++;
+        return true;
+    }
+
+    /**
+     * Returns permit of successful request and increases the limit additively
+     */
+    public synchronized void onSuccess() {
+        limit = Math.min(maxLimit, limit + 1 / limit);
+        release();
+    }
+
+    /**
+     * Returns permit of throttled request and decreases the limit multiplicatively
+     */
+    public synchronized void onThrottled() {
+        limit = Math.max(minLimit, limit * decreaseRatio);
+        release();
+    }
+
+    /**
+     * Returns permit of request which failed by any other reason, the limit is not changed
+     */
+    public synchronized void onFailure() {
+        release();
+    }
+
+    private void release() {
+        inFlight--;
+        notifyAll();
+    }
+
+    /**
+     * Sends request under the permit, retrying throttled ones after backoff in calling thread.
+     * Any other failure is rethrown immediately.
+     *
+     * @param request request to send
+     * @param retries max number of retries of throttled request
+     * @return request result
+     * @throws InterruptedException if interrupted while waiting for a permit or backoff
+     */
+    public <T> T call(Supplier<T> request, int retries) throws InterruptedException {
+        for (int attempt = 0; ; attempt++) {
+            acquire();
+            try {
+                T result = request.get();
+                onSuccess();
+                return result;
+            } catch (RuntimeException e) {
+                if (!isThrottling(e)) {
+                    onFailure();
+                    throw e;
+                }
+                onThrottled();
+                if (attempt >= retries) {
+                    throw e;
+                }
+            }
+            TimeUnit.NANOSECONDS.sleep(backoffNanos(attempt));
+        }
+    }
+
+    /**
+     * Returns backoff of given retry, random value between 0 and
+     * {@code min(max backoff, base backoff * 2 ^ attempt)}
+     *
+     * @param attempt zero based number of retry
+     * @return backoff in nanoseconds
+     */
+    public long backoffNanos(int attempt) {
+        return backoffNanos(attempt, baseBackoffNanos, maxBackoffNanos);
+    }
+
+    /**
+     * Exponential backoff with full jitter
+     *
+     * @see ConcurrencyLimiter#backoffNanos(int)
+     */
+    public static long backoffNanos(int attempt, long baseNanos, long maxNanos) {
+        long cap = attempt >= 62 || baseNanos > (maxNanos >> Math.min(attempt, 62)) ?
+                maxNanos :
+                baseNanos << attempt;
+        return cap <= 0 ? 0 : ThreadLocalRandom.current().nextLong(cap + 1);
+    }
+
+    /**
+     * Tells whether given error is S3 throttling response, e.g. {@code 503 SlowDown}
+     *
+     * @param e error, possibly wrapped by {@link CompletionException} or {@link ExecutionException}
+     * @return {@code true} if error is throttling
+     */
+    public static boolean isThrottling(Throwable e) {
+        while ((e instanceof CompletionException || e instanceof ExecutionException) && e.getCause() != null) {
+            e = e.getCause();
+        }
+        if (!(e instanceof AmazonServiceException)) {
+            return false;
+        }
+        AmazonServiceException ase = (AmazonServiceException) e;
+        return ase.getStatusCode() == 503 || ase.getStatusCode() == 429 || "SlowDown".equals(ase.getErrorCode());
+    }
+
+    /**
+     * Returns current limit
+     *
+     * @return max number of concurrent requests at the moment
+     */
+    public synchronized int limit() {
+        return (int) limit;
+    }
+
+    /**
+     * Returns number of taken permits
+     *
+     * @return number of in-flight requests
+     */
+    public synchronized int inFlight() {
+        return inFlight;
+    }
+}
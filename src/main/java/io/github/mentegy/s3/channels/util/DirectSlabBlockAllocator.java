@@ -0,0 +1,136 @@
+package io.github.mentegy.s3.channels.util;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * Off-heap slab allocator. Blocks are carved out of large direct byte buffers (slabs)
+ * and kept in free list once released, so they are reused instead of being allocated again.
+ * <p>
+ * Slabs are allocated lazily, one at a time, and never freed until allocator itself is
+ * collected. Total amount of direct memory is limited by {@code blockSize * blocksPerSlab * maxSlabs}.
+ * <p>
+ * Since data lives outside of Java heap, even multi-GB caches does not add GC pressure.
+ * Thread-safe.
+ */
+public class DirectSlabBlockAllocator implements BlockAllocator {
+
+    /**
+     * Number of blocks carved out of single slab
+     */
+    public final int blocksPerSlab;
+
+    /**
+     * Max number of slabs to be allocated
+     */
+    public final int maxSlabs;
+
+    private final int blockSize;
+    private final ConcurrentLinkedQueue<ByteBuffer> free = new ConcurrentLinkedQueue<>();
+    private final List<ByteBuffer> slabs = new ArrayList<>();
+    private final Set<ByteBuffer> oversized =
+            Collections.newSetFromMap(Collections.synchronizedMap(new IdentityHashMap<>()));
+
+    public DirectSlabBlockAllocator(int blockSize, int blocksPerSlab, int maxSlabs) {
+        if (blockSize <= 0 || blocksPerSlab <= 0 || maxSlabs <= 0) {
+            throw new IllegalArgumentException("Block size, blocks per slab and max slabs must be positive");
+        }
+        if ((long) blockSize * blocksPerSlab > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Slab size could not exceed " + Integer.MAX_VALUE + " bytes");
+        }
+        this.blockSize = blockSize;
+        this.blocksPerSlab = blocksPerSlab;
+        this.maxSlabs = maxSlabs;
+    }
+
+    @Override
+    public int blockSize() {
+        return blockSize;
+    }
+
+    /**
+     * Takes block from free list, allocating new slab if free list is empty.
+     *
+     * @return cleared direct block
+     * @throws IllegalStateException if there are no free blocks and max number of slabs is reached
+     */
+    @Override
+    public ByteBuffer allocate() {
+        ByteBuffer block = free.poll();
+        if (block == null) {
+            block = grow();
+        }
+        block.clear();
+        return block;
+    }
+
+    /**
+     * Allocates direct block of other than block size outside of slabs, it is left to GC once released
+     */
+    @Override
+    public ByteBuffer allocate(int size) {
+        if (size == blockSize) {
+            return allocate();
+        }
+        ByteBuffer block = ByteBuffer.allocateDirect(size);
+        oversized.add(block);
+        return block;
+    }
+
+    @Override
+    public void release(ByteBuffer block) {
+        if (oversized.remove(block)) {
+            return;
+        }
+        if (!block.isDirect() || block.capacity() != blockSize) {
+            throw new IllegalArgumentException("Block was not allocated by this allocator");
+        }
+        free.add(block);
+    }
+
+    /**
+     * Returns number of allocated slabs
+     *
+     * @return slabs
+     */
+    public synchronized int slabs() {
+        return slabs.size();
+    }
+
+    /**
+     * Returns number of blocks in free list
+     *
+     * @return free blocks
+     */
+    public int freeBlocks() {
+        return free.size();
+    }
+
+    private synchronized ByteBuffer grow() {
+        ByteBuffer block = free.poll();
+        if (block != null) {
+            return block;
+        }
+        if (slabs.size() >= maxSlabs) {
+            throw new IllegalStateException("Reached max allowed number of slabs (" + maxSlabs + ")");
+        }
+        ByteBuffer slab = ByteBuffer.allocateDirect(blockSize * blocksPerSlab);
+        slabs.add(slab);
+        for (int i = 1; i < blocksPerSlab; i++) {
+            free.add(slice(slab, i));
+        }
+        return slice(slab, 0);
+    }
+
+    private ByteBuffer slice(ByteBuffer slab, int index) {
+        ByteBuffer dup = slab.duplicate();
+        dup.position(index * blockSize);
+        dup.limit((index + 1) * blockSize);
+        return dup.slice();
+    }
+}
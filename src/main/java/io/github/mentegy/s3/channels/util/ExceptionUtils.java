@@ -1,5 +1,9 @@
 package io.github.mentegy.s3.channels.util;
 
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.UncheckedIOException;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.ExecutionException;
 
 public final class ExceptionUtils {
@@ -14,4 +18,31 @@ public final class ExceptionUtils {
         }
     }
 
+    /**
+     * Maps exception thrown by waiting on background task into one which could be thrown by channel's read.
+     * {@link UncheckedIOException} thrown by the task is unwrapped back into {@link IOException}.
+     */
+    public static IOException mapExecutionIOException(Exception e) throws IOException {
+        if (e instanceof InterruptedException) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException(e.getMessage());
+        }
+        Throwable cause = e;
+        while ((cause instanceof ExecutionException || cause instanceof CompletionException)
+                && cause.getCause() != null) {
+            cause = cause.getCause();
+        }
+        if (cause instanceof UncheckedIOException) {
+            throw ((UncheckedIOException) cause).getCause();
+        } else if (cause instanceof IOException) {
+            throw (IOException) cause;
+        } else if (cause instanceof RuntimeException) {
+            throw (RuntimeException) cause;
+        } else if (cause instanceof Error) {
+            throw (Error) cause;
+        } else {
+            throw new IOException(cause);
+        }
+    }
+
 }
@@ -0,0 +1,30 @@
+package io.github.mentegy.s3.channels.util;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Allocates every block on heap, released blocks are left to GC.
+ */
+public class HeapBlockAllocator implements BlockAllocator {
+
+    private final int blockSize;
+
+    public HeapBlockAllocator(int blockSize) {
+        this.blockSize = blockSize;
+    }
+
+    @Override
+    public int blockSize() {
+        return blockSize;
+    }
+
+    @Override
+    public ByteBuffer allocate() {
+        return ByteBuffer.allocate(blockSize);
+    }
+
+    @Override
+    public void release(ByteBuffer block) {
+        // collected by GC
+    }
+}
@@ -0,0 +1,124 @@
+package io.github.mentegy.s3.channels.util;
+
+import java.util.Arrays;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Decides when ranged GET request should be hedged, i.e. duplicated because it is slower than usual.
+ * Could be shared by many channels.
+ * <p>
+ * Keeps a window of recently observed request latencies (time to response headers). Request is hedged once it
+ * takes longer than {@link HedgePolicy#percentile} of the window, but not sooner than min delay.
+ * Hedging starts only after window has at least {@link HedgePolicy#MIN_SAMPLES} samples.
+ * Number of hedged requests is capped by {@link HedgePolicy#maxHedgeRatio} of all requests.
+ * <p>
+ * Requests are sent on policy's own executor service, which must not be the one running channel's reads,
+ * since reading thread waits for them.
+ * <p>
+ * Thread safe.
+ */
+public class HedgePolicy {
+
+    public static final int MIN_SAMPLES = 16;
+    public static final int DEFAULT_WINDOW_SIZE = 256;
+
+    /**
+     * Executor service which sends requests
+     */
+    public final ExecutorService executor;
+
+    /**
+     * Latency percentile after which request is hedged, e.g. {@code 0.95}
+     */
+    public final double percentile;
+
+    /**
+     * Max ratio of hedged requests to all requests, e.g. {@code 0.05}
+     */
+    public final double maxHedgeRatio;
+
+    /**
+     * Min delay before hedging, in nanoseconds
+     */
+    public final long minDelayNanos;
+
+    private final long[] window;
+    private int samples;
+    private int next;
+    private long requests;
+    private long hedges;
+
+    public HedgePolicy(ExecutorService executor, double percentile, double maxHedgeRatio) {
+        this(executor, percentile, maxHedgeRatio, 0, TimeUnit.MILLISECONDS, DEFAULT_WINDOW_SIZE);
+    }
+
+    public HedgePolicy(ExecutorService executor, double percentile, double maxHedgeRatio,
+                       long minDelay, TimeUnit unit, int windowSize) {
+        if (percentile <= 0 || percentile > 1) {
+            throw new IllegalArgumentException("Percentile must be within (0, 1]");
+        }
+        this.executor = executor;
+        this.percentile = percentile;
+        this.maxHedgeRatio = maxHedgeRatio;
+        this.minDelayNanos = unit.toNanos(minDelay);
+        this.window = new long[Math.max(windowSize, MIN_SAMPLES)];
+    }
+
+    /**
+     * Records latency of completed request
+     *
+     * @param nanos latency in nanoseconds
+     */
+    public synchronized void record(long nanos) {
+        window[next] = nanos;
+        next = (next + 1) % window.length;
+        samples = Math.min(samples + 1, window.length);
+    }
+
+    /**
+     * Registers new request
+     */
+    public synchronized void onRequest() {
+        requests++;
+    }
+
+    /**
+     * Returns delay after which request should be hedged
+     *
+     * @return delay in nanoseconds or {@code -1} if there are not enough samples yet
+     */
+    public long delayNanos() {
+        long[] sorted;
+        synchronized (this) {
+            if (samples < MIN_SAMPLES) {
+                return -1;
+            }
+            sorted = Arrays.copyOf(window, samples);
+        }
+        Arrays.sort(sorted);
+        int index = (int) Math.ceil(percentile * sorted.length) - 1;
+        return Math.max(minDelayNanos, sorted[Math.max(0, index)]);
+    }
+
+    /**
+     * Acquires permit to send hedged request, if it does not exceed max hedge ratio
+     *
+     * @return whereas request could be hedged
+     */
+    public synchronized boolean tryHedge() {
+        if (hedges + 1 > maxHedgeRatio * requests) {
+            return false;
+        }
+        hedges++;
+        return true;
+    }
+
+    public synchronized long requests() {
+        return requests;
+    }
+
+    public synchronized long hedges() {
+        return hedges;
+    }
+}
@@ -0,0 +1,132 @@
+package io.github.mentegy.s3.channels.util;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Bounds number and total size of parts which are being uploaded at once, so memory held by
+ * part buffers stays within roughly {@code maxParts * partSize} (or {@code maxBytes}).
+ * <p>
+ * Writer takes a permit before handing full part over to upload and waits up to
+ * {@link InFlightLimit#timeoutNanos} if limit is reached. Permit is returned once the part is uploaded
+ * or failed for good. Part is always admitted if nothing is in flight, even if it is bigger than max bytes.
+ * <p>
+ * Thread safe. Could be shared by many channels to bound memory of all uploads together.
+ */
+public class InFlightLimit {
+
+    /**
+     * Max number of parts in flight
+     */
+    public final int maxParts;
+
+    /**
+     * Max amount of bytes in flight
+     */
+    public final long maxBytes;
+
+    /**
+     * Max time blocked writer waits for a permit, in nanoseconds
+     */
+    public final long timeoutNanos;
+
+    private int parts;
+    private long bytes;
+
+    public InFlightLimit(int maxParts, long maxBytes) {
+        this(maxParts, maxBytes, Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * @param maxParts max number of parts in flight
+     * @param maxBytes max amount of bytes in flight
+     * @param timeout  max time blocked writer waits for a permit
+     * @param unit     time unit of timeout
+     */
+    public InFlightLimit(int maxParts, long maxBytes, long timeout, TimeUnit unit) {
+        if (maxParts <= 0 || maxBytes <= 0 || timeout < 0) {
+            throw new IllegalArgumentException("Max parts and max bytes must be positive, timeout not negative");
+        }
+        this.maxParts = maxParts;
+        this.maxBytes = maxBytes;
+        this.timeoutNanos = unit.toNanos(timeout);
+    }
+
+    /**
+     * Takes permit for part of given size if limit is not reached
+     *
+     * @param size part size
+     * @return whereas permit is taken
+     */
+    public synchronized boolean tryAcquire(long size) {
+        if (parts > 0 && (parts >= maxParts || bytes + size > maxBytes)) {
+            return false;
+        }
+        parts++;
+        bytes += size;
+        return true;
+    }
+
+    /**
+     * Takes permit for part of given size, waiting up to {@link InFlightLimit#timeoutNanos} for
+     * in-flight parts to complete
+     *
+     * @param size part size
+     * @return whereas permit is taken, {@code false} on timeout
+     * @throws InterruptedException if interrupted while waiting
+     */
+    public synchronized boolean acquire(long size) throws InterruptedException {
+        long deadline = System.nanoTime() + timeoutNanos;
+        while (!tryAcquire(size)) {
+            if (timeoutNanos == Long.MAX_VALUE) {
+                wait();
+                continue;
+            }
+            long left = deadline - System.nanoTime();
+            if (left <= 0) {
+                return false;
+            }
+            TimeUnit.NANOSECONDS.timedWait(this, left);
+        }
+        return true;
+    }
+
+    /**
+     * Takes permit for part of given size regardless of the limit, e.g. for last parts uploaded on close
+     * which are already buffered anyway
+     *
+     * @param size part size
+     */
+    public synchronized void forceAcquire(long size) {
+        parts++;
+        bytes += size;
+    }
+
+    /**
+     * Returns permit of completed part
+     *
+     * @param size part size, the same as acquired
+     */
+    public synchronized void release(long size) {
+        parts--;
+        bytes -= size;
+        notifyAll();
+    }
+
+    /**
+     * Returns number of parts in flight
+     *
+     * @return parts
+     */
+    public synchronized int parts() {
+        return parts;
+    }
+
+    /**
+     * Returns amount of bytes in flight
+     *
+     * @return bytes
+     */
+    public synchronized long bytes() {
+        return bytes;
+    }
+}
@@ -0,0 +1,125 @@
+package io.github.mentegy.s3.channels.util;
+
+import io.github.mentegy.s3.channels.S3WritableObjectChannel;
+
+/**
+ * Decides size of every part of multi-part upload.
+ * <p>
+ * Part size starts at {@link PartSizePolicy#initialPartSize} and is multiplied by {@link PartSizePolicy#growthFactor}
+ * after every {@link PartSizePolicy#partsPerStep} parts, up to {@link PartSizePolicy#maxPartSize}. So first parts
+ * of stream of unknown length are small (low latency, little memory), while big stream still fits in
+ * {@link S3WritableObjectChannel#MAX_PARTS} parts. If length of stream is known up front, use
+ * {@link PartSizePolicy#forObjectSize(long, int)} instead.
+ * <p>
+ * Immutable, could be shared by many channels.
+ */
+public class PartSizePolicy {
+
+    /**
+     * Max size of single part. S3 allows parts up to 5GB, but part is buffered in single byte buffer.
+     */
+    public static final int MAX_PART_SIZE = 1 << 30;
+
+    /**
+     * Parts uploaded before the size is increased by default
+     */
+    public static final int DEFAULT_PARTS_PER_STEP = 500;
+
+    /**
+     * Size of the first part
+     */
+    public final int initialPartSize;
+
+    /**
+     * Multiplier of part size on every step, {@code 1} for fixed part size
+     */
+    public final double growthFactor;
+
+    /**
+     * Number of parts of the same size
+     */
+    public final int partsPerStep;
+
+    /**
+     * Max size of any part
+     */
+    public final int maxPartSize;
+
+    public PartSizePolicy(int initialPartSize, double growthFactor, int partsPerStep, int maxPartSize) {
+        if (initialPartSize <= 0 || maxPartSize < initialPartSize || maxPartSize > MAX_PART_SIZE) {
+            throw new IllegalArgumentException("Part sizes must satisfy 0 < initial size <= max size <= "
+                    + MAX_PART_SIZE);
+        }
+        if (growthFactor < 1 || partsPerStep <= 0) {
+            throw new IllegalArgumentException("Growth factor must be at least 1 and parts per step positive");
+        }
+        this.initialPartSize = initialPartSize;
+        this.growthFactor = growthFactor;
+        this.partsPerStep = partsPerStep;
+        this.maxPartSize = maxPartSize;
+    }
+
+    /**
+     * Every part is of the same size
+     *
+     * @param partSize part size
+     * @return policy
+     */
+    public static PartSizePolicy fixed(int partSize) {
+        return new PartSizePolicy(partSize, 1, S3WritableObjectChannel.MAX_PARTS, partSize);
+    }
+
+    /**
+     * Part size is doubled every {@link PartSizePolicy#DEFAULT_PARTS_PER_STEP} parts up to
+     * {@link PartSizePolicy#MAX_PART_SIZE}, which fits objects up to 5TB (S3 limit) starting from 5MB parts
+     *
+     * @param initialPartSize size of the first part
+     * @return policy
+     */
+    public static PartSizePolicy adaptive(int initialPartSize) {
+        return new PartSizePolicy(initialPartSize, 2, DEFAULT_PARTS_PER_STEP, MAX_PART_SIZE);
+    }
+
+    /**
+     * Smallest fixed part size, not less than given min part size, which fits object of given size
+     *
+     * @param objectSize  expected size of object
+     * @param minPartSize min part size
+     * @return policy
+     * @throws IllegalArgumentException if object would not fit in max number of parts of max part size
+     */
+    public static PartSizePolicy forObjectSize(long objectSize, int minPartSize) {
+        long partSize = (objectSize + S3WritableObjectChannel.MAX_PARTS - 1) / S3WritableObjectChannel.MAX_PARTS;
+        if (partSize > MAX_PART_SIZE) {
+            throw new IllegalArgumentException("Object of " + objectSize + " bytes does not fit in "
+                    + S3WritableObjectChannel.MAX_PARTS + " parts");
+        }
+        return fixed((int) Math.max(minPartSize, partSize));
+    }
+
+    /**
+     * Returns size of given part
+     *
+     * @param partNumber part number, starting from 1
+     * @return part size
+     */
+    public int partSize(int partNumber) {
+        int step = (partNumber - 1) / partsPerStep;
+        double size = initialPartSize * Math.pow(growthFactor, step);
+        return size >= maxPartSize ? maxPartSize : (int) size;
+    }
+
+    /**
+     * Returns max size of object uploaded under this policy
+     *
+     * @return sum of sizes of all allowed parts
+     */
+    public long maxObjectSize() {
+        long total = 0;
+        for (int part = 1; part <= S3WritableObjectChannel.MAX_PARTS; part += partsPerStep) {
+            int parts = Math.min(partsPerStep, S3WritableObjectChannel.MAX_PARTS - part + 1);
+            total += (long) parts * partSize(part);
+        }
+        return total;
+    }
+}
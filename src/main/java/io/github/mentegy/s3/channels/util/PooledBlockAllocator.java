@@ -0,0 +1,101 @@
+package io.github.mentegy.s3.channels.util;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Heap or direct allocator which keeps up to {@link PooledBlockAllocator#maxPooled} released blocks for reuse,
+ * so steady flow of allocations and releases does not allocate anything (e.g. part buffers of writable channels).
+ * Blocks released above the bound are left to GC.
+ * <p>
+ * Thread-safe. Single instance is meant to be shared across many channels.
+ */
+public class PooledBlockAllocator implements BlockAllocator {
+
+    /**
+     * Max number of released blocks kept for reuse
+     */
+    public final int maxPooled;
+
+    /**
+     * Whereas blocks are allocated off-heap
+     */
+    public final boolean direct;
+
+    private final int blockSize;
+    private final ArrayBlockingQueue<ByteBuffer> free;
+    private final AtomicLong allocated = new AtomicLong();
+
+    public PooledBlockAllocator(int blockSize, int maxPooled) {
+        this(blockSize, maxPooled, false);
+    }
+
+    public PooledBlockAllocator(int blockSize, int maxPooled, boolean direct) {
+        if (blockSize <= 0 || maxPooled <= 0) {
+            throw new IllegalArgumentException("Block size and max pooled blocks must be positive");
+        }
+        this.blockSize = blockSize;
+        this.maxPooled = maxPooled;
+        this.direct = direct;
+        this.free = new ArrayBlockingQueue<>(maxPooled);
+    }
+
+    @Override
+    public int blockSize() {
+        return blockSize;
+    }
+
+    /**
+     * Takes block from the pool, allocating new one if pool is empty
+     *
+     * @return cleared block
+     */
+    @Override
+    public ByteBuffer allocate() {
+        ByteBuffer block = free.poll();
+        if (block == null) {
+            allocated.incrementAndGet();
+            return direct ? ByteBuffer.allocateDirect(blockSize) : ByteBuffer.allocate(blockSize);
+        }
+        block.clear();
+        return block;
+    }
+
+    /**
+     * Allocates block of other than block size in the same memory, such block is not pooled once released
+     */
+    @Override
+    public ByteBuffer allocate(int size) {
+        if (size == blockSize) {
+            return allocate();
+        }
+        return direct ? ByteBuffer.allocateDirect(size) : ByteBuffer.allocate(size);
+    }
+
+    @Override
+    public void release(ByteBuffer block) {
+        if (block.capacity() == blockSize && block.isDirect() == direct && !block.isReadOnly()) {
+            block.clear();
+            free.offer(block);
+        }
+    }
+
+    /**
+     * Returns number of blocks allocated so far, i.e. not taken from the pool
+     *
+     * @return allocated blocks
+     */
+    public long allocated() {
+        return allocated.get();
+    }
+
+    /**
+     * Returns number of blocks available for reuse
+     *
+     * @return pooled blocks
+     */
+    public int pooled() {
+        return free.size();
+    }
+}
@@ -0,0 +1,142 @@
+package io.github.mentegy.s3.channels.util;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+import static java.nio.file.StandardOpenOption.READ;
+import static java.nio.file.StandardOpenOption.WRITE;
+
+/**
+ * Allocates blocks staged in local temporary files instead of memory, e.g. part buffers of huge uploads
+ * on memory constrained hosts.
+ * <p>
+ * Every block is a memory mapped temporary file of {@link TempFileBlockAllocator#blockSize()} bytes,
+ * which is unmapped and deleted once block is released, so released block must not be touched anymore.
+ * Data lives in OS page cache and is written back to disk under memory pressure, so Java heap usage
+ * does not depend on block size or number of blocks in use.
+ * Mapped blocks are direct buffers and are read without copying (see {@link ByteBufferInputStream}).
+ * <p>
+ * Thread-safe.
+ */
+public class TempFileBlockAllocator implements BlockAllocator {
+
+    /**
+     * Directory of temporary files
+     */
+    public final Path directory;
+
+    private final int blockSize;
+    private final Map<ByteBuffer, Path> files = Collections.synchronizedMap(new IdentityHashMap<>());
+
+    public TempFileBlockAllocator(Path directory, int blockSize) {
+        if (blockSize <= 0) {
+            throw new IllegalArgumentException("Block size must be positive");
+        }
+        this.directory = directory;
+        this.blockSize = blockSize;
+    }
+
+    @Override
+    public int blockSize() {
+        return blockSize;
+    }
+
+    @Override
+    public ByteBuffer allocate() {
+        return allocate(blockSize);
+    }
+
+    /**
+     * Creates temporary file of given size and maps it
+     *
+     * @return cleared mapped block
+     * @throws UncheckedIOException if file could not be created or mapped
+     */
+    @Override
+    public ByteBuffer allocate(int size) {
+        Path file = null;
+        try {
+            Files.createDirectories(directory);
+            file = Files.createTempFile(directory, "s3-part-", ".tmp");
+            ByteBuffer block;
+            try (FileChannel ch = FileChannel.open(file, READ, WRITE)) {
+                block = ch.map(FileChannel.MapMode.READ_WRITE, 0, size);
+            }
+            files.put(block, file);
+            return block;
+        } catch (IOException e) {
+            if (file != null) {
+                delete(file);
+            }
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Unmaps given block and deletes its temporary file, so disk space is freed right away
+     * instead of once the mapping is collected by GC
+     */
+    @Override
+    public void release(ByteBuffer block) {
+        Path file = files.remove(block);
+        if (file == null) {
+            throw new IllegalArgumentException("Block was not allocated by this allocator");
+        }
+        unmap(block);
+        delete(file);
+    }
+
+    /**
+     * Returns number of blocks in use, e.g. number of temporary files
+     *
+     * @return blocks
+     */
+    public int blocks() {
+        return files.size();
+    }
+
+    /**
+     * Releases mapping of given buffer by its cleaner: {@code sun.misc.Unsafe#invokeCleaner} on Java 9+,
+     * {@code DirectBuffer#cleaner} on Java 8. If neither is accessible, mapping is left to GC.
+     */
+    private static void unmap(ByteBuffer block) {
+        try {
+            Class<?> unsafeClass = Class.forName("sun.misc.Unsafe");
+            try {
+                Method invokeCleaner = unsafeClass.getMethod("invokeCleaner", ByteBuffer.class);
+                Field theUnsafe = unsafeClass.getDeclaredField("theUnsafe");
+                theUnsafe.setAccessible(true);
+                invokeCleaner.invoke(theUnsafe.get(null), block);
+                return;
+            } catch (NoSuchMethodException e) {
+                // Java 8
+            }
+            Method cleaner = block.getClass().getMethod("cleaner");
+            cleaner.setAccessible(true);
+            Object c = cleaner.invoke(block);
+            if (c != null) {
+                c.getClass().getMethod("clean").invoke(c);
+            }
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            // left to GC
+        }
+    }
+
+    private static void delete(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            // could not be deleted while mapped on some platforms
+            file.toFile().deleteOnExit();
+        }
+    }
+}
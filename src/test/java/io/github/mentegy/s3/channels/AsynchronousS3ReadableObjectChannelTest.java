@@ -0,0 +1,107 @@
+package io.github.mentegy.s3.channels;
+
+import io.github.mentegy.s3.channels.testutils.InMemoryS3;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.channels.CompletionHandler;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@Tag("fast")
+class AsynchronousS3ReadableObjectChannelTest {
+    final String key = "AsynchronousS3ReadableObjectChannelTest";
+    final byte[] content = InMemoryS3.randomBytes(10_000);
+    ExecutorService executor;
+    AsynchronousS3ReadableObjectChannel channel;
+
+    @BeforeEach
+    void prepare() {
+        executor = Executors.newFixedThreadPool(4);
+        channel = S3ReadableObjectChannel.builder()
+                .amazonS3(new InMemoryS3().put("bucket", key, content).s3)
+                .bucket("bucket")
+                .key(key)
+                .executorService(executor)
+                .buildAsynchronous();
+    }
+
+    @AfterEach
+    void cleanup() {
+        channel.close();
+        assertFalse(channel.isOpen());
+        executor.shutdown();
+    }
+
+    @Test
+    void testPositionalReads() throws Exception {
+        List<ByteBuffer> buffers = new ArrayList<>();
+        List<CompletableFuture<Integer>> reads = new ArrayList<>();
+        for (int pos = 0; pos < content.length; pos += 100) {
+            ByteBuffer dst = ByteBuffer.allocate(100);
+            buffers.add(dst);
+            reads.add(channel.read(dst, pos));
+        }
+        CompletableFuture.allOf(reads.toArray(new CompletableFuture[0])).get(5, TimeUnit.SECONDS);
+        for (int i = 0; i < buffers.size(); i++) {
+            assertEquals(100, reads.get(i).get().intValue());
+            assertArrayEquals(Arrays.copyOfRange(content, i * 100, i * 100 + 100), buffers.get(i).array());
+        }
+        assertEquals(0, channel.position());
+    }
+
+    @Test
+    void testReadByCurrentPosition() throws Exception {
+        ByteBuffer dst = ByteBuffer.allocate(30);
+        channel.position(100);
+        assertEquals(30, channel.read(dst).get(5, TimeUnit.SECONDS).intValue());
+        assertEquals(130, channel.position());
+        assertArrayEquals(Arrays.copyOfRange(content, 100, 130), dst.array());
+
+        CompletableFuture<Integer> result = new CompletableFuture<>();
+        dst.clear();
+        channel.read(dst, "attachment", new CompletionHandler<Integer, String>() {
+            @Override
+            public void completed(Integer read, String attachment) {
+                assertEquals("attachment", attachment);
+                result.complete(read);
+            }
+
+            @Override
+            public void failed(Throwable exc, String attachment) {
+                result.completeExceptionally(exc);
+            }
+        });
+        assertEquals(30, result.get(5, TimeUnit.SECONDS).intValue());
+        assertArrayEquals(Arrays.copyOfRange(content, 130, 160), dst.array());
+        assertEquals(160, channel.position());
+    }
+
+    @Test
+    void testFailedRead() throws Exception {
+        CompletableFuture<Throwable> failure = new CompletableFuture<>();
+        channel.read(ByteBuffer.allocate(10), 20_000, null, new CompletionHandler<Integer, Object>() {
+            @Override
+            public void completed(Integer result, Object attachment) {
+                failure.complete(null);
+            }
+
+            @Override
+            public void failed(Throwable exc, Object attachment) {
+                failure.complete(exc);
+            }
+        });
+        assertNotNull(failure.get(5, TimeUnit.SECONDS));
+        assertThrows(UnsupportedOperationException.class, () -> channel.write(ByteBuffer.allocate(1)));
+    }
+}
@@ -0,0 +1,91 @@
+package io.github.mentegy.s3.channels.benchmark;
+
+import io.github.mentegy.s3.channels.util.ByteBufferUtils;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares {@link ByteBufferUtils#readFromInputStream(InputStream, ByteBuffer)} against
+ * previous implementation which allocated new chunk of up to 16KB on every call.
+ * <p>
+ * Not a test, run it manually from IDE or with
+ * {@code mvn test-compile exec:java -Dexec.mainClass=...ReadFromInputStreamBenchmark -Dexec.classpathScope=test}
+ * and compare {@code gc.alloc.rate.norm} of both methods.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ReadFromInputStreamBenchmark {
+
+    @Param({"4096", "1048576"})
+    int size;
+
+    @Param({"false", "true"})
+    boolean direct;
+
+    byte[] content;
+    ByteBuffer dst;
+
+    @Setup
+    public void setup() {
+        content = new byte[size];
+        new Random(42).nextBytes(content);
+        dst = direct ? ByteBuffer.allocateDirect(size) : ByteBuffer.allocate(size);
+    }
+
+    @Benchmark
+    public int current() throws IOException {
+        dst.clear();
+        return ByteBufferUtils.readFromInputStream(new ByteArrayInputStream(content), dst);
+    }
+
+    @Benchmark
+    public int chunked() throws IOException {
+        dst.clear();
+        return chunkedReadFromInputStream(new ByteArrayInputStream(content), dst);
+    }
+
+    /**
+     * Previous implementation, kept as baseline as is
+     */
+    static int chunkedReadFromInputStream(InputStream src, ByteBuffer dest) throws IOException {
+        int chunkSize = dest.remaining() > ByteBufferUtils._16_KB ? ByteBufferUtils._16_KB : dest.remaining();
+
+        byte[] chunk = new byte[chunkSize];
+        int read;
+
+        int written = 0;
+
+        while ((read = src.read(chunk)) != -1) {
+            if (!dest.hasRemaining()) {
+                return written;
+            }
+            if (read > dest.remaining()) {
+                read = dest.remaining();
+            }
+            written += read;
+            dest.put(chunk, 0, read);
+        }
+
+        return written;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(ReadFromInputStreamBenchmark.class.getSimpleName())
+                .addProfiler("gc")
+                .build()).run();
+    }
+}
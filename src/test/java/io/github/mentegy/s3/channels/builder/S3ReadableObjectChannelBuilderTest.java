@@ -2,12 +2,27 @@ package io.github.mentegy.s3.channels.builder;
 
 import com.amazonaws.services.s3.AmazonS3;
 import com.amazonaws.services.s3.model.ObjectMetadata;
+import io.github.mentegy.s3.channels.InputPolicy;
+import io.github.mentegy.s3.channels.cache.LruBlockCache;
+import io.github.mentegy.s3.channels.cache.ObjectMetadataCache;
+import io.github.mentegy.s3.channels.impl.S3AdaptiveBufferedReadObjectChannel;
+import io.github.mentegy.s3.channels.impl.S3CachedRangedReadObjectChannel;
+import io.github.mentegy.s3.channels.impl.S3ConcurrentBufferedReadObjectChannel;
 import io.github.mentegy.s3.channels.impl.S3RangedReadObjectChannel;
+import io.github.mentegy.s3.channels.impl.S3ReadableObjectChannelAsFileChannel;
+import io.github.mentegy.s3.channels.impl.S3ReadAheadRangedReadObjectChannel;
+import io.github.mentegy.s3.channels.impl.S3StreamingReadObjectChannel;
+import io.github.mentegy.s3.channels.util.DirectSlabBlockAllocator;
+import io.github.mentegy.s3.channels.util.ConcurrencyLimiter;
+import io.github.mentegy.s3.channels.util.HedgePolicy;
 import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Tag;
 import org.junit.jupiter.api.Test;
 
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
 
@@ -47,11 +62,109 @@ class S3ReadableObjectChannelBuilderTest {
 
         assertThrows(IllegalArgumentException.class, () ->
                 newBuilder().amazonS3(null).build(), "Amazon s3 must be set");
+
+        assertThrows(IllegalArgumentException.class, () ->
+                newBuilder().readAhead(2).executorService(mock(ExecutorService.class)).build(),
+                "Read-ahead requires buffered channel");
+
+        assertThrows(IllegalArgumentException.class, () ->
+                newBuilder().buffered(10).readAhead(2).build(), "Executor service must be set");
+
+        assertThrows(IllegalArgumentException.class, () ->
+                newBuilder().splitSize(100).build(), "Executor service must be set");
+
+        assertThrows(IllegalArgumentException.class, () ->
+                newBuilder().buffered(10).blockCache(new LruBlockCache(100, 10)).build(),
+                "Block cache could not be combined with buffered channel");
+
+        LruBlockCache cache = new LruBlockCache(100, 10);
+        assertThrows(IllegalArgumentException.class, () ->
+                newBuilder().blockCache(cache).splitSize(1000).executorService(mock(ExecutorService.class)).build(),
+                "Block cache could not be combined with split reads, read-ahead, concurrent or adaptive channel");
+        assertThrows(IllegalArgumentException.class, () ->
+                newBuilder().blockCache(cache).concurrent(2).build(),
+                "Block cache could not be combined with split reads, read-ahead, concurrent or adaptive channel");
+        assertThrows(IllegalArgumentException.class, () ->
+                newBuilder().blockCache(cache).readAhead(2).build(),
+                "Block cache could not be combined with split reads, read-ahead, concurrent or adaptive channel");
+        assertThrows(IllegalArgumentException.class, () ->
+                newBuilder().blockCache(cache).executorService(mock(ExecutorService.class)).build(),
+                "Block cache could not be combined with executor service");
+
+        assertThrows(IllegalArgumentException.class, () ->
+                newBuilder().buffered(10).inputPolicy(InputPolicy.SEQUENTIAL).build(),
+                "Input policy could not be combined with buffered or cached channel");
+
+        assertThrows(IllegalArgumentException.class, () ->
+                newBuilder().concurrent(4).build(), "Concurrent channel requires buffered channel");
+
+        assertThrows(IllegalArgumentException.class, () ->
+                newBuilder().adaptive(4).build(), "Adaptive block size requires buffered channel");
+
+        assertThrows(IllegalArgumentException.class, () ->
+                newBuilder().buffered(10).adaptive(4).concurrent(4).build(),
+                "Adaptive block size could not be combined with read-ahead or concurrent channel");
+
+        assertThrows(IllegalArgumentException.class, () ->
+                newBuilder().buffered(10).adaptive(4).readAhead(2).executorService(mock(ExecutorService.class))
+                        .build(),
+                "Adaptive block size could not be combined with read-ahead or concurrent channel");
+
+        assertThrows(IllegalArgumentException.class, () ->
+                newBuilder().buildAsynchronous(), "Executor service must be set");
+
+        assertThrows(IllegalArgumentException.class, () ->
+                newBuilder().tailPrefetch(10).lazyOpen(true).build(),
+                "Tail prefetch could not be combined with lazy open");
+
+        assertThrows(IllegalArgumentException.class, () ->
+                newBuilder().buffered(10).executorService(mock(ExecutorService.class)).buildAsynchronous(),
+                "Asynchronous channel requires channel safe for concurrent reads");
+
+        assertThrows(IllegalArgumentException.class, () ->
+                newBuilder().splitSize(1000).executorService(mock(ExecutorService.class)).buildAsynchronous(),
+                "Asynchronous channel could not be combined with split reads or read-ahead");
+
+        assertThrows(IllegalArgumentException.class, () ->
+                newBuilder().buildAsFileChannel(null, 0), "Region size must be positive");
     }
 
     @Test
     void testBuild() {
         assertEquals(S3RangedReadObjectChannel.class, builder.build().getClass());
+        assertEquals(S3ReadableObjectChannelAsFileChannel.class, builder.buildAsFileChannel().getClass());
+        assertEquals(S3ReadAheadRangedReadObjectChannel.class, newBuilder()
+                .buffered(10)
+                .readAhead(2)
+                .executorService(mock(ExecutorService.class))
+                .build().getClass());
+        // the original overload is kept
+        assertEquals(S3ReadAheadRangedReadObjectChannel.class, newBuilder()
+                .buffered(10)
+                .readAhead(2, mock(ExecutorService.class))
+                .build().getClass());
+        assertEquals(S3CachedRangedReadObjectChannel.class, newBuilder()
+                .blockCache(new LruBlockCache(100, 10))
+                .build().getClass());
+        // executor of asynchronous channel is not passed to cached one
+        assertEquals(S3CachedRangedReadObjectChannel.class, newBuilder()
+                .blockCache(new LruBlockCache(100, 10))
+                .executorService(mock(ExecutorService.class))
+                .buildAsynchronous().channel.getClass());
+        assertEquals(S3StreamingReadObjectChannel.class, newBuilder()
+                .inputPolicy(InputPolicy.ADAPTIVE)
+                .build().getClass());
+        assertEquals(S3ConcurrentBufferedReadObjectChannel.class, newBuilder()
+                .buffered(10)
+                .concurrent(4)
+                .build().getClass());
+        assertEquals(S3AdaptiveBufferedReadObjectChannel.class, newBuilder()
+                .buffered(10)
+                .adaptive(2)
+                .build().getClass());
+        assertEquals(S3RangedReadObjectChannel.class, newBuilder()
+                .executorService(mock(ExecutorService.class))
+                .buildAsynchronous().channel.getClass());
     }
 
     @Test
@@ -62,5 +175,43 @@ class S3ReadableObjectChannelBuilderTest {
         assertFalse(builder.isBuffered());
         assertEquals(123, builder.buffered(123).bufferSize().intValue());
         assertTrue(builder.isBuffered());
+        assertEquals(123, builder.bufferAllocator().blockSize());
+        DirectSlabBlockAllocator allocator = new DirectSlabBlockAllocator(64, 1, 1);
+        assertEquals(allocator, builder.buffered(allocator).bufferAllocator());
+        assertEquals(64, builder.bufferSize().intValue());
+        ExecutorService executor = mock(ExecutorService.class);
+        assertEquals(0, builder.readAheadBlocks());
+        assertEquals(4, builder.readAhead(4).readAheadBlocks());
+        assertNull(builder.executorService());
+        assertEquals(executor, builder.executorService(executor).executorService());
+        ExecutorService readAheadExecutor = mock(ExecutorService.class);
+        assertEquals(readAheadExecutor, builder.readAhead(3, readAheadExecutor).executorService());
+        assertEquals(3, builder.readAheadBlocks());
+        assertEquals(0, builder.splitSize());
+        assertEquals(1024, builder.splitSize(1024).splitSize());
+        LruBlockCache cache = new LruBlockCache(100, 10);
+        assertNull(builder.blockCache());
+        assertEquals(cache, builder.blockCache(cache).blockCache());
+        ObjectMetadataCache metadataCache = new ObjectMetadataCache(1, TimeUnit.SECONDS);
+        assertNull(builder.metadataCache());
+        assertEquals(metadataCache, builder.metadataCache(metadataCache).metadataCache());
+        assertFalse(builder.isLazyOpen());
+        assertTrue(builder.lazyOpen(true).isLazyOpen());
+        assertNull(builder.inputPolicy());
+        assertEquals(InputPolicy.SEQUENTIAL, builder.inputPolicy(InputPolicy.SEQUENTIAL).inputPolicy());
+        assertEquals(S3StreamingReadObjectChannel.DEFAULT_SEEK_THRESHOLD, builder.seekThreshold());
+        assertEquals(10, builder.seekThreshold(10).seekThreshold());
+        assertEquals(0, builder.concurrentBlocks());
+        assertEquals(8, builder.concurrent(8).concurrentBlocks());
+        assertEquals(0, builder.tailSize());
+        assertEquals(64, builder.tailPrefetch(64).tailSize());
+        assertEquals(0, builder.minBlockSize());
+        assertEquals(16, builder.adaptive(16).minBlockSize());
+        HedgePolicy hedgePolicy = new HedgePolicy(executor, 0.95, 0.05);
+        assertNull(builder.hedgePolicy());
+        assertEquals(hedgePolicy, builder.hedge(hedgePolicy).hedgePolicy());
+        ConcurrencyLimiter limiter = new ConcurrencyLimiter(4, 1, 8);
+        assertNull(builder.concurrencyLimiter());
+        assertEquals(limiter, builder.concurrencyLimiter(limiter).concurrencyLimiter());
     }
 }
@@ -6,11 +6,17 @@ import io.github.mentegy.s3.channels.S3WritableObjectChannel;
 import io.github.mentegy.s3.channels.impl.S3AppendableDelayedHeaderObjectChannel;
 import io.github.mentegy.s3.channels.impl.S3AppendableObjectChannel;
 import io.github.mentegy.s3.channels.impl.S3WritableObjectChannelAsFileChannel;
+import io.github.mentegy.s3.channels.util.ConcurrencyLimiter;
+import io.github.mentegy.s3.channels.util.InFlightLimit;
+import io.github.mentegy.s3.channels.util.PartSizePolicy;
+import io.github.mentegy.s3.channels.util.PooledBlockAllocator;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Tag;
 import org.junit.jupiter.api.Test;
 
+import java.nio.file.Paths;
 import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.mock;
@@ -60,6 +66,23 @@ class S3WritableObjectChannelBuilderTest {
         assertEquals(S3AppendableObjectChannel.class, builder.build().getClass());
         assertEquals(S3AppendableDelayedHeaderObjectChannel.class, builder.delayedHeader(true).build().getClass());
         assertEquals(S3WritableObjectChannelAsFileChannel.class, builder.buildAsFileChannel().getClass());
+
+        assertEquals(1, newBuilder().build().partSizePolicy.growthFactor);
+        assertEquals(2, newBuilder().adaptivePartSize(true).build().partSizePolicy.growthFactor);
+        // size hint picks fixed part size up front
+        PartSizePolicy policy = newBuilder().adaptivePartSize(true).objectSizeHint(100_000_000_000L).build()
+                .partSizePolicy;
+        assertEquals(1, policy.growthFactor);
+        assertEquals(10_000_000, policy.initialPartSize);
+
+        // pooled allocator could not serve growing parts
+        PooledBlockAllocator pool = new PooledBlockAllocator(S3WritableObjectChannel.MIN_PART_SIZE, 2);
+        assertThrows(IllegalArgumentException.class, () ->
+                newBuilder().partAllocator(pool).adaptivePartSize(true).build());
+        assertThrows(IllegalArgumentException.class, () ->
+                newBuilder().partAllocator(pool).objectSizeHint(100_000_000_000L).build());
+        assertEquals(S3WritableObjectChannel.MIN_PART_SIZE,
+                newBuilder().partAllocator(pool).objectSizeHint(1_000_000).build().partSizePolicy.maxPartSize);
     }
 
     @Test
@@ -75,6 +98,27 @@ class S3WritableObjectChannelBuilderTest {
         assertFalse(builder.hasDelayedHeader());
         assertFalse(builder.closeExecutorOnChannelClose());
         assertTrue(builder.defaultCachedThreadPoolExecutor().closeExecutorOnChannelClose());
+        ConcurrencyLimiter limiter = new ConcurrencyLimiter(4, 1, 8);
+        assertNull(builder.concurrencyLimiter());
+        assertEquals(limiter, builder.concurrencyLimiter(limiter).concurrencyLimiter());
+        PooledBlockAllocator allocator = new PooledBlockAllocator(1024, 2);
+        assertNull(builder.partAllocator());
+        assertEquals(allocator, builder.partAllocator(allocator).partAllocator());
+        assertNull(builder.inFlightLimit());
+        InFlightLimit inFlight = builder.maxInFlight(4, 1024, 1, TimeUnit.SECONDS).inFlightLimit();
+        assertEquals(4, inFlight.maxParts);
+        assertEquals(1024, inFlight.maxBytes);
+        assertEquals(TimeUnit.SECONDS.toNanos(1), inFlight.timeoutNanos);
+        assertNull(builder.partSizePolicy());
+        assertFalse(builder.hasAdaptivePartSize());
+        assertEquals(-1, builder.objectSizeHint());
+        PartSizePolicy policy = PartSizePolicy.fixed(10);
+        assertEquals(policy, builder.partSizePolicy(policy).partSizePolicy());
+        assertTrue(builder.adaptivePartSize(true).hasAdaptivePartSize());
+        assertEquals(123, builder.objectSizeHint(123).objectSizeHint());
+        assertNull(builder.spillDirectory());
+        assertEquals(Paths.get("parts"), builder.spillToDisk(Paths.get("parts")).spillDirectory());
+        assertThrows(IllegalArgumentException.class, builder::build);
 
         InitiateMultipartUploadResult r = new InitiateMultipartUploadResult();
         r.setBucketName("bucket1");
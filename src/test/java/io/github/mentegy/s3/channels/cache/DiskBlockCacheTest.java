@@ -0,0 +1,160 @@
+package io.github.mentegy.s3.channels.cache;
+
+import com.amazonaws.services.s3.model.GetObjectRequest;
+import io.github.mentegy.s3.channels.S3ReadableObjectChannel;
+import io.github.mentegy.s3.channels.testutils.InMemoryS3;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@Tag("fast")
+class DiskBlockCacheTest {
+    Path directory;
+
+    private static BlockKey key(long index) {
+        return new BlockKey("bucket", "key", "etag", index);
+    }
+
+    private static ByteBuffer block(int size, int value) {
+        ByteBuffer b = ByteBuffer.allocate(size);
+        while (b.hasRemaining()) {
+            b.put((byte) value);
+        }
+        b.flip();
+        return b;
+    }
+
+    @BeforeEach
+    void prepare() throws IOException {
+        directory = Files.createTempDirectory("disk-block-cache");
+    }
+
+    @AfterEach
+    void cleanup() throws IOException {
+        try (Stream<Path> files = Files.walk(directory)) {
+            files.sorted(Comparator.reverseOrder()).forEach(p -> p.toFile().delete());
+        }
+    }
+
+    @Test
+    void testReadAndPut() throws IOException {
+        try (DiskBlockCache cache = new DiskBlockCache(directory, 100, 10)) {
+            assertEquals(10, cache.blockSize());
+            ByteBuffer dst = ByteBuffer.allocate(4);
+
+            assertEquals(-1, cache.read(key(0), 0, dst));
+            cache.put(key(0), ByteBuffer.wrap(new byte[]{0, 1, 2, 3, 4, 5, 6, 7, 8, 9}));
+            assertEquals(10, cache.size());
+
+            assertEquals(4, cache.read(key(0), 3, dst));
+            assertArrayEquals(new byte[]{3, 4, 5, 6}, dst.array());
+            assertEquals(0, cache.read(key(0), 10, ByteBuffer.allocate(4)));
+            assertEquals(1, cache.misses());
+            assertEquals(2, cache.hits());
+
+            // blocks without ETag are not cached
+            cache.put(new BlockKey("bucket", "key", 1), block(10, 1));
+            assertEquals(-1, cache.read(new BlockKey("bucket", "key", 1), 0, dst));
+            // other ETag does not match
+            assertEquals(-1, cache.read(new BlockKey("bucket", "key", "other", 0), 0, dst));
+
+            cache.invalidate(key(0));
+            assertEquals(0, cache.size());
+            assertEquals(-1, cache.read(key(0), 0, dst));
+        }
+    }
+
+    @Test
+    void testEviction() throws IOException {
+        try (DiskBlockCache cache = new DiskBlockCache(directory, 30, 10, 25)) {
+            cache.put(key(0), block(10, 0));
+            cache.put(key(1), block(10, 1));
+            cache.put(key(2), block(5, 2));
+            // touch block 0, so block 1 becomes eldest
+            assertEquals(1, cache.read(key(0), 0, ByteBuffer.allocate(1)));
+            cache.put(key(3), block(10, 3));
+
+            assertEquals(25, cache.size());
+            assertEquals(-1, cache.read(key(1), 0, ByteBuffer.allocate(1)));
+            ByteBuffer dst = ByteBuffer.allocate(10);
+            assertEquals(10, cache.read(key(3), 0, dst));
+            assertArrayEquals(block(10, 3).array(), dst.array());
+        }
+    }
+
+    @Test
+    void testRecovery() throws IOException {
+        try (DiskBlockCache cache = new DiskBlockCache(directory, 30, 10)) {
+            cache.put(key(0), block(10, 0));
+            cache.put(key(1), block(7, 1));
+            cache.put(key(2), block(10, 2));
+            cache.invalidate(key(2));
+            assertThrows(IllegalStateException.class, () -> new DiskBlockCache(directory, 30, 10));
+        }
+        // corrupt data of block 1
+        Path segment = directory.resolve("segment-10-0.dat");
+        try (FileChannel file = FileChannel.open(segment, StandardOpenOption.WRITE)) {
+            file.write(ByteBuffer.wrap(new byte[]{42}), DiskBlockCache.HEADER_SIZE + 10 + DiskBlockCache.HEADER_SIZE);
+        }
+
+        try (DiskBlockCache cache = new DiskBlockCache(directory, 30, 10)) {
+            assertEquals(17, cache.size());
+            ByteBuffer dst = ByteBuffer.allocate(10);
+            assertEquals(10, cache.read(key(0), 0, dst));
+            assertArrayEquals(block(10, 0).array(), dst.array());
+            assertEquals(-1, cache.read(key(1), 0, ByteBuffer.allocate(10)));
+            assertEquals(-1, cache.read(key(2), 0, ByteBuffer.allocate(10)));
+            assertEquals(10, cache.size());
+
+            // freed slots are reused
+            cache.put(key(3), block(10, 3));
+            cache.put(key(4), block(10, 4));
+            assertEquals(30, cache.size());
+            assertEquals(10, cache.read(key(0), 0, ByteBuffer.allocate(10)));
+        }
+    }
+
+    @Test
+    void testChannelReadsSurviveRestart() throws IOException {
+        byte[] content = InMemoryS3.randomBytes(10_000);
+        InMemoryS3 store = new InMemoryS3().put("bucket", "key", content);
+        try (DiskBlockCache cache = new DiskBlockCache(directory, 1 << 20, 1024)) {
+            S3ReadableObjectChannel ch = S3ReadableObjectChannel.builder()
+                    .amazonS3(store.s3).bucket("bucket").key("key").blockCache(cache).build();
+            assertEquals(content.length, ch.read(ByteBuffer.allocate(content.length), 0));
+        }
+        verify(store.s3, times(10)).getObject(any(GetObjectRequest.class));
+        clearInvocations(store.s3);
+
+        try (DiskBlockCache cache = new DiskBlockCache(directory, 1 << 20, 1024)) {
+            S3ReadableObjectChannel ch = S3ReadableObjectChannel.builder()
+                    .amazonS3(store.s3).bucket("bucket").key("key").blockCache(cache).build();
+            ByteBuffer dst = ByteBuffer.allocate(content.length);
+            assertEquals(content.length, ch.read(dst, 0));
+            assertArrayEquals(content, dst.array());
+
+            // modified object does not match cached blocks
+            byte[] modified = Arrays.copyOf(content, content.length);
+            modified[0]++;
+            store.put("bucket", "key", modified);
+            ch = S3ReadableObjectChannel.builder()
+                    .amazonS3(store.s3).bucket("bucket").key("key").blockCache(cache).build();
+            assertEquals(1, ch.read(ByteBuffer.allocate(1), 0));
+        }
+        verify(store.s3, times(1)).getObject(any(GetObjectRequest.class));
+    }
+}
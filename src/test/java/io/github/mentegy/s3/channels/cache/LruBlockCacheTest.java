@@ -0,0 +1,136 @@
+package io.github.mentegy.s3.channels.cache;
+
+import io.github.mentegy.s3.channels.util.DirectSlabBlockAllocator;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@Tag("fast")
+class LruBlockCacheTest {
+
+    private static BlockKey key(long index) {
+        return new BlockKey("bucket", "key", index);
+    }
+
+    private static ByteBuffer block(int size, int value) {
+        ByteBuffer b = ByteBuffer.allocate(size);
+        while (b.hasRemaining()) {
+            b.put((byte) value);
+        }
+        b.flip();
+        return b;
+    }
+
+    @Test
+    void testReadAndPut() {
+        LruBlockCache cache = new LruBlockCache(100, 10);
+        assertEquals(10, cache.blockSize());
+        ByteBuffer dst = ByteBuffer.allocate(4);
+
+        assertEquals(-1, cache.read(key(0), 0, dst));
+        cache.put(key(0), ByteBuffer.wrap(new byte[]{0, 1, 2, 3, 4, 5, 6, 7, 8, 9}));
+        assertEquals(10, cache.size());
+
+        assertEquals(4, cache.read(key(0), 3, dst));
+        assertArrayEquals(new byte[]{3, 4, 5, 6}, dst.array());
+        assertEquals(0, cache.read(key(0), 10, ByteBuffer.allocate(4)));
+        assertEquals(1, cache.misses());
+        assertEquals(2, cache.hits());
+
+        cache.invalidate(key(0));
+        assertEquals(0, cache.size());
+        assertEquals(-1, cache.read(key(0), 0, dst));
+    }
+
+    @Test
+    void testEvictsLeastRecentlyUsed() {
+        LruBlockCache cache = new LruBlockCache(30, 10);
+        cache.put(key(0), block(10, 0));
+        cache.put(key(1), block(10, 1));
+        cache.put(key(2), block(10, 2));
+
+        // touch 0, so 1 becomes eldest
+        cache.read(key(0), 0, ByteBuffer.allocate(1));
+        cache.put(key(3), block(10, 3));
+
+        assertEquals(30, cache.size());
+        assertEquals(-1, cache.read(key(1), 0, ByteBuffer.allocate(1)));
+        assertEquals(1, cache.read(key(0), 0, ByteBuffer.allocate(1)));
+        assertEquals(1, cache.read(key(3), 0, ByteBuffer.allocate(1)));
+    }
+
+    @Test
+    void testReplaceSameKey() {
+        LruBlockCache cache = new LruBlockCache(30, 10);
+        cache.put(key(0), block(10, 0));
+        cache.put(key(0), block(5, 7));
+        assertEquals(5, cache.size());
+        ByteBuffer dst = ByteBuffer.allocate(10);
+        assertEquals(5, cache.read(key(0), 0, dst));
+        assertEquals(7, dst.get(4));
+    }
+
+    @Test
+    void testAdmissionRejectsRareBlocks() {
+        LruBlockCache cache = new LruBlockCache(20, 10, new TinyLfuAdmissionPolicy(2));
+        for (int i = 0; i < 5; i++) {
+            cache.read(key(0), 0, ByteBuffer.allocate(1));
+            cache.read(key(1), 0, ByteBuffer.allocate(1));
+        }
+        cache.put(key(0), block(10, 0));
+        cache.put(key(1), block(10, 1));
+
+        // one-time scan must not flush frequently used blocks
+        cache.read(key(2), 0, ByteBuffer.allocate(1));
+        cache.put(key(2), block(10, 2));
+        assertEquals(-1, cache.read(key(2), 0, ByteBuffer.allocate(1)));
+        assertEquals(1, cache.read(key(0), 0, ByteBuffer.allocate(1)));
+        assertEquals(1, cache.read(key(1), 0, ByteBuffer.allocate(1)));
+    }
+
+    @Test
+    void testOffHeapBlocksAreReleasedOnEviction() {
+        DirectSlabBlockAllocator allocator = new DirectSlabBlockAllocator(10, 2, 1);
+        LruBlockCache cache = new LruBlockCache(20, allocator);
+        assertEquals(10, cache.blockSize());
+
+        cache.put(key(0), block(10, 0));
+        cache.put(key(1), block(10, 1));
+        assertEquals(0, allocator.freeBlocks());
+
+        // would throw if evicted block was not given back
+        cache.put(key(2), block(7, 2));
+        assertEquals(17, cache.size());
+        ByteBuffer dst = ByteBuffer.allocate(10);
+        assertEquals(7, cache.read(key(2), 0, dst));
+        assertEquals(2, dst.get(6));
+
+        cache.invalidate(key(1));
+        assertEquals(1, allocator.freeBlocks());
+    }
+
+    @Test
+    void testShortBlocksDoNotExhaustAllocator() {
+        // slabs fit exactly the capacity in full blocks, short blocks leave byte capacity unused
+        DirectSlabBlockAllocator allocator = new DirectSlabBlockAllocator(10, 2, 2);
+        LruBlockCache cache = new LruBlockCache(40, allocator);
+        for (int i = 0; i < 10; i++) {
+            cache.put(key(i), block(3, i));
+        }
+        assertEquals(2, allocator.slabs());
+        assertEquals(12, cache.size());
+        ByteBuffer dst = ByteBuffer.allocate(3);
+        assertEquals(3, cache.read(key(9), 0, dst));
+        assertArrayEquals(block(3, 9).array(), dst.array());
+        assertEquals(-1, cache.read(key(5), 0, dst));
+    }
+
+    @Test
+    void testInvalidArgs() {
+        assertThrows(IllegalArgumentException.class, () -> new LruBlockCache(5, 10));
+        assertThrows(IllegalArgumentException.class, () -> new LruBlockCache(100, 10).put(key(0), block(11, 0)));
+    }
+}
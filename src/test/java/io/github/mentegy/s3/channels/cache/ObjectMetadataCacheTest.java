@@ -0,0 +1,82 @@
+package io.github.mentegy.s3.channels.cache;
+
+import com.amazonaws.services.s3.model.ObjectMetadata;
+import io.github.mentegy.s3.channels.testutils.InMemoryS3;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@Tag("fast")
+class ObjectMetadataCacheTest {
+
+    private final InMemoryS3 store = new InMemoryS3()
+            .put("bucket", "dir/a", new byte[10])
+            .put("bucket", "dir/b", new byte[20])
+            .put("bucket", "other", new byte[30]);
+
+    @Test
+    void testGet() {
+        ObjectMetadataCache cache = new ObjectMetadataCache(1, TimeUnit.MINUTES);
+        assertNull(cache.getIfPresent("bucket", "dir/a"));
+        assertEquals(10, cache.get(store.s3, "bucket", "dir/a").getContentLength());
+        assertEquals(10, cache.get(store.s3, "bucket", "dir/a").getContentLength());
+        verify(store.s3, times(1)).getObjectMetadata("bucket", "dir/a");
+
+        cache.invalidate("bucket", "dir/a");
+        assertNull(cache.getIfPresent("bucket", "dir/a"));
+        cache.get(store.s3, "bucket", "dir/a");
+        verify(store.s3, times(2)).getObjectMetadata("bucket", "dir/a");
+    }
+
+    @Test
+    void testExpiration() {
+        ObjectMetadataCache cache = new ObjectMetadataCache(0, TimeUnit.MILLISECONDS);
+        cache.put("bucket", "key", new ObjectMetadata());
+        assertNull(cache.getIfPresent("bucket", "key"));
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    void testMaxEntries() {
+        ObjectMetadataCache cache = new ObjectMetadataCache(1, TimeUnit.MINUTES, 2);
+        cache.put("bucket", "a", new ObjectMetadata());
+        cache.put("bucket", "b", new ObjectMetadata());
+        cache.put("bucket", "c", new ObjectMetadata());
+        assertEquals(2, cache.size());
+    }
+
+    @Test
+    void testPrewarm() throws Exception {
+        ObjectMetadataCache cache = new ObjectMetadataCache(1, TimeUnit.MINUTES);
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        cache.get(store.s3, "bucket", "dir/a");
+
+        cache.prewarm(store.s3, "bucket", Arrays.asList("dir/a", "dir/b", "other"), executor).get();
+        assertEquals(20, cache.getIfPresent("bucket", "dir/b").getContentLength());
+        assertEquals(30, cache.getIfPresent("bucket", "other").getContentLength());
+        // already cached entry is not requested again
+        verify(store.s3, times(1)).getObjectMetadata("bucket", "dir/a");
+
+        assertThrows(ExecutionException.class, () ->
+                cache.prewarm(store.s3, "bucket", Arrays.asList("missing"), executor).get());
+        executor.shutdown();
+    }
+
+    @Test
+    void testPrewarmPrefix() {
+        ObjectMetadataCache cache = new ObjectMetadataCache(1, TimeUnit.MINUTES);
+        assertEquals(2, cache.prewarmPrefix(store.s3, "bucket", "dir/"));
+        assertEquals(10, cache.getIfPresent("bucket", "dir/a").getContentLength());
+        assertNotNull(cache.getIfPresent("bucket", "dir/b").getETag());
+        assertNull(cache.getIfPresent("bucket", "other"));
+        verify(store.s3, never()).getObjectMetadata(anyString(), anyString());
+    }
+}
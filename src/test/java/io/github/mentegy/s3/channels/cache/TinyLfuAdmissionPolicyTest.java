@@ -0,0 +1,42 @@
+package io.github.mentegy.s3.channels.cache;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@Tag("fast")
+class TinyLfuAdmissionPolicyTest {
+
+    @Test
+    void testFrequencyAndAdmission() {
+        TinyLfuAdmissionPolicy policy = new TinyLfuAdmissionPolicy(100);
+        BlockKey hot = new BlockKey("b", "k", 1);
+        BlockKey cold = new BlockKey("b", "k", 2);
+
+        for (int i = 0; i < 5; i++) {
+            policy.record(hot);
+        }
+        policy.record(cold);
+
+        assertTrue(policy.frequency(hot) >= 5);
+        assertTrue(policy.admit(hot, cold));
+        assertFalse(policy.admit(cold, hot));
+    }
+
+    @Test
+    void testCountersAreAged() {
+        TinyLfuAdmissionPolicy policy = new TinyLfuAdmissionPolicy(16);
+        BlockKey hot = new BlockKey("b", "k", 1);
+        for (int i = 0; i < 20; i++) {
+            policy.record(hot);
+        }
+        assertEquals(15, policy.frequency(hot));
+
+        // flood with other keys until counters are halved
+        for (int i = 0; i < 1000; i++) {
+            policy.record(new BlockKey("b", "other", i));
+        }
+        assertTrue(policy.frequency(hot) < 15);
+    }
+}
@@ -0,0 +1,99 @@
+package io.github.mentegy.s3.channels.impl;
+
+import com.amazonaws.services.s3.model.GetObjectRequest;
+import io.github.mentegy.s3.channels.S3ReadableObjectChannel;
+import io.github.mentegy.s3.channels.testutils.InMemoryS3;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@Tag("fast")
+class S3AdaptiveBufferedReadObjectChannelTest {
+    final String key = "S3AdaptiveBufferedReadObjectChannelTest";
+    final byte[] content = InMemoryS3.randomBytes(100_000);
+    InMemoryS3 store;
+    S3AdaptiveBufferedReadObjectChannel s3Channel;
+
+    @BeforeEach
+    void prepare() {
+        store = new InMemoryS3().put("bucket", key, content);
+        s3Channel = (S3AdaptiveBufferedReadObjectChannel) S3ReadableObjectChannel.builder()
+                .amazonS3(store.s3)
+                .bucket("bucket")
+                .key(key)
+                .buffered(8192)
+                .adaptive(256)
+                .build();
+    }
+
+    @Test
+    void testSequentialScanGrowsBlockSize() throws IOException {
+        assertEquals(256, s3Channel.currentBlockSize());
+        ByteBuffer dst = ByteBuffer.allocate(100);
+        int pos = 0;
+        while (pos < content.length) {
+            dst.clear();
+            int read = s3Channel.read(dst);
+            assertArrayEquals(Arrays.copyOfRange(content, pos, pos + read), Arrays.copyOf(dst.array(), read));
+            pos += read;
+        }
+        assertEquals(8192, s3Channel.currentBlockSize());
+        assertEquals(1.0, s3Channel.overFetchRatio(), 0.001);
+        // 256 + 512 + ... + 4096 = 7936, the rest by 8192 blocks
+        verify(store.s3, times(17)).getObject(any(GetObjectRequest.class));
+    }
+
+    @Test
+    void testRandomReadsShrinkBlockSize() throws IOException {
+        ByteBuffer dst = ByteBuffer.allocate(8192);
+        s3Channel.read(dst, 0);
+        dst.clear();
+        s3Channel.read(dst, 8192);
+        assertEquals(8192, s3Channel.currentBlockSize());
+
+        Random random = new Random();
+        ByteBuffer small = ByteBuffer.allocate(64);
+        for (int i = 0; i < 20; i++) {
+            small.clear();
+            int pos = random.nextInt(content.length - 64);
+            assertEquals(64, s3Channel.read(small, pos));
+            assertArrayEquals(Arrays.copyOfRange(content, pos, pos + 64), small.array());
+        }
+        assertTrue(s3Channel.currentBlockSize() < 8192);
+        assertTrue(s3Channel.overFetchRatio() > 1);
+    }
+
+    @Test
+    void testTailReadsAreNotCounted() throws IOException {
+        S3AdaptiveBufferedReadObjectChannel ch = (S3AdaptiveBufferedReadObjectChannel) S3ReadableObjectChannel.builder()
+                .amazonS3(store.s3)
+                .bucket("bucket")
+                .key(key)
+                .buffered(8192)
+                .adaptive(256)
+                .tailPrefetch(1000)
+                .build();
+        ByteBuffer dst = ByteBuffer.allocate(64);
+        for (int i = 0; i < 4; i++) {
+            dst.clear();
+            assertEquals(64, ch.read(dst, i * 64));
+        }
+        assertEquals(1.0, ch.overFetchRatio(), 0.001);
+        for (int i = 0; i < 10; i++) {
+            dst.clear();
+            assertEquals(64, ch.read(dst, content.length - 1000 + i * 64));
+            assertArrayEquals(Arrays.copyOfRange(content, content.length - 1000 + i * 64,
+                    content.length - 1000 + (i + 1) * 64), dst.array());
+        }
+        // footer reads do not hide over-fetch of the buffer
+        assertEquals(1.0, ch.overFetchRatio(), 0.001);
+    }
+}
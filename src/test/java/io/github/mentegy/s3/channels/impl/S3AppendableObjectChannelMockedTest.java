@@ -0,0 +1,333 @@
+package io.github.mentegy.s3.channels.impl;
+
+import com.amazonaws.AmazonServiceException;
+import com.amazonaws.services.s3.AmazonS3;
+import com.amazonaws.services.s3.model.AbortMultipartUploadRequest;
+import com.amazonaws.services.s3.model.CompleteMultipartUploadRequest;
+import com.amazonaws.services.s3.model.CompleteMultipartUploadResult;
+import com.amazonaws.services.s3.model.UploadPartRequest;
+import com.amazonaws.services.s3.model.UploadPartResult;
+import io.github.mentegy.s3.channels.S3WritableObjectChannel;
+import io.github.mentegy.s3.channels.testutils.InMemoryS3;
+import io.github.mentegy.s3.channels.util.ConcurrencyLimiter;
+import io.github.mentegy.s3.channels.util.DirectSlabBlockAllocator;
+import io.github.mentegy.s3.channels.util.InFlightLimit;
+import io.github.mentegy.s3.channels.util.PartSizePolicy;
+import io.github.mentegy.s3.channels.util.PooledBlockAllocator;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.InterruptedByTimeoutException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Tests of {@link S3AppendableObjectChannel} features which do not require real S3
+ */
+@Tag("fast")
+class S3AppendableObjectChannelMockedTest {
+    final int partSize = 1000;
+    final Map<Integer, byte[]> parts = new TreeMap<>();
+    final AtomicInteger failures = new AtomicInteger();
+    CountDownLatch uploads = new CountDownLatch(0);
+    AmazonS3 s3;
+    ExecutorService executor;
+
+    @BeforeEach
+    void prepare() {
+        s3 = mock(AmazonS3.class);
+        executor = Executors.newFixedThreadPool(4);
+        when(s3.uploadPart(any(UploadPartRequest.class))).thenAnswer(inv -> {
+            UploadPartRequest req = inv.getArgument(0);
+            uploads.await();
+            byte[] body = readAll(req.getInputStream());
+            if (failures.getAndDecrement() > 0) {
+                AmazonServiceException e = new AmazonServiceException("Please reduce your request rate.");
+                e.setStatusCode(503);
+                e.setErrorCode("SlowDown");
+                throw e;
+            }
+            synchronized (parts) {
+                parts.put(req.getPartNumber(), body);
+            }
+            UploadPartResult res = new UploadPartResult();
+            res.setPartNumber(req.getPartNumber());
+            res.setETag("etag-" + req.getPartNumber());
+            return res;
+        });
+        when(s3.completeMultipartUpload(any(CompleteMultipartUploadRequest.class)))
+                .thenReturn(new CompleteMultipartUploadResult());
+    }
+
+    @AfterEach
+    void cleanup() {
+        executor.shutdown();
+    }
+
+    private static byte[] readAll(InputStream is) {
+        try {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            byte[] buf = new byte[256];
+            int n;
+            while ((n = is.read(buf)) > 0) {
+                out.write(buf, 0, n);
+            }
+            return out.toByteArray();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private byte[] uploaded() {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        parts.values().forEach(p -> out.write(p, 0, p.length));
+        return out.toByteArray();
+    }
+
+    @Test
+    void testPooledPartBuffers() {
+        PooledBlockAllocator pool = new PooledBlockAllocator(partSize, 8);
+        byte[] content = InMemoryS3.randomBytes(50 * partSize + 123);
+        for (int round = 0; round < 2; round++) {
+            parts.clear();
+            clearInvocations(s3);
+            S3WritableObjectChannel ch = S3WritableObjectChannel.builder()
+                    .amazonS3(s3)
+                    .bucket("bucket")
+                    .key("key")
+                    .uploadId("upload")
+                    .partSize(partSize)
+                    .executorService(executor)
+                    .partAllocator(pool)
+                    .build();
+            for (int i = 0; i < content.length; i += 100) {
+                ch.write(ByteBuffer.wrap(content, i, Math.min(100, content.length - i)));
+                // let the previous part be uploaded, so its buffer is back in the pool
+                verify(s3, timeout(1000).times(i / partSize)).uploadPart(any(UploadPartRequest.class));
+            }
+            ch.close();
+            assertArrayEquals(content, uploaded());
+        }
+        assertTrue(pool.allocated() <= 3, "allocated " + pool.allocated());
+        assertTrue(pool.pooled() > 0);
+        assertThrows(IllegalArgumentException.class, () -> S3WritableObjectChannel.builder()
+                .amazonS3(s3)
+                .bucket("bucket")
+                .key("key")
+                .uploadId("upload")
+                .partSize(partSize)
+                .executorService(executor)
+                .partAllocator(new PooledBlockAllocator(partSize + 1, 1))
+                .build());
+    }
+
+    @Test
+    void testFailedPartIsRetriedWithBackoff() {
+        failures.set(3);
+        ConcurrencyLimiter limiter = new ConcurrencyLimiter(4, 1, 8, 0.5, 1, 5, TimeUnit.MILLISECONDS);
+        byte[] content = InMemoryS3.randomBytes(5 * partSize);
+        S3WritableObjectChannel ch = S3WritableObjectChannel.builder()
+                .amazonS3(s3)
+                .bucket("bucket")
+                .key("key")
+                .uploadId("upload")
+                .partSize(partSize)
+                .executorService(executor)
+                .failedPartUploadRetries(3)
+                .concurrencyLimiter(limiter)
+                .build();
+        ch.write(ByteBuffer.wrap(content));
+        ch.close();
+
+        assertArrayEquals(content, uploaded());
+        verify(s3, times(8)).uploadPart(any(UploadPartRequest.class));
+        verify(s3, never()).abortMultipartUpload(any());
+        assertEquals(0, limiter.inFlight());
+    }
+
+    @Test
+    void testDirectPartBuffers() {
+        failures.set(1);
+        DirectSlabBlockAllocator allocator = new DirectSlabBlockAllocator(partSize, 4, 4);
+        byte[] content = InMemoryS3.randomBytes(7 * partSize + 10);
+        ByteBuffer src = ByteBuffer.allocateDirect(content.length);
+        src.put(content).flip();
+        S3WritableObjectChannel ch = S3WritableObjectChannel.builder()
+                .amazonS3(s3)
+                .bucket("bucket")
+                .key("key")
+                .uploadId("upload")
+                .partSize(partSize)
+                .executorService(executor)
+                .failedPartUploadRetries(1)
+                .partAllocator(allocator)
+                .delayedHeader(true)
+                .build();
+        assertEquals(content.length, ch.write(src));
+        ch.close();
+
+        // failed part is replayed from the same direct buffer
+        assertArrayEquals(content, uploaded());
+        assertEquals(4 * allocator.slabs(), allocator.freeBlocks());
+    }
+
+    @Test
+    void testInFlightLimit() {
+        uploads = new CountDownLatch(1);
+        InFlightLimit limit = new InFlightLimit(2, 10 * partSize, 50, TimeUnit.MILLISECONDS);
+        byte[] content = InMemoryS3.randomBytes(4 * partSize + 10);
+        S3WritableObjectChannel ch = S3WritableObjectChannel.builder()
+                .amazonS3(s3)
+                .bucket("bucket")
+                .key("key")
+                .uploadId("upload")
+                .partSize(partSize)
+                .executorService(executor)
+                .inFlightLimit(limit)
+                .build();
+        ByteBuffer src = ByteBuffer.wrap(content);
+
+        // two parts are in flight, the third one is current and full
+        src.limit(2 * partSize + 500);
+        assertEquals(2 * partSize + 500, ch.tryWrite(src));
+        src.limit(4 * partSize);
+        assertEquals(500, ch.tryWrite(src));
+        assertEquals(0, ch.tryWrite(src));
+        assertEquals(2, limit.parts());
+
+        UncheckedIOException e = assertThrows(UncheckedIOException.class, () -> ch.write(src));
+        assertTrue(e.getCause() instanceof InterruptedByTimeoutException);
+        assertEquals(3 * partSize, src.position());
+
+        uploads.countDown();
+        src.limit(content.length);
+        assertEquals(partSize + 10, ch.write(src));
+        ch.close();
+        assertArrayEquals(content, uploaded());
+        assertEquals(0, limit.parts());
+        assertEquals(0, limit.bytes());
+    }
+
+    @Test
+    void testSpillToDisk() throws IOException {
+        Path directory = Files.createTempDirectory("spilled-parts");
+        byte[] content = InMemoryS3.randomBytes(6 * partSize + 10);
+        S3WritableObjectChannel ch = S3WritableObjectChannel.builder()
+                .amazonS3(s3)
+                .bucket("bucket")
+                .key("key")
+                .uploadId("upload")
+                .partSize(partSize)
+                .executorService(executor)
+                .spillToDisk(directory)
+                .build();
+        assertEquals(content.length, ch.write(ByteBuffer.wrap(content)));
+        ch.close();
+
+        assertArrayEquals(content, uploaded());
+        // temporary files are deleted once parts are uploaded
+        assertEquals(0, directory.toFile().list().length);
+        Files.delete(directory);
+    }
+
+    @Test
+    void testCancelReleasesCurrentParts() throws Exception {
+        Path directory = Files.createTempDirectory("spilled-parts");
+        S3WritableObjectChannel ch = S3WritableObjectChannel.builder()
+                .amazonS3(s3)
+                .bucket("bucket")
+                .key("key")
+                .uploadId("upload")
+                .partSize(partSize)
+                .executorService(executor)
+                .spillToDisk(directory)
+                .delayedHeader(true)
+                .build();
+        assertEquals(2 * partSize + 10, ch.write(ByteBuffer.wrap(InMemoryS3.randomBytes(2 * partSize + 10))));
+        ch.cancel().get(1, TimeUnit.SECONDS);
+        verify(s3, timeout(1000)).uploadPart(any(UploadPartRequest.class));
+        // header and current part are deleted right away, uploaded part once its upload completes
+        long deadline = System.currentTimeMillis() + 1000;
+        while (directory.toFile().list().length > 0 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(0, directory.toFile().list().length);
+        assertThrows(IllegalStateException.class, () -> ch.write(ByteBuffer.allocate(1)));
+        ch.close();
+        Files.delete(directory);
+    }
+
+    @Test
+    void testFailedUploadReleasesCurrentPartOnClose() throws Exception {
+        Path directory = Files.createTempDirectory("spilled-parts");
+        failures.set(Integer.MAX_VALUE);
+        S3WritableObjectChannel ch = S3WritableObjectChannel.builder()
+                .amazonS3(s3)
+                .bucket("bucket")
+                .key("key")
+                .uploadId("upload")
+                .partSize(partSize)
+                .executorService(executor)
+                .failedPartUploadRetries(0)
+                .spillToDisk(directory)
+                .build();
+        uploads = new CountDownLatch(1);
+        assertEquals(partSize + 10, ch.write(ByteBuffer.wrap(InMemoryS3.randomBytes(partSize + 10))));
+        uploads.countDown();
+        verify(s3, timeout(1000)).abortMultipartUpload(any(AbortMultipartUploadRequest.class));
+        assertThrows(IllegalStateException.class, () -> ch.write(ByteBuffer.allocate(1)));
+        // failed part is released by its worker, current part is kept until writer gives up
+        long deadline = System.currentTimeMillis() + 1000;
+        while (directory.toFile().list().length > 1 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(1, directory.toFile().list().length);
+        ch.close();
+        assertEquals(0, directory.toFile().list().length);
+        Files.delete(directory);
+    }
+
+    @Test
+    void testGrowingPartSize() {
+        PooledBlockAllocator pool = new PooledBlockAllocator(partSize, 4);
+        InFlightLimit limit = new InFlightLimit(100, Long.MAX_VALUE);
+        byte[] content = InMemoryS3.randomBytes(20 * partSize + 1);
+        S3WritableObjectChannel ch = S3WritableObjectChannel.builder()
+                .amazonS3(s3)
+                .bucket("bucket")
+                .key("key")
+                .uploadId("upload")
+                .partSize(partSize)
+                .executorService(executor)
+                .partAllocator(pool)
+                .inFlightLimit(limit)
+                .partSizePolicy(new PartSizePolicy(partSize, 2, 1, 4 * partSize))
+                .delayedHeader(true)
+                .build();
+        assertEquals(content.length, ch.write(ByteBuffer.wrap(content)));
+        ch.close();
+
+        assertArrayEquals(content, uploaded());
+        int[] sizes = parts.values().stream().mapToInt(p -> p.length).toArray();
+        // header is the first part, body starts from the second one
+        assertArrayEquals(new int[]{1000, 2000, 4000, 4000, 4000, 4000, 1001}, sizes);
+        assertEquals(0, limit.bytes());
+    }
+}
@@ -0,0 +1,89 @@
+package io.github.mentegy.s3.channels.impl;
+
+import com.amazonaws.services.s3.model.GetObjectRequest;
+import io.github.mentegy.s3.channels.S3ReadableObjectChannel;
+import io.github.mentegy.s3.channels.cache.BlockKey;
+import io.github.mentegy.s3.channels.cache.LruBlockCache;
+import io.github.mentegy.s3.channels.testutils.InMemoryS3;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@Tag("fast")
+class S3CachedRangedReadObjectChannelTest {
+    final String key = "S3CachedRangedReadObjectChannelTest";
+    final byte[] content = InMemoryS3.randomBytes(1024);
+    InMemoryS3 store;
+    LruBlockCache cache;
+
+    @BeforeEach
+    void prepare() {
+        store = new InMemoryS3().put("bucket", key, content);
+        cache = new LruBlockCache(1024, 100);
+    }
+
+    private S3ReadableObjectChannel newChannel() {
+        return S3ReadableObjectChannel.builder()
+                .amazonS3(store.s3)
+                .bucket("bucket")
+                .key(key)
+                .blockCache(cache)
+                .build();
+    }
+
+    @Test
+    void testReadsAreServedFromSharedCache() throws IOException {
+        S3ReadableObjectChannel ch1 = newChannel();
+        S3ReadableObjectChannel ch2 = newChannel();
+
+        ByteBuffer dst = ByteBuffer.allocate(150);
+        assertEquals(74, ch1.read(dst, 950));
+        assertArrayEquals(Arrays.copyOfRange(content, 950, 1024), Arrays.copyOf(dst.array(), 74));
+        verify(store.s3, times(2)).getObject(any(GetObjectRequest.class));
+
+        dst = ByteBuffer.allocate(150);
+        assertEquals(150, ch1.read(dst, 80));
+        assertArrayEquals(Arrays.copyOfRange(content, 80, 230), dst.array());
+        verify(store.s3, times(5)).getObject(any(GetObjectRequest.class));
+
+        // other channel reuses cached blocks
+        clearInvocations(store.s3);
+        dst = ByteBuffer.allocate(100);
+        assertEquals(100, ch2.read(dst, 120));
+        assertArrayEquals(Arrays.copyOfRange(content, 120, 220), dst.array());
+        verify(store.s3, never()).getObject(any(GetObjectRequest.class));
+    }
+
+    @Test
+    void testReadUntilEnd() throws IOException {
+        S3ReadableObjectChannel ch = newChannel();
+        ByteBuffer dst = ByteBuffer.allocate(100);
+        assertEquals(24, ch.read(dst, 1000));
+        assertArrayEquals(Arrays.copyOfRange(content, 1000, 1024), Arrays.copyOf(dst.array(), 24));
+        assertEquals(0, ch.read(ByteBuffer.allocate(10), 1024));
+        assertEquals(24, cache.size());
+    }
+
+    @Test
+    void testBlocksOfModifiedObjectAreNotCachedUnderPreviousETag() throws IOException {
+        String etag = store.s3.getObjectMetadata("bucket", key).getETag();
+        S3ReadableObjectChannel ch = newChannel();
+        byte[] modified = Arrays.copyOf(content, content.length);
+        modified[0]++;
+        store.put("bucket", key, modified);
+        String modifiedEtag = store.s3.getObjectMetadata("bucket", key).getETag();
+
+        assertEquals(10, ch.read(ByteBuffer.allocate(10), 0));
+        assertEquals(-1, cache.read(new BlockKey("bucket", key, etag, 0), 0, ByteBuffer.allocate(1)));
+        ByteBuffer dst = ByteBuffer.allocate(1);
+        assertEquals(1, cache.read(new BlockKey("bucket", key, modifiedEtag, 0), 0, dst));
+        assertEquals(modified[0], dst.get(0));
+    }
+}
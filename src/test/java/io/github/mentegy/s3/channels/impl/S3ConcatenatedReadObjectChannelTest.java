@@ -0,0 +1,154 @@
+package io.github.mentegy.s3.channels.impl;
+
+import com.amazonaws.services.s3.model.GetObjectRequest;
+import io.github.mentegy.s3.channels.FileRange;
+import io.github.mentegy.s3.channels.S3ReadableObjectChannel;
+import io.github.mentegy.s3.channels.testutils.InMemoryS3;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@Tag("fast")
+class S3ConcatenatedReadObjectChannelTest {
+    final int[] sizes = {3000, 0, 1500, 4096, 1};
+    byte[] content;
+    InMemoryS3 store;
+    ExecutorService executor;
+    S3ConcatenatedReadObjectChannel s3Channel;
+
+    @BeforeEach
+    void prepare() {
+        store = new InMemoryS3();
+        content = new byte[Arrays.stream(sizes).sum()];
+        int offset = 0;
+        for (int i = 0; i < sizes.length; i++) {
+            byte[] part = InMemoryS3.randomBytes(sizes[i]);
+            System.arraycopy(part, 0, content, offset, part.length);
+            offset += part.length;
+            store.put("bucket", String.format("dataset/part-%05d", i), part);
+        }
+        store.put("bucket", "other", InMemoryS3.randomBytes(10));
+        executor = Executors.newFixedThreadPool(4);
+        s3Channel = S3ReadableObjectChannel.builder()
+                .amazonS3(store.s3)
+                .bucket("bucket")
+                .executorService(executor)
+                .buildConcatenatedPrefix("dataset/part-");
+    }
+
+    @AfterEach
+    void cleanup() {
+        s3Channel.close();
+        executor.shutdown();
+    }
+
+    @Test
+    void testSequentialRead() throws Exception {
+        assertEquals(content.length, s3Channel.size());
+        assertEquals(sizes.length, s3Channel.keys.size());
+        verify(store.s3, never()).getObjectMetadata(anyString(), anyString());
+
+        ByteBuffer dst = ByteBuffer.allocate(1000);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        int read;
+        while ((read = s3Channel.read(dst)) > 0) {
+            out.write(dst.array(), 0, read);
+            dst.clear();
+        }
+        assertArrayEquals(content, out.toByteArray());
+        assertEquals(content.length, s3Channel.position());
+        assertEquals(-1, s3Channel.read(dst));
+    }
+
+    @Test
+    void testReadAheadAcrossBoundary() throws Exception {
+        ByteBuffer dst = ByteBuffer.allocate(2999);
+        assertEquals(2999, s3Channel.read(dst, 0));
+        // the next non-empty object is already being fetched
+        dst = ByteBuffer.allocate(100);
+        assertEquals(100, s3Channel.read(dst, 2999));
+        assertArrayEquals(Arrays.copyOfRange(content, 2999, 3099), dst.array());
+        dst.clear();
+        assertEquals(100, s3Channel.read(dst, 3100));
+        assertArrayEquals(Arrays.copyOfRange(content, 3100, 3200), dst.array());
+        // 2999 bytes, the last byte of part 0 and read ahead of parts 2 and 3 (part 1 is empty)
+        verify(store.s3, timeout(1000).times(4)).getObject(any(GetObjectRequest.class));
+    }
+
+    @Test
+    void testRandomRead() throws Exception {
+        Random random = new Random();
+        for (int i = 0; i < 50; i++) {
+            int pos = random.nextInt(content.length);
+            ByteBuffer dst = ByteBuffer.allocate(random.nextInt(5000) + 1);
+            int read = s3Channel.read(dst, pos);
+            assertEquals(Math.min(dst.capacity(), content.length - pos), read);
+            assertArrayEquals(Arrays.copyOfRange(content, pos, pos + read), Arrays.copyOf(dst.array(), read));
+        }
+    }
+
+    @Test
+    void testVectoredRead() throws Exception {
+        List<FileRange> ranges = Arrays.asList(
+                new FileRange(10, 100),
+                new FileRange(2900, 200),
+                new FileRange(4600, 50),
+                new FileRange(content.length - 1, 1),
+                new FileRange(content.length - 1, 2));
+        List<CompletableFuture<ByteBuffer>> results = s3Channel.readVectored(ranges, ByteBuffer::allocate);
+        for (int i = 0; i < 4; i++) {
+            FileRange range = ranges.get(i);
+            ByteBuffer data = results.get(i).get();
+            byte[] bytes = new byte[data.remaining()];
+            data.get(bytes);
+            assertArrayEquals(Arrays.copyOfRange(content, (int) range.offset, (int) range.end()), bytes);
+        }
+        ExecutionException e = assertThrows(ExecutionException.class, () -> results.get(4).get());
+        assertTrue(e.getCause() instanceof EOFException);
+    }
+
+    @Test
+    void testTransferTo() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        assertEquals(content.length - 100, s3Channel.transferTo(100, Long.MAX_VALUE, Channels.newChannel(out),
+                1000, 2));
+        assertArrayEquals(Arrays.copyOfRange(content, 100, content.length), out.toByteArray());
+    }
+
+    @Test
+    void testBuildConcatenatedKeys() throws Exception {
+        S3ConcatenatedReadObjectChannel ch = S3ReadableObjectChannel.builder()
+                .amazonS3(store.s3)
+                .bucket("bucket")
+                .executorService(executor)
+                .buffered(512)
+                .buildConcatenated(Arrays.asList("dataset/part-00002", "dataset/part-00000"));
+        assertEquals(4500, ch.size());
+        ByteBuffer dst = ByteBuffer.allocate(4500);
+        assertEquals(4500, ch.read(dst, 0));
+        assertArrayEquals(Arrays.copyOfRange(content, 3000, 4500), Arrays.copyOf(dst.array(), 1500));
+        assertArrayEquals(Arrays.copyOfRange(content, 0, 3000), Arrays.copyOfRange(dst.array(), 1500, 4500));
+        ch.close();
+
+        assertThrows(IllegalArgumentException.class, () -> S3ReadableObjectChannel.builder()
+                .amazonS3(store.s3)
+                .bucket("bucket")
+                .buildConcatenated(Arrays.asList("dataset/part-00000")));
+    }
+}
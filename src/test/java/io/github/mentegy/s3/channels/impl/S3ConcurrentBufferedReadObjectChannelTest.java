@@ -0,0 +1,95 @@
+package io.github.mentegy.s3.channels.impl;
+
+import com.amazonaws.services.s3.model.GetObjectRequest;
+import io.github.mentegy.s3.channels.S3ReadableObjectChannel;
+import io.github.mentegy.s3.channels.testutils.InMemoryS3;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@Tag("fast")
+class S3ConcurrentBufferedReadObjectChannelTest {
+    final String key = "S3ConcurrentBufferedReadObjectChannelTest";
+    final byte[] content = InMemoryS3.randomBytes(10_000);
+    InMemoryS3 store;
+    ExecutorService executor;
+    S3ConcurrentBufferedReadObjectChannel s3Channel;
+
+    @BeforeEach
+    void prepare() {
+        store = new InMemoryS3().put("bucket", key, content);
+        executor = Executors.newFixedThreadPool(8);
+        s3Channel = (S3ConcurrentBufferedReadObjectChannel) S3ReadableObjectChannel.builder()
+                .amazonS3(store.s3)
+                .bucket("bucket")
+                .key(key)
+                .buffered(1000)
+                .concurrent(4)
+                .build();
+    }
+
+    @AfterEach
+    void cleanup() {
+        s3Channel.close();
+        executor.shutdown();
+    }
+
+    @Test
+    void testBlocksAreReused() throws IOException {
+        ByteBuffer dst = ByteBuffer.allocate(100);
+        assertEquals(100, s3Channel.read(dst, 950));
+        assertArrayEquals(Arrays.copyOfRange(content, 950, 1050), dst.array());
+        dst.clear();
+        assertEquals(100, s3Channel.read(dst, 1010));
+        assertArrayEquals(Arrays.copyOfRange(content, 1010, 1110), dst.array());
+        dst.clear();
+        assertEquals(100, s3Channel.read(dst, 0));
+        verify(store.s3, times(2)).getObject(any(GetObjectRequest.class));
+
+        // block 4 replaces block 0 in the same slot
+        dst.clear();
+        s3Channel.read(dst, 4000);
+        dst.clear();
+        s3Channel.read(dst, 0);
+        verify(store.s3, times(4)).getObject(any(GetObjectRequest.class));
+
+        dst.clear();
+        assertEquals(50, s3Channel.read(dst, 9950));
+        assertArrayEquals(Arrays.copyOfRange(content, 9950, 10_000), Arrays.copyOf(dst.array(), 50));
+    }
+
+    @Test
+    void testConcurrentReads() throws Exception {
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < 8; t++) {
+            futures.add(executor.submit(() -> {
+                Random random = new Random();
+                ByteBuffer dst = ByteBuffer.allocate(200);
+                for (int i = 0; i < 500; i++) {
+                    int pos = random.nextInt(content.length - dst.capacity());
+                    dst.clear();
+                    assertEquals(200, s3Channel.read(dst, pos));
+                    assertArrayEquals(Arrays.copyOfRange(content, pos, pos + 200), dst.array());
+                }
+                return null;
+            }));
+        }
+        for (Future<?> f : futures) {
+            f.get();
+        }
+    }
+}
@@ -0,0 +1,633 @@
+package io.github.mentegy.s3.channels.impl;
+
+import com.amazonaws.AmazonServiceException;
+import com.amazonaws.services.s3.AmazonS3;
+import com.amazonaws.services.s3.model.AmazonS3Exception;
+import com.amazonaws.services.s3.model.GetObjectRequest;
+import com.amazonaws.services.s3.model.ObjectMetadata;
+import com.amazonaws.services.s3.model.S3Object;
+import com.amazonaws.services.s3.model.S3ObjectInputStream;
+import io.github.mentegy.s3.channels.FileRange;
+import io.github.mentegy.s3.channels.S3ReadableObjectChannel;
+import io.github.mentegy.s3.channels.cache.ObjectMetadataCache;
+import io.github.mentegy.s3.channels.testutils.InMemoryS3;
+import io.github.mentegy.s3.channels.util.ConcurrencyLimiter;
+import io.github.mentegy.s3.channels.util.HedgePolicy;
+import io.github.mentegy.s3.channels.util.TestException;
+import org.apache.http.client.methods.HttpGet;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Tests of {@link S3RangedReadObjectChannel} features which do not require real S3
+ */
+@Tag("fast")
+class S3RangedReadObjectChannelMockedTest {
+    final String key = "S3RangedReadObjectChannelMockedTest";
+    final byte[] content = InMemoryS3.randomBytes(10_000);
+    InMemoryS3 store;
+    ExecutorService executor;
+
+    @BeforeEach
+    void prepare() {
+        store = new InMemoryS3().put("bucket", key, content);
+        executor = Executors.newFixedThreadPool(4);
+    }
+
+    @AfterEach
+    void cleanup() {
+        executor.shutdown();
+    }
+
+    @Test
+    void testSplitRead() throws IOException {
+        S3ReadableObjectChannel ch = S3ReadableObjectChannel.builder()
+                .amazonS3(store.s3)
+                .bucket("bucket")
+                .key(key)
+                .executorService(executor)
+                .splitSize(1000)
+                .build();
+
+        ByteBuffer dst = ByteBuffer.allocateDirect(5500);
+        assertEquals(5500, ch.read(dst, 1234));
+        assertFalse(dst.hasRemaining());
+        byte[] actual = new byte[5500];
+        dst.flip();
+        dst.get(actual);
+        assertArrayEquals(Arrays.copyOfRange(content, 1234, 6734), actual);
+        verify(store.s3, times(6)).getObject(any(GetObjectRequest.class));
+
+        // read is clipped by object size
+        ByteBuffer tail = ByteBuffer.allocate(3000);
+        tail.position(10);
+        assertEquals(2500, ch.read(tail, 7500));
+        assertEquals(2510, tail.position());
+        assertArrayEquals(Arrays.copyOfRange(content, 7500, 10_000), Arrays.copyOfRange(tail.array(), 10, 2510));
+
+        // small reads are not split
+        clearInvocations(store.s3);
+        assertEquals(1000, ch.read(ByteBuffer.allocate(1000), 0));
+        verify(store.s3, times(1)).getObject(any(GetObjectRequest.class));
+    }
+
+    @Test
+    void testSplitReadFailure() {
+        S3ReadableObjectChannel ch = S3ReadableObjectChannel.builder()
+                .amazonS3(store.s3)
+                .bucket("bucket")
+                .key(key)
+                .executorService(executor)
+                .splitSize(1000)
+                .build();
+        when(store.s3.getObject(any(GetObjectRequest.class))).thenThrow(new TestException());
+        assertThrows(TestException.class, () -> ch.read(ByteBuffer.allocate(5000), 0));
+    }
+
+    @Test
+    void testFailedSplitReadAwaitsRunningParts() throws Exception {
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger started = new AtomicInteger();
+        AmazonS3 s3 = mock(AmazonS3.class);
+        when(s3.getObjectMetadata(anyString(), anyString())).thenAnswer(inv ->
+                store.s3.getObjectMetadata(inv.getArgument(0), inv.getArgument(1)));
+        when(s3.getObject(any(GetObjectRequest.class))).thenAnswer(inv -> {
+            GetObjectRequest req = inv.getArgument(0);
+            started.incrementAndGet();
+            if (req.getRange()[0] == 0) {
+                throw new TestException();
+            }
+            running.incrementAndGet();
+            try {
+                Thread.sleep(200);
+                return store.s3.getObject(req);
+            } finally {
+                running.decrementAndGet();
+            }
+        });
+        S3ReadableObjectChannel ch = S3ReadableObjectChannel.builder()
+                .amazonS3(s3)
+                .bucket("bucket")
+                .key(key)
+                .executorService(executor)
+                .splitSize(1000)
+                .build();
+        assertThrows(TestException.class, () -> ch.read(ByteBuffer.allocate(10_000), 0));
+        // parts which were running are done, queued ones are skipped once failure is seen
+        assertEquals(0, running.get());
+        Thread.sleep(300);
+        assertTrue(started.get() < 10);
+    }
+
+    @Test
+    void testOpenWithMetadataCache() throws IOException {
+        ObjectMetadataCache cache = new ObjectMetadataCache(1, TimeUnit.MINUTES);
+        for (int i = 0; i < 3; i++) {
+            S3ReadableObjectChannel ch = S3ReadableObjectChannel.builder()
+                    .amazonS3(store.s3)
+                    .bucket("bucket")
+                    .key(key)
+                    .metadataCache(cache)
+                    .build();
+            assertEquals(content.length, ch.size());
+            ByteBuffer dst = ByteBuffer.allocate(10);
+            assertEquals(10, ch.read(dst, 20));
+            assertArrayEquals(Arrays.copyOfRange(content, 20, 30), dst.array());
+        }
+        verify(store.s3, times(1)).getObjectMetadata("bucket", key);
+    }
+
+    @Test
+    void testLazyOpen() throws IOException {
+        S3ReadableObjectChannel ch = S3ReadableObjectChannel.builder()
+                .amazonS3(store.s3)
+                .bucket("bucket")
+                .key(key)
+                .lazyOpen(true)
+                .build();
+        verifyZeroInteractions(store.s3);
+        assertTrue(ch.isOpen());
+
+        ch.position(100);
+        ByteBuffer dst = ByteBuffer.allocate(50);
+        assertEquals(50, ch.read(dst));
+        assertArrayEquals(Arrays.copyOfRange(content, 100, 150), dst.array());
+        assertEquals(150, ch.position());
+
+        // size is resolved from the first GET
+        assertEquals(content.length, ch.size());
+        verify(store.s3, never()).getObjectMetadata(anyString(), anyString());
+        verify(store.s3, times(1)).getObject(any(GetObjectRequest.class));
+
+        // next requests are guarded by resolved ETag
+        store.put("bucket", key, InMemoryS3.randomBytes(500));
+        assertThrows(ObjectModifiedException.class, () -> ch.read(ByteBuffer.allocate(10), 0));
+        ch.close();
+        assertFalse(ch.isOpen());
+    }
+
+    @Test
+    void testLazyOpenSizeBeforeRead() throws IOException {
+        ObjectMetadataCache cache = new ObjectMetadataCache(1, TimeUnit.MINUTES);
+        S3ReadableObjectChannel ch = S3ReadableObjectChannel.builder()
+                .amazonS3(store.s3)
+                .bucket("bucket")
+                .key(key)
+                .lazyOpen(true)
+                .metadataCache(cache)
+                .buffered(100)
+                .build();
+        assertEquals(content.length, ch.size());
+        verify(store.s3, times(1)).getObjectMetadata("bucket", key);
+        assertEquals(10, ch.read(ByteBuffer.allocate(10), content.length - 10));
+    }
+
+    @Test
+    void testLazyOpenPopulatesMetadataCache() throws IOException {
+        ObjectMetadataCache cache = new ObjectMetadataCache(1, TimeUnit.MINUTES);
+        S3ReadableObjectChannel ch = S3ReadableObjectChannel.builder()
+                .amazonS3(store.s3)
+                .bucket("bucket")
+                .key(key)
+                .lazyOpen(true)
+                .metadataCache(cache)
+                .build();
+        assertEquals(10, ch.read(ByteBuffer.allocate(10), 0));
+        assertEquals(content.length, cache.getIfPresent("bucket", key).getContentLength());
+        verify(store.s3, never()).getObjectMetadata(anyString(), anyString());
+    }
+
+    @Test
+    void testModifiedObjectInvalidatesCachedMetadata() throws IOException {
+        ObjectMetadataCache cache = new ObjectMetadataCache(1, TimeUnit.MINUTES);
+        S3ReadableObjectChannel ch = S3ReadableObjectChannel.builder()
+                .amazonS3(store.s3)
+                .bucket("bucket")
+                .key(key)
+                .metadataCache(cache)
+                .buffered(100)
+                .build();
+        assertEquals(100, ch.read(ByteBuffer.allocate(100), 0));
+
+        store.put("bucket", key, InMemoryS3.randomBytes(500));
+        assertThrows(ObjectModifiedException.class, () -> ch.read(ByteBuffer.allocate(100), 500));
+        assertNull(cache.getIfPresent("bucket", key));
+    }
+
+    @Test
+    void testScatteringRead() throws IOException {
+        S3ReadableObjectChannel ch = S3ReadableObjectChannel.builder()
+                .amazonS3(store.s3)
+                .bucket("bucket")
+                .key(key)
+                .build();
+
+        ByteBuffer header = ByteBuffer.allocate(16);
+        ByteBuffer empty = ByteBuffer.allocate(0);
+        ByteBuffer body = ByteBuffer.allocateDirect(100);
+        ch.position(500);
+        assertEquals(116, ch.read(new ByteBuffer[]{header, empty, body}));
+        assertEquals(616, ch.position());
+        assertArrayEquals(Arrays.copyOfRange(content, 500, 516), header.array());
+        byte[] actual = new byte[100];
+        body.flip();
+        body.get(actual);
+        assertArrayEquals(Arrays.copyOfRange(content, 516, 616), actual);
+        verify(store.s3, times(1)).getObject(any(GetObjectRequest.class));
+
+        // clipped by object size, last buffer is not touched
+        ByteBuffer[] dsts = {ByteBuffer.allocate(5), ByteBuffer.allocate(10), ByteBuffer.allocate(10)};
+        assertEquals(13, ch.read(dsts, 1, 2, 9987));
+        assertEquals(0, dsts[0].position());
+        assertEquals(10, dsts[1].position());
+        assertEquals(3, dsts[2].position());
+        assertArrayEquals(Arrays.copyOfRange(content, 9987, 9997), dsts[1].array());
+        assertEquals(-1, ch.read(new ByteBuffer[]{ByteBuffer.allocate(1)}, 0, 1, 10_000));
+        assertEquals(616, ch.position());
+
+        assertThrows(IndexOutOfBoundsException.class, () -> ch.read(dsts, 2, 2));
+    }
+
+    void assertRange(FileRange range, CompletableFuture<ByteBuffer> data) throws Exception {
+        ByteBuffer buf = data.get(5, TimeUnit.SECONDS);
+        byte[] actual = new byte[buf.remaining()];
+        buf.get(actual);
+        assertArrayEquals(Arrays.copyOfRange(content, (int) range.offset, (int) range.end()), actual);
+    }
+
+    @Test
+    void testVectoredRead() throws Exception {
+        S3ReadableObjectChannel ch = S3ReadableObjectChannel.builder()
+                .amazonS3(store.s3)
+                .bucket("bucket")
+                .key(key)
+                .executorService(executor)
+                .build();
+
+        List<FileRange> ranges = Arrays.asList(
+                new FileRange(5000, 100),
+                new FileRange(0, 10),
+                new FileRange(20, 10),
+                new FileRange(25, 15),
+                new FileRange(9990, 20));
+        List<CompletableFuture<ByteBuffer>> data = ch.readVectored(ranges, ByteBuffer::allocate, 100, 1000);
+        assertEquals(5, data.size());
+        for (int i = 0; i < 4; i++) {
+            assertRange(ranges.get(i), data.get(i));
+        }
+        ExecutionException e = assertThrows(ExecutionException.class, () -> data.get(4).get(5, TimeUnit.SECONDS));
+        assertTrue(e.getCause() instanceof java.io.EOFException);
+        // [0, 40), [5000, 5100) and [9990, 10000)
+        verify(store.s3, times(3)).getObject(any(GetObjectRequest.class));
+        assertEquals(0, ch.position());
+
+        // merged size limit, without executor
+        clearInvocations(store.s3);
+        S3ReadableObjectChannel sync = S3ReadableObjectChannel.builder()
+                .amazonS3(store.s3)
+                .bucket("bucket")
+                .key(key)
+                .build();
+        ranges = Arrays.asList(new FileRange(0, 400), new FileRange(400, 400), new FileRange(800, 400));
+        List<CompletableFuture<ByteBuffer>> direct = sync.readVectored(ranges, ByteBuffer::allocateDirect, 0, 800);
+        for (int i = 0; i < 3; i++) {
+            assertTrue(direct.get(i).isDone());
+            assertRange(ranges.get(i), direct.get(i));
+        }
+        verify(store.s3, times(2)).getObject(any(GetObjectRequest.class));
+    }
+
+    @Test
+    void testTailPrefetch() throws IOException {
+        S3ReadableObjectChannel ch = S3ReadableObjectChannel.builder()
+                .amazonS3(store.s3)
+                .bucket("bucket")
+                .key(key)
+                .tailPrefetch(1000)
+                .build();
+        verify(store.s3, never()).getObjectMetadata(anyString(), anyString());
+        verify(store.s3, times(1)).getObject(any(GetObjectRequest.class));
+        assertEquals(10_000, ch.size());
+
+        ByteBuffer footer = ByteBuffer.allocate(8);
+        assertEquals(8, ch.read(footer, 9992));
+        assertArrayEquals(Arrays.copyOfRange(content, 9992, 10_000), footer.array());
+        ByteBuffer meta = ByteBuffer.allocate(500);
+        assertEquals(500, ch.read(meta, 9000));
+        assertArrayEquals(Arrays.copyOfRange(content, 9000, 9500), meta.array());
+        verify(store.s3, times(1)).getObject(any(GetObjectRequest.class));
+
+        ByteBuffer dst = ByteBuffer.allocate(100);
+        assertEquals(100, ch.read(dst, 8950));
+        assertArrayEquals(Arrays.copyOfRange(content, 8950, 9050), dst.array());
+        verify(store.s3, times(2)).getObject(any(GetObjectRequest.class));
+
+        // tail bigger than object
+        S3ReadableObjectChannel buffered = S3ReadableObjectChannel.builder()
+                .amazonS3(new InMemoryS3().put("bucket", key, Arrays.copyOf(content, 10)).s3)
+                .bucket("bucket")
+                .key(key)
+                .buffered(4)
+                .tailPrefetch(64)
+                .build();
+        assertEquals(10, buffered.size());
+        dst = ByteBuffer.allocate(10);
+        assertEquals(10, buffered.read(dst, 0));
+        assertArrayEquals(Arrays.copyOf(content, 10), dst.array());
+
+        // missing metadata is resolved by suffix GET and cached, not by HEAD request
+        clearInvocations(store.s3);
+        ObjectMetadataCache metadataCache = new ObjectMetadataCache(10, TimeUnit.MINUTES);
+        for (int i = 0; i < 2; i++) {
+            ch = S3ReadableObjectChannel.builder()
+                    .amazonS3(store.s3)
+                    .bucket("bucket")
+                    .key(key)
+                    .metadataCache(metadataCache)
+                    .tailPrefetch(1000)
+                    .build();
+            assertEquals(10_000, ch.size());
+            footer.clear();
+            assertEquals(8, ch.read(footer, 9992));
+            assertArrayEquals(Arrays.copyOfRange(content, 9992, 10_000), footer.array());
+        }
+        verify(store.s3, never()).getObjectMetadata(anyString(), anyString());
+        verify(store.s3, times(2)).getObject(any(GetObjectRequest.class));
+        assertNotNull(metadataCache.getIfPresent("bucket", key));
+
+        // empty object
+        InMemoryS3 empty = new InMemoryS3().put("bucket", key, new byte[0]);
+        ch = S3ReadableObjectChannel.builder()
+                .amazonS3(empty.s3)
+                .bucket("bucket")
+                .key(key)
+                .tailPrefetch(64)
+                .build();
+        assertEquals(0, ch.size());
+    }
+
+    @Test
+    void testTransferToFileChannel() throws IOException {
+        S3ReadableObjectChannel ch = S3ReadableObjectChannel.builder()
+                .amazonS3(store.s3)
+                .bucket("bucket")
+                .key(key)
+                .executorService(executor)
+                .build();
+        Path file = Files.createTempFile("S3RangedReadObjectChannelMockedTest", ".bin");
+        try (FileChannel fc = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            fc.position(10);
+            assertEquals(9000, ch.transferTo(1000, 20_000, fc, 1000, 3));
+            assertEquals(9010, fc.position());
+        }
+        byte[] actual = Files.readAllBytes(file);
+        assertArrayEquals(Arrays.copyOfRange(content, 1000, 10_000), Arrays.copyOfRange(actual, 10, 9010));
+        verify(store.s3, times(9)).getObject(any(GetObjectRequest.class));
+        Files.delete(file);
+        assertEquals(0, ch.position());
+    }
+
+    @Test
+    void testTransferToOrderedChannel() throws IOException {
+        S3ReadableObjectChannel ch = S3ReadableObjectChannel.builder()
+                .amazonS3(store.s3)
+                .bucket("bucket")
+                .key(key)
+                .executorService(executor)
+                .build();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        assertEquals(7001, ch.transferTo(1234, 7001, Channels.newChannel(out), 700, 4));
+        assertArrayEquals(Arrays.copyOfRange(content, 1234, 8235), out.toByteArray());
+        verify(store.s3, times(11)).getObject(any(GetObjectRequest.class));
+
+        // no executor, whole object
+        out.reset();
+        S3ReadableObjectChannel sync = S3ReadableObjectChannel.builder()
+                .amazonS3(store.s3)
+                .bucket("bucket")
+                .key(key)
+                .build();
+        assertEquals(10_000, sync.transferTo(0, Long.MAX_VALUE - 1, Channels.newChannel(out)));
+        assertArrayEquals(content, out.toByteArray());
+        assertEquals(0, sync.transferTo(10_000, 10, Channels.newChannel(out)));
+    }
+
+    @Test
+    void testTransferToRejectsInvalidArguments() {
+        S3ReadableObjectChannel ch = S3ReadableObjectChannel.builder()
+                .amazonS3(store.s3)
+                .bucket("bucket")
+                .key(key)
+                .build();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        assertThrows(IllegalArgumentException.class, () -> ch.transferTo(0, 100, Channels.newChannel(out), 0, 4));
+        assertThrows(IllegalArgumentException.class, () -> ch.transferTo(0, 100, Channels.newChannel(out), -1, 4));
+        assertThrows(IllegalArgumentException.class, () -> ch.transferTo(0, 100, Channels.newChannel(out), 100, 0));
+        verify(store.s3, never()).getObject(any(GetObjectRequest.class));
+    }
+
+    @Test
+    void testFailedTransferStopsRunningParts() throws Exception {
+        int partSize = 512 * 1024;
+        byte[] big = InMemoryS3.randomBytes(2 * partSize);
+        AtomicLong served = new AtomicLong();
+        List<S3Object> responses = new CopyOnWriteArrayList<>();
+        AmazonS3 s3 = mock(AmazonS3.class);
+        when(s3.getObjectMetadata(anyString(), anyString())).thenAnswer(inv -> {
+            ObjectMetadata metadata = new ObjectMetadata();
+            metadata.setContentLength(big.length);
+            return metadata;
+        });
+        when(s3.getObject(any(GetObjectRequest.class))).thenAnswer(inv -> {
+            long[] range = inv.<GetObjectRequest>getArgument(0).getRange();
+            if (range[0] == 0) {
+                Thread.sleep(20);
+                throw new AmazonS3Exception("Internal Error");
+            }
+            // second part trickles slowly
+            InputStream slow = new ByteArrayInputStream(big, (int) range[0], (int) (range[1] - range[0] + 1)) {
+                @Override
+                public synchronized int read(byte[] b, int off, int len) {
+                    try {
+                        Thread.sleep(10);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                    int n = super.read(b, off, Math.min(len, 16 * 1024));
+                    served.addAndGet(Math.max(n, 0));
+                    return n;
+                }
+            };
+            S3Object object = new S3Object();
+            object.setObjectContent(new S3ObjectInputStream(slow, new HttpGet()));
+            responses.add(object);
+            return object;
+        });
+        S3ReadableObjectChannel ch = S3ReadableObjectChannel.builder()
+                .amazonS3(s3)
+                .bucket("bucket")
+                .key(key)
+                .executorService(executor)
+                .build();
+        Path file = Files.createTempFile("S3RangedReadObjectChannelMockedTest", ".bin");
+        try (FileChannel fc = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            assertThrows(AmazonS3Exception.class, () -> ch.transferTo(0, big.length, fc, partSize, 2));
+            long deadline = System.currentTimeMillis() + 1000;
+            while (!(responses.size() == 1 && isAborted(responses.get(0))) && System.currentTimeMillis() < deadline) {
+                Thread.sleep(10);
+            }
+        }
+        assertTrue(isAborted(responses.get(0)));
+        assertTrue(served.get() < partSize);
+        Files.delete(file);
+    }
+
+    @Test
+    void testHedgedRead() throws Exception {
+        AtomicInteger calls = new AtomicInteger();
+        AmazonS3 slow = mock(AmazonS3.class);
+        when(slow.getObjectMetadata(anyString(), anyString())).thenAnswer(inv ->
+                store.s3.getObjectMetadata(inv.getArgument(0), inv.getArgument(1)));
+        when(slow.getObject(any(GetObjectRequest.class))).thenAnswer(inv -> {
+            // request right after warm up stalls
+            if (calls.incrementAndGet() == HedgePolicy.MIN_SAMPLES + 1) {
+                Thread.sleep(2000);
+            }
+            return store.s3.getObject(inv.<GetObjectRequest>getArgument(0));
+        });
+        HedgePolicy policy = new HedgePolicy(executor, 0.9, 0.5, 10, TimeUnit.MILLISECONDS, 100);
+        S3ReadableObjectChannel ch = S3ReadableObjectChannel.builder()
+                .amazonS3(slow)
+                .bucket("bucket")
+                .key(key)
+                .hedge(policy)
+                .build();
+
+        ByteBuffer dst = ByteBuffer.allocate(100);
+        for (int i = 0; i < HedgePolicy.MIN_SAMPLES; i++) {
+            dst.clear();
+            assertEquals(100, ch.read(dst, i * 100));
+        }
+        assertEquals(0, policy.hedges());
+
+        long started = System.nanoTime();
+        dst.clear();
+        assertEquals(100, ch.read(dst, 5000));
+        assertTrue(System.nanoTime() - started < TimeUnit.MILLISECONDS.toNanos(1500));
+        assertArrayEquals(Arrays.copyOfRange(content, 5000, 5100), dst.array());
+        assertEquals(1, policy.hedges());
+        ArgumentCaptor<GetObjectRequest> requests = ArgumentCaptor.forClass(GetObjectRequest.class);
+        verify(slow, times(HedgePolicy.MIN_SAMPLES + 2)).getObject(requests.capture());
+        // both copies are pinned to the same version, though channel is opened eagerly without metadata cache
+        String etag = store.s3.getObjectMetadata("bucket", key).getETag();
+        for (GetObjectRequest req : requests.getAllValues()) {
+            assertEquals(Collections.singletonList(etag), req.getMatchingETagConstraints());
+        }
+    }
+
+    @Test
+    void testInterruptedHedgedReadAbortsResponse() throws Exception {
+        List<S3Object> responses = new CopyOnWriteArrayList<>();
+        AmazonS3 slow = mock(AmazonS3.class);
+        when(slow.getObjectMetadata(anyString(), anyString())).thenAnswer(inv ->
+                store.s3.getObjectMetadata(inv.getArgument(0), inv.getArgument(1)));
+        when(slow.getObject(any(GetObjectRequest.class))).thenAnswer(inv -> {
+            Thread.sleep(300);
+            S3Object object = store.s3.getObject(inv.<GetObjectRequest>getArgument(0));
+            responses.add(object);
+            return object;
+        });
+        S3ReadableObjectChannel ch = S3ReadableObjectChannel.builder()
+                .amazonS3(slow)
+                .bucket("bucket")
+                .key(key)
+                .hedge(new HedgePolicy(executor, 0.9, 0.5))
+                .build();
+
+        CompletableFuture<Throwable> failure = new CompletableFuture<>();
+        Thread reader = new Thread(() -> {
+            try {
+                ch.read(ByteBuffer.allocate(100), 0);
+                failure.complete(null);
+            } catch (Throwable e) {
+                failure.complete(e);
+            }
+        });
+        reader.start();
+        Thread.sleep(50);
+        reader.interrupt();
+        assertNotNull(failure.get(1, TimeUnit.SECONDS));
+
+        // late response of abandoned request is aborted once it arrives
+        long deadline = System.currentTimeMillis() + 1000;
+        while (!(responses.size() == 1 && isAborted(responses.get(0))) && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        verify(slow, times(1)).getObject(any(GetObjectRequest.class));
+        assertEquals(1, responses.size());
+        assertTrue(isAborted(responses.get(0)));
+    }
+
+    private static boolean isAborted(S3Object object) {
+        return ((S3ObjectInputStream) object.getObjectContent()).getHttpRequest().isAborted();
+    }
+
+    @Test
+    void testThrottledReadIsRetried() throws Exception {
+        AtomicInteger calls = new AtomicInteger();
+        AmazonS3 throttled = mock(AmazonS3.class);
+        when(throttled.getObjectMetadata(anyString(), anyString())).thenAnswer(inv ->
+                store.s3.getObjectMetadata(inv.getArgument(0), inv.getArgument(1)));
+        when(throttled.getObject(any(GetObjectRequest.class))).thenAnswer(inv -> {
+            if (calls.incrementAndGet() == 1) {
+                AmazonServiceException e = new AmazonServiceException("Please reduce your request rate.");
+                e.setStatusCode(503);
+                e.setErrorCode("SlowDown");
+                throw e;
+            }
+            return store.s3.getObject(inv.<GetObjectRequest>getArgument(0));
+        });
+        ConcurrencyLimiter limiter = new ConcurrencyLimiter(8, 1, 16, 0.5, 1, 10, TimeUnit.MILLISECONDS);
+        S3ReadableObjectChannel ch = S3ReadableObjectChannel.builder()
+                .amazonS3(throttled)
+                .bucket("bucket")
+                .key(key)
+                .concurrencyLimiter(limiter)
+                .build();
+
+        ByteBuffer dst = ByteBuffer.allocate(100);
+        assertEquals(100, ch.read(dst, 200));
+        assertArrayEquals(Arrays.copyOfRange(content, 200, 300), dst.array());
+        verify(throttled, times(2)).getObject(any(GetObjectRequest.class));
+        assertEquals(4, limiter.limit());
+        assertEquals(0, limiter.inFlight());
+    }
+}
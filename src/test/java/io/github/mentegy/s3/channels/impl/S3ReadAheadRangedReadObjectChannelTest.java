@@ -0,0 +1,149 @@
+package io.github.mentegy.s3.channels.impl;
+
+import com.amazonaws.services.s3.model.GetObjectRequest;
+import io.github.mentegy.s3.channels.S3ReadableObjectChannel;
+import io.github.mentegy.s3.channels.testutils.InMemoryS3;
+import io.github.mentegy.s3.channels.util.DirectSlabBlockAllocator;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@Tag("fast")
+class S3ReadAheadRangedReadObjectChannelTest {
+    final String key = "S3ReadAheadRangedReadObjectChannelTest";
+    final byte[] content = InMemoryS3.randomBytes(1024);
+    InMemoryS3 store;
+    ExecutorService executor;
+    S3ReadAheadRangedReadObjectChannel s3Channel;
+
+    @BeforeEach
+    void prepare() {
+        store = new InMemoryS3().put("bucket", key, content);
+        executor = Executors.newFixedThreadPool(2);
+        s3Channel = (S3ReadAheadRangedReadObjectChannel) S3ReadableObjectChannel.builder()
+                .amazonS3(store.s3)
+                .bucket("bucket")
+                .key(key)
+                .buffered(100)
+                .readAhead(3)
+                .executorService(executor)
+                .build();
+    }
+
+    @AfterEach
+    void cleanup() {
+        s3Channel.close();
+        assertFalse(s3Channel.isOpen());
+        executor.shutdown();
+    }
+
+    @Test
+    void testSequentialScan() throws IOException {
+        ByteBuffer dst = ByteBuffer.allocate(30);
+        int pos = 0;
+        while (pos < content.length) {
+            dst.clear();
+            int read = s3Channel.read(dst);
+            assertArrayEquals(Arrays.copyOfRange(content, pos, pos + read), Arrays.copyOf(dst.array(), read));
+            pos += read;
+        }
+        assertEquals(content.length, s3Channel.position());
+        // one request per block of 100 bytes, nothing is fetched twice
+        verify(store.s3, times(11)).getObject(any(GetObjectRequest.class));
+    }
+
+    @Test
+    void testPrefetchedBlocksAreUsed() throws Exception {
+        s3Channel.read(ByteBuffer.allocate(10), 0);
+        s3Channel.read(ByteBuffer.allocate(10), 10);
+        assertEquals(3, s3Channel.ahead.size());
+        for (S3ReadAheadRangedReadObjectChannel.Block b : s3Channel.ahead) {
+            b.data.get();
+        }
+        clearInvocations(store.s3);
+
+        ByteBuffer dst = ByteBuffer.allocate(100);
+        assertEquals(100, s3Channel.read(dst, 150));
+        assertArrayEquals(Arrays.copyOfRange(content, 150, 250), dst.array());
+        verify(store.s3, never()).getObject(any(GetObjectRequest.class));
+    }
+
+    @Test
+    void testRandomReadDropsPrefetchedBlocks() throws IOException {
+        s3Channel.read(ByteBuffer.allocate(10), 0);
+        s3Channel.read(ByteBuffer.allocate(10), 10);
+        assertFalse(s3Channel.ahead.isEmpty());
+
+        ByteBuffer dst = ByteBuffer.allocate(10);
+        assertEquals(10, s3Channel.read(dst, 900));
+        assertArrayEquals(Arrays.copyOfRange(content, 900, 910), dst.array());
+        assertTrue(s3Channel.ahead.isEmpty());
+    }
+
+    @Test
+    void testOffHeapBlocksAreGivenBack() throws Exception {
+        DirectSlabBlockAllocator allocator = new DirectSlabBlockAllocator(100, 4, 1);
+        S3ReadAheadRangedReadObjectChannel ch = (S3ReadAheadRangedReadObjectChannel) S3ReadableObjectChannel.builder()
+                .amazonS3(store.s3)
+                .bucket("bucket")
+                .key(key)
+                .buffered(allocator)
+                .readAhead(3)
+                .executorService(executor)
+                .build();
+
+        ByteBuffer dst = ByteBuffer.allocate(40);
+        for (int pos = 0; pos < 600; pos += 40) {
+            dst.clear();
+            assertEquals(40, ch.read(dst));
+            assertArrayEquals(Arrays.copyOfRange(content, pos, pos + 40), dst.array());
+        }
+        // random read drops blocks ahead
+        dst.clear();
+        assertEquals(40, ch.read(dst, 10));
+        assertArrayEquals(Arrays.copyOfRange(content, 10, 50), dst.array());
+
+        ch.close();
+        executor.shutdown();
+        executor.awaitTermination(5, java.util.concurrent.TimeUnit.SECONDS);
+        assertEquals(4, allocator.freeBlocks());
+    }
+
+    @Test
+    void testReadAcrossEnd() throws IOException {
+        ByteBuffer dst = ByteBuffer.allocate(50);
+        assertEquals(50, s3Channel.read(dst, 950));
+        dst.clear();
+        assertEquals(24, s3Channel.read(dst, 1000));
+        assertArrayEquals(Arrays.copyOfRange(content, 1000, 1024), Arrays.copyOf(dst.array(), 24));
+    }
+
+    @Test
+    void testPrefetchAfterReadBiggerThanBuffer() throws Exception {
+        s3Channel.read(ByteBuffer.allocate(10), 0);
+        // bypasses buffer, which is left at [0, 100)
+        assertEquals(300, s3Channel.read(ByteBuffer.allocate(300), 10));
+        // next blocks follow the reader, not the stale buffer
+        assertEquals(3, s3Channel.ahead.size());
+        assertEquals(310, s3Channel.ahead.peekFirst().offset);
+        for (S3ReadAheadRangedReadObjectChannel.Block b : s3Channel.ahead) {
+            b.data.get();
+        }
+        clearInvocations(store.s3);
+        ByteBuffer dst = ByteBuffer.allocate(100);
+        assertEquals(100, s3Channel.read(dst, 310));
+        assertArrayEquals(Arrays.copyOfRange(content, 310, 410), dst.array());
+        // the first prefetched block is used, one more is scheduled
+        verify(store.s3, timeout(1000).times(1)).getObject(any(GetObjectRequest.class));
+    }
+}
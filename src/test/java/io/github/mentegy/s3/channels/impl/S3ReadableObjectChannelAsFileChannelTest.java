@@ -0,0 +1,117 @@
+package io.github.mentegy.s3.channels.impl;
+
+import com.amazonaws.services.s3.model.GetObjectRequest;
+import io.github.mentegy.s3.channels.S3ReadableObjectChannel;
+import io.github.mentegy.s3.channels.testutils.InMemoryS3;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.NonWritableChannelException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@Tag("fast")
+class S3ReadableObjectChannelAsFileChannelTest {
+    final String key = "S3ReadableObjectChannelAsFileChannelTest";
+    final byte[] content = InMemoryS3.randomBytes(10_000);
+    InMemoryS3 store;
+    Path dir;
+    S3ReadableObjectChannelAsFileChannel channel;
+
+    @BeforeEach
+    void prepare() throws IOException {
+        store = new InMemoryS3().put("bucket", key, content);
+        dir = Files.createTempDirectory(key);
+        channel = new S3ReadableObjectChannelAsFileChannel(S3ReadableObjectChannel.builder()
+                .amazonS3(store.s3)
+                .bucket("bucket")
+                .key(key)
+                .build(), dir, 1000);
+    }
+
+    @AfterEach
+    void cleanup() throws IOException {
+        channel.close();
+        assertFalse(channel.isOpen());
+        try (java.util.stream.Stream<Path> files = Files.list(dir)) {
+            assertEquals(0, files.count());
+        }
+        Files.delete(dir);
+    }
+
+    void assertMapped(MappedByteBuffer mapped, int position) {
+        byte[] actual = new byte[mapped.remaining()];
+        mapped.get(actual);
+        assertArrayEquals(Arrays.copyOfRange(content, position, position + actual.length), actual);
+    }
+
+    @Test
+    void testMapFetchesRegionsOnDemand() throws IOException {
+        assertMapped(channel.map(FileChannel.MapMode.READ_ONLY, 1500, 1000), 1500);
+        verify(store.s3, times(2)).getObject(any(GetObjectRequest.class));
+
+        // already fetched regions are not requested again
+        assertMapped(channel.map(FileChannel.MapMode.READ_ONLY, 1000, 2000), 1000);
+        verify(store.s3, times(2)).getObject(any(GetObjectRequest.class));
+
+        assertMapped(channel.map(FileChannel.MapMode.READ_ONLY, 9990, 10), 9990);
+        verify(store.s3, times(3)).getObject(any(GetObjectRequest.class));
+        assertEquals(0, channel.map(FileChannel.MapMode.READ_ONLY, 10_000, 0).remaining());
+
+        assertThrows(NonWritableChannelException.class, () -> channel.map(FileChannel.MapMode.READ_WRITE, 0, 10));
+        assertThrows(IllegalArgumentException.class, () -> channel.map(FileChannel.MapMode.READ_ONLY, 9000, 2000));
+    }
+
+    @Test
+    void testMapClosedChannel() throws IOException {
+        assertMapped(channel.map(FileChannel.MapMode.READ_ONLY, 0, 100), 0);
+        channel.close();
+        assertThrows(ClosedChannelException.class, () -> channel.map(FileChannel.MapMode.READ_ONLY, 0, 100));
+        // local file is not recreated
+        try (java.util.stream.Stream<Path> files = Files.list(dir)) {
+            assertEquals(0, files.count());
+        }
+    }
+
+    @Test
+    void testBuildAsFileChannel() throws IOException {
+        try (S3ReadableObjectChannelAsFileChannel built = S3ReadableObjectChannel.builder()
+                .amazonS3(store.s3)
+                .bucket("bucket")
+                .key(key)
+                .buildAsFileChannel(dir, 500)) {
+            assertEquals(500, built.regionSize);
+            assertMapped(built.map(FileChannel.MapMode.READ_ONLY, 400, 200), 400);
+            verify(store.s3, times(2)).getObject(any(GetObjectRequest.class));
+        }
+        S3ReadableObjectChannel s3Channel = mock(S3ReadableObjectChannel.class);
+        assertThrows(IllegalArgumentException.class, () -> new S3ReadableObjectChannelAsFileChannel(s3Channel, dir, 0));
+        assertThrows(IllegalArgumentException.class, () -> new S3ReadableObjectChannelAsFileChannel(s3Channel, dir, -1));
+    }
+
+    @Test
+    void testReadsAreDelegated() throws IOException {
+        assertEquals(10_000, channel.size());
+        ByteBuffer dst = ByteBuffer.allocate(100);
+        channel.position(200);
+        assertEquals(100, channel.read(dst));
+        assertEquals(300, channel.position());
+        assertArrayEquals(Arrays.copyOfRange(content, 200, 300), dst.array());
+        dst.clear();
+        assertEquals(100, channel.read(dst, 5000));
+        assertArrayEquals(Arrays.copyOfRange(content, 5000, 5100), dst.array());
+        assertThrows(UnsupportedOperationException.class, () -> channel.write(ByteBuffer.allocate(1)));
+        assertThrows(UnsupportedOperationException.class, () -> channel.truncate(1));
+    }
+}
@@ -0,0 +1,157 @@
+package io.github.mentegy.s3.channels.impl;
+
+import com.amazonaws.services.s3.model.GetObjectRequest;
+import io.github.mentegy.s3.channels.InputPolicy;
+import io.github.mentegy.s3.channels.S3ReadableObjectChannel;
+import io.github.mentegy.s3.channels.testutils.InMemoryS3;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@Tag("fast")
+class S3StreamingReadObjectChannelTest {
+    final String key = "S3StreamingReadObjectChannelTest";
+    final byte[] content = InMemoryS3.randomBytes(1000);
+    InMemoryS3 store;
+
+    @BeforeEach
+    void prepare() {
+        store = new InMemoryS3().put("bucket", key, content);
+    }
+
+    S3StreamingReadObjectChannel channel(InputPolicy policy) {
+        return (S3StreamingReadObjectChannel) S3ReadableObjectChannel.builder()
+                .amazonS3(store.s3)
+                .bucket("bucket")
+                .key(key)
+                .inputPolicy(policy)
+                .seekThreshold(100)
+                .build();
+    }
+
+    void assertRead(S3ReadableObjectChannel ch, long position, int length) throws IOException {
+        ByteBuffer dst = ByteBuffer.allocate(length);
+        assertEquals(length, ch.read(dst, position));
+        assertArrayEquals(Arrays.copyOfRange(content, (int) position, (int) position + length), dst.array());
+    }
+
+    @Test
+    void testSequentialScanUsesSingleRequest() throws IOException {
+        S3StreamingReadObjectChannel ch = channel(InputPolicy.SEQUENTIAL);
+        ByteBuffer dst = ByteBuffer.allocate(30);
+        int pos = 0;
+        while (pos < content.length) {
+            dst.clear();
+            int read = ch.read(dst);
+            assertArrayEquals(Arrays.copyOfRange(content, pos, pos + read), Arrays.copyOf(dst.array(), read));
+            pos += read;
+        }
+        dst.clear();
+        assertEquals(-1, ch.read(dst));
+        assertNull(ch.stream);
+        verify(store.s3, times(1)).getObject(any(GetObjectRequest.class));
+        ch.close();
+    }
+
+    @Test
+    void testReadToEndOfObject() throws IOException {
+        for (InputPolicy policy : InputPolicy.values()) {
+            for (boolean lazyOpen : new boolean[]{false, true}) {
+                S3ReadableObjectChannel ch = S3ReadableObjectChannel.builder()
+                        .amazonS3(store.s3)
+                        .bucket("bucket")
+                        .key(key)
+                        .inputPolicy(policy)
+                        .lazyOpen(lazyOpen)
+                        .build();
+                ByteBuffer dst = ByteBuffer.allocate(content.length + 100);
+                int reads = 0;
+                while (ch.read(dst) != -1) {
+                    assertTrue(++reads < 10, "read loop does not end");
+                }
+                assertEquals(content.length, ch.position());
+                assertArrayEquals(content, Arrays.copyOf(dst.array(), content.length));
+                // position does not move at the end of object
+                assertEquals(-1, ch.read(ByteBuffer.allocate(10)));
+                assertEquals(content.length, ch.position());
+                ch.close();
+            }
+        }
+    }
+
+    @Test
+    void testSeeks() throws IOException {
+        S3StreamingReadObjectChannel ch = channel(InputPolicy.SEQUENTIAL);
+        assertRead(ch, 0, 10);
+        // forward within threshold skips bytes of open stream
+        assertRead(ch, 100, 10);
+        verify(store.s3, times(1)).getObject(any(GetObjectRequest.class));
+        // forward beyond threshold
+        assertRead(ch, 500, 10);
+        verify(store.s3, times(2)).getObject(any(GetObjectRequest.class));
+        // backward
+        assertRead(ch, 20, 10);
+        verify(store.s3, times(3)).getObject(any(GetObjectRequest.class));
+        ch.close();
+        assertNull(ch.stream);
+    }
+
+    @Test
+    void testRandomPolicy() throws IOException {
+        S3StreamingReadObjectChannel ch = channel(InputPolicy.RANDOM);
+        assertRead(ch, 0, 10);
+        assertRead(ch, 10, 10);
+        assertRead(ch, 20, 10);
+        assertNull(ch.stream);
+        verify(store.s3, times(3)).getObject(any(GetObjectRequest.class));
+    }
+
+    @Test
+    void testAdaptivePolicy() throws IOException {
+        S3StreamingReadObjectChannel ch = channel(InputPolicy.ADAPTIVE);
+        assertRead(ch, 0, 10);
+        assertRead(ch, 10, 10);
+        assertTrue(ch.sequential);
+        verify(store.s3, times(1)).getObject(any(GetObjectRequest.class));
+
+        // backward seek switches to random mode
+        assertRead(ch, 5, 10);
+        assertFalse(ch.sequential);
+        assertRead(ch, 700, 10);
+        assertFalse(ch.sequential);
+        verify(store.s3, times(3)).getObject(any(GetObjectRequest.class));
+
+        // consecutive sequential reads switch back
+        assertRead(ch, 710, 10);
+        assertFalse(ch.sequential);
+        assertRead(ch, 720, 10);
+        assertTrue(ch.sequential);
+        assertRead(ch, 730, 10);
+        assertRead(ch, 740, 10);
+        verify(store.s3, times(5)).getObject(any(GetObjectRequest.class));
+        ch.close();
+    }
+
+    @Test
+    void testScatteringReadFromStream() throws IOException {
+        S3StreamingReadObjectChannel ch = channel(InputPolicy.SEQUENTIAL);
+        ByteBuffer[] dsts = {ByteBuffer.allocate(10), ByteBuffer.allocate(20)};
+        assertEquals(30, ch.read(dsts));
+        assertArrayEquals(Arrays.copyOfRange(content, 0, 10), dsts[0].array());
+        assertArrayEquals(Arrays.copyOfRange(content, 10, 30), dsts[1].array());
+        dsts[0].clear();
+        dsts[1].clear();
+        assertEquals(30, ch.read(dsts));
+        assertEquals(60, ch.position());
+        assertArrayEquals(Arrays.copyOfRange(content, 40, 60), dsts[1].array());
+        verify(store.s3, times(1)).getObject(any(GetObjectRequest.class));
+        ch.close();
+    }
+}
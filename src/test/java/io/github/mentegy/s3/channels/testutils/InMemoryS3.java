@@ -0,0 +1,125 @@
+package io.github.mentegy.s3.channels.testutils;
+
+import com.amazonaws.services.s3.AmazonS3;
+import com.amazonaws.services.s3.Headers;
+import com.amazonaws.services.s3.model.AmazonS3Exception;
+import com.amazonaws.services.s3.model.GetObjectRequest;
+import com.amazonaws.services.s3.model.ListObjectsV2Request;
+import com.amazonaws.services.s3.model.ListObjectsV2Result;
+import com.amazonaws.services.s3.model.ObjectMetadata;
+import com.amazonaws.services.s3.model.S3Object;
+import com.amazonaws.services.s3.model.S3ObjectInputStream;
+import com.amazonaws.services.s3.model.S3ObjectSummary;
+import org.apache.http.client.methods.HttpGet;
+
+import java.io.ByteArrayInputStream;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.mockito.Mockito.*;
+
+/**
+ * Mocked {@link AmazonS3} client serving objects from memory.
+ * <p>
+ * Supports metadata (HEAD), listing, ranged and suffix ranged GET requests, which is enough for testing readable channels
+ * without real S3. Calls could be verified on {@link InMemoryS3#s3} as on any other mockito mock.
+ */
+public class InMemoryS3 {
+
+    public final AmazonS3 s3 = mock(AmazonS3.class);
+    private final Map<String, byte[]> objects = new ConcurrentHashMap<>();
+
+    public InMemoryS3() {
+        when(s3.getObjectMetadata(anyString(), anyString())).thenAnswer(inv ->
+                metadata(content(inv.getArgument(0), inv.getArgument(1)), null));
+        when(s3.getObject(any(GetObjectRequest.class))).thenAnswer(inv ->
+                getObject(inv.getArgument(0)));
+        when(s3.listObjectsV2(any(ListObjectsV2Request.class))).thenAnswer(inv ->
+                list(inv.getArgument(0)));
+    }
+
+    public static byte[] randomBytes(int size) {
+        byte[] content = new byte[size];
+        new Random().nextBytes(content);
+        return content;
+    }
+
+    public InMemoryS3 put(String bucket, String key, byte[] content) {
+        objects.put(bucket + "/" + key, content);
+        return this;
+    }
+
+    private byte[] content(String bucket, String key) {
+        byte[] content = objects.get(bucket + "/" + key);
+        if (content == null) {
+            AmazonS3Exception e = new AmazonS3Exception("The specified key does not exist");
+            e.setStatusCode(404);
+            throw e;
+        }
+        return content;
+    }
+
+    private S3Object getObject(GetObjectRequest req) {
+        byte[] content = content(req.getBucketName(), req.getKey());
+        if (!req.getMatchingETagConstraints().isEmpty() &&
+                !req.getMatchingETagConstraints().contains(etag(content))) {
+            return null;
+        }
+        long[] range = req.getRange();
+        String suffix = req.getCustomRequestHeaders() == null ? null : req.getCustomRequestHeaders().get(Headers.RANGE);
+        if (range == null && suffix != null && suffix.startsWith("bytes=-")) {
+            long n = Long.parseLong(suffix.substring("bytes=-".length()));
+            range = new long[]{Math.max(0, content.length - n), content.length - 1};
+        }
+        long start = range == null ? 0 : range[0];
+        long end = range == null || range.length < 2 ? content.length - 1 : Math.min(range[1], content.length - 1);
+        if (start >= content.length) {
+            AmazonS3Exception e = new AmazonS3Exception("The requested range is not satisfiable");
+            e.setStatusCode(416);
+            throw e;
+        }
+        byte[] slice = Arrays.copyOfRange(content, (int) start, (int) end + 1);
+
+        S3Object object = new S3Object();
+        object.setBucketName(req.getBucketName());
+        object.setKey(req.getKey());
+        object.setObjectMetadata(metadata(content, range == null ? null : new long[]{start, end}));
+        object.setObjectContent(new S3ObjectInputStream(new ByteArrayInputStream(slice), new HttpGet()));
+        return object;
+    }
+
+    private ListObjectsV2Result list(ListObjectsV2Request req) {
+        ListObjectsV2Result res = new ListObjectsV2Result();
+        res.setBucketName(req.getBucketName());
+        objects.entrySet().stream()
+                .filter(e -> e.getKey().startsWith(req.getBucketName() + "/" + req.getPrefix()))
+                .sorted(Map.Entry.comparingByKey())
+                .forEach(e -> {
+                    S3ObjectSummary summary = new S3ObjectSummary();
+                    summary.setBucketName(req.getBucketName());
+                    summary.setKey(e.getKey().substring(req.getBucketName().length() + 1));
+                    summary.setSize(e.getValue().length);
+                    summary.setETag(etag(e.getValue()));
+                    res.getObjectSummaries().add(summary);
+                });
+        return res;
+    }
+
+    private static String etag(byte[] content) {
+        return Integer.toHexString(Arrays.hashCode(content));
+    }
+
+    private static ObjectMetadata metadata(byte[] content, long[] range) {
+        ObjectMetadata meta = new ObjectMetadata();
+        meta.setHeader(Headers.ETAG, etag(content));
+        if (range == null) {
+            meta.setContentLength(content.length);
+        } else {
+            meta.setContentLength(range[1] - range[0] + 1);
+            meta.setHeader(Headers.CONTENT_RANGE, "bytes " + range[0] + "-" + range[1] + "/" + content.length);
+        }
+        return meta;
+    }
+}
@@ -0,0 +1,53 @@
+package io.github.mentegy.s3.channels.util;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@Tag("fast")
+class ByteBufferInputStreamTest {
+
+    @Test
+    void testReadDirectBuffer() throws Exception {
+        ByteBuffer buffer = ByteBuffer.allocateDirect(10);
+        for (int i = 0; i < 10; i++) {
+            buffer.put((byte) (i + 250));
+        }
+        buffer.position(2).limit(8);
+        InputStream is = new ByteBufferInputStream(buffer);
+
+        assertTrue(is.markSupported());
+        assertEquals(6, is.available());
+        assertEquals(252, is.read());
+        byte[] dst = new byte[10];
+        assertEquals(4, is.read(dst, 1, 4));
+        assertArrayEquals(new byte[]{0, (byte) 253, (byte) 254, (byte) 255, 0, 0, 0, 0, 0, 0}, dst);
+        assertEquals(1, is.read(dst));
+        assertEquals(1, dst[0]);
+        assertEquals(-1, is.read());
+        assertEquals(-1, is.read(dst));
+        assertEquals(0, is.read(dst, 0, 0));
+        // source buffer is untouched
+        assertEquals(2, buffer.position());
+        assertEquals(8, buffer.limit());
+    }
+
+    @Test
+    void testMarkAndReset() throws Exception {
+        InputStream is = new ByteBufferInputStream(ByteBuffer.wrap(new byte[]{0, 1, 2, 3, 4, 5}));
+        assertEquals(2, is.skip(2));
+        // reset without mark rewinds to the start
+        is.reset();
+        assertEquals(0, is.read());
+        is.mark(1);
+        assertEquals(5, is.skip(100));
+        assertEquals(0, is.skip(1));
+        is.reset();
+        assertEquals(1, is.read());
+        assertEquals(4, is.available());
+    }
+}
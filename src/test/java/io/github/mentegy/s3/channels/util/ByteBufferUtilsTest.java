@@ -3,9 +3,11 @@ package io.github.mentegy.s3.channels.util;
 import org.junit.jupiter.api.Tag;
 import org.junit.jupiter.api.Test;
 
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.nio.ByteBuffer;
+import java.util.Arrays;
 
 import static io.github.mentegy.s3.channels.util.ByteBufferUtils.*;
 import static org.junit.jupiter.api.Assertions.*;
@@ -44,6 +46,18 @@ class ByteBufferUtilsTest {
         assertEquals(2, bf1.remaining());
     }
 
+    @Test
+    void testPutBiggerBufferFromNonZeroPosition() {
+        ByteBuffer bf1 = ByteBuffer.allocate(3);
+        ByteBuffer bf2 = ByteBuffer.wrap(new byte[]{1, 2, 3, 4, 5, 6, 7, 8});
+        bf2.position(4);
+
+        assertEquals(3, putBiggerBuffer(bf1, bf2));
+        assertArrayEquals(new byte[]{5, 6, 7}, bf1.array());
+        assertEquals(7, bf2.position());
+        assertEquals(8, bf2.limit());
+    }
+
     @Test
     void testReadFromInputStream() throws IOException {
         InputStream is = new InputStream() {
@@ -64,9 +78,36 @@ class ByteBufferUtilsTest {
         assertEquals(50, readFromInputStream(is, ByteBuffer.allocate(100)));
 
         InputStream mocked = mock(InputStream.class);
-        when(mocked.read(any())).thenThrow(new RuntimeException());
+        when(mocked.read(any(), anyInt(), anyInt())).thenThrow(new RuntimeException());
         assertThrows(RuntimeException.class, () -> readFromInputStream(mocked, ByteBuffer.allocate(10), true));
         assertThrows(RuntimeException.class, () -> readFromInputStream(mocked, ByteBuffer.allocate(10), false));
         verify(mocked, times(1)).close();
     }
+
+    @Test
+    void testReadFromInputStreamIntoDirectAndSlicedBuffers() throws IOException {
+        byte[] content = new byte[_16_KB * 3 + 7];
+        new java.util.Random().nextBytes(content);
+
+        ByteBuffer direct = ByteBuffer.allocateDirect(content.length + 10);
+        direct.position(5);
+        assertEquals(content.length, readFromInputStream(new ByteArrayInputStream(content), direct));
+        byte[] actual = new byte[content.length];
+        direct.position(5);
+        direct.get(actual);
+        assertArrayEquals(content, actual);
+
+        ByteBuffer sliced = ByteBuffer.allocate(200);
+        sliced.position(50);
+        ByteBuffer slice = sliced.slice();
+        slice.position(10).limit(30);
+        assertEquals(20, readFromInputStream(new ByteArrayInputStream(content), slice));
+        assertEquals(30, slice.position());
+        assertArrayEquals(Arrays.copyOf(content, 20), Arrays.copyOfRange(sliced.array(), 60, 80));
+
+        // stream is not read beyond destination's remaining space
+        ByteArrayInputStream is = new ByteArrayInputStream(content);
+        assertEquals(10, readFromInputStream(is, ByteBuffer.allocateDirect(10)));
+        assertEquals(content.length - 10, is.available());
+    }
 }
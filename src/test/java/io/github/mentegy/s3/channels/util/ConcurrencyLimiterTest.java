@@ -0,0 +1,107 @@
+package io.github.mentegy.s3.channels.util;
+
+import com.amazonaws.AmazonServiceException;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@Tag("fast")
+class ConcurrencyLimiterTest {
+
+    static AmazonServiceException slowDown() {
+        AmazonServiceException e = new AmazonServiceException("Please reduce your request rate.");
+        e.setStatusCode(503);
+        e.setErrorCode("SlowDown");
+        return e;
+    }
+
+    @Test
+    void testAimd() {
+        ConcurrencyLimiter limiter = new ConcurrencyLimiter(4, 1, 8);
+        for (int i = 0; i < 4; i++) {
+            assertTrue(limiter.tryAcquire());
+        }
+        assertFalse(limiter.tryAcquire());
+        assertEquals(4, limiter.inFlight());
+
+        // about one window of successes increases limit by one
+        for (int i = 0; i < 4; i++) {
+            limiter.onSuccess();
+        }
+        assertEquals(4, limiter.limit());
+        assertTrue(limiter.tryAcquire());
+        limiter.onSuccess();
+        assertEquals(5, limiter.limit());
+        assertEquals(0, limiter.inFlight());
+
+        assertTrue(limiter.tryAcquire());
+        limiter.onThrottled();
+        assertEquals(2, limiter.limit());
+        assertTrue(limiter.tryAcquire());
+        limiter.onThrottled();
+        assertTrue(limiter.tryAcquire());
+        limiter.onThrottled();
+        assertEquals(1, limiter.limit());
+
+        assertTrue(limiter.tryAcquire());
+        limiter.onFailure();
+        assertEquals(1, limiter.limit());
+
+        for (int i = 0; i < 1000; i++) {
+            assertTrue(limiter.tryAcquire());
+            limiter.onSuccess();
+        }
+        assertEquals(8, limiter.limit());
+    }
+
+    @Test
+    void testBackoff() {
+        ConcurrencyLimiter limiter = new ConcurrencyLimiter(1, 1, 1, 0.5, 10, 100, TimeUnit.NANOSECONDS);
+        for (int i = 0; i < 100; i++) {
+            assertTrue(limiter.backoffNanos(0) <= 10);
+            assertTrue(limiter.backoffNanos(2) <= 40);
+            assertTrue(limiter.backoffNanos(5) <= 100);
+            assertTrue(limiter.backoffNanos(1000) <= 100);
+            assertTrue(limiter.backoffNanos(1000) >= 0);
+        }
+    }
+
+    @Test
+    void testCallRetriesThrottled() throws InterruptedException {
+        ConcurrencyLimiter limiter = new ConcurrencyLimiter(4, 1, 8, 0.5, 1, 1, TimeUnit.MILLISECONDS);
+        AtomicInteger calls = new AtomicInteger();
+        assertEquals("ok", limiter.call(() -> {
+            if (calls.incrementAndGet() < 3) {
+                throw slowDown();
+            }
+            return "ok";
+        }, 5));
+        assertEquals(3, calls.get());
+        // 4 -> 2 -> 1 on throttling, 1 -> 2 on success
+        assertEquals(2, limiter.limit());
+        assertEquals(0, limiter.inFlight());
+
+        assertThrows(AmazonServiceException.class, () -> limiter.call(() -> {
+            throw slowDown();
+        }, 1));
+        assertThrows(IllegalStateException.class, () -> limiter.call(() -> {
+            throw new IllegalStateException();
+        }, 1));
+        assertEquals(0, limiter.inFlight());
+    }
+
+    @Test
+    void testIsThrottling() {
+        assertTrue(ConcurrencyLimiter.isThrottling(slowDown()));
+        assertTrue(ConcurrencyLimiter.isThrottling(new CompletionException(slowDown())));
+        AmazonServiceException notFound = new AmazonServiceException("Not found");
+        notFound.setStatusCode(404);
+        assertFalse(ConcurrencyLimiter.isThrottling(notFound));
+        assertFalse(ConcurrencyLimiter.isThrottling(new IllegalStateException()));
+    }
+}
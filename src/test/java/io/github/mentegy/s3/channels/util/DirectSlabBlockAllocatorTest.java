@@ -0,0 +1,77 @@
+package io.github.mentegy.s3.channels.util;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@Tag("fast")
+class DirectSlabBlockAllocatorTest {
+
+    @Test
+    void testAllocateAndRelease() {
+        DirectSlabBlockAllocator allocator = new DirectSlabBlockAllocator(16, 4, 2);
+        assertEquals(16, allocator.blockSize());
+        assertEquals(0, allocator.slabs());
+
+        ByteBuffer b1 = allocator.allocate();
+        assertTrue(b1.isDirect());
+        assertEquals(16, b1.capacity());
+        assertEquals(16, b1.remaining());
+        assertEquals(1, allocator.slabs());
+        assertEquals(3, allocator.freeBlocks());
+
+        // blocks do not overlap
+        ByteBuffer b2 = allocator.allocate();
+        b1.put(0, (byte) 1);
+        b2.put(0, (byte) 2);
+        assertEquals(1, b1.get(0));
+
+        b1.position(5).limit(10);
+        allocator.release(b1);
+        assertEquals(3, allocator.freeBlocks());
+
+        // released block is reused and cleared
+        for (int i = 0; i < 3; i++) {
+            ByteBuffer b = allocator.allocate();
+            assertEquals(0, b.position());
+            assertEquals(16, b.limit());
+        }
+        assertEquals(1, allocator.slabs());
+        allocator.allocate();
+        assertEquals(2, allocator.slabs());
+    }
+
+    @Test
+    void testOtherSize() {
+        DirectSlabBlockAllocator allocator = new DirectSlabBlockAllocator(8, 2, 1);
+        ByteBuffer big = allocator.allocate(20);
+        assertTrue(big.isDirect());
+        assertEquals(20, big.capacity());
+        assertEquals(8, allocator.allocate(8).capacity());
+        assertEquals(1, allocator.slabs());
+        allocator.release(big);
+        assertEquals(1, allocator.freeBlocks());
+        assertThrows(IllegalArgumentException.class, () -> allocator.release(big));
+    }
+
+    @Test
+    void testExhausted() {
+        DirectSlabBlockAllocator allocator = new DirectSlabBlockAllocator(8, 2, 1);
+        allocator.allocate();
+        allocator.allocate();
+        assertThrows(IllegalStateException.class, allocator::allocate);
+    }
+
+    @Test
+    void testInvalidArgs() {
+        assertThrows(IllegalArgumentException.class, () -> new DirectSlabBlockAllocator(0, 1, 1));
+        assertThrows(IllegalArgumentException.class, () -> new DirectSlabBlockAllocator(1 << 20, 1 << 12, 1));
+
+        DirectSlabBlockAllocator allocator = new DirectSlabBlockAllocator(8, 2, 1);
+        assertThrows(IllegalArgumentException.class, () -> allocator.release(ByteBuffer.allocate(8)));
+        assertThrows(IllegalArgumentException.class, () -> allocator.release(ByteBuffer.allocateDirect(4)));
+    }
+}
@@ -0,0 +1,51 @@
+package io.github.mentegy.s3.channels.util;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@Tag("fast")
+class HedgePolicyTest {
+
+    @Test
+    void testDelay() {
+        HedgePolicy policy = new HedgePolicy(null, 0.9, 0.1, 5, TimeUnit.NANOSECONDS, 100);
+        for (int i = 1; i < HedgePolicy.MIN_SAMPLES; i++) {
+            policy.record(i);
+        }
+        assertEquals(-1, policy.delayNanos());
+        for (int i = HedgePolicy.MIN_SAMPLES; i <= 100; i++) {
+            policy.record(i);
+        }
+        assertEquals(90, policy.delayNanos());
+
+        // window slides
+        for (int i = 0; i < 100; i++) {
+            policy.record(1);
+        }
+        assertEquals(5, policy.delayNanos());
+
+        assertThrows(IllegalArgumentException.class, () -> new HedgePolicy(null, 0, 0.1));
+    }
+
+    @Test
+    void testHedgeRatio() {
+        HedgePolicy policy = new HedgePolicy(null, 0.9, 0.1);
+        for (int i = 0; i < 9; i++) {
+            policy.onRequest();
+        }
+        assertFalse(policy.tryHedge());
+        policy.onRequest();
+        assertTrue(policy.tryHedge());
+        assertFalse(policy.tryHedge());
+        for (int i = 0; i < 10; i++) {
+            policy.onRequest();
+        }
+        assertTrue(policy.tryHedge());
+        assertEquals(20, policy.requests());
+        assertEquals(2, policy.hedges());
+    }
+}
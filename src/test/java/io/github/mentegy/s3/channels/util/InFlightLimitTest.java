@@ -0,0 +1,59 @@
+package io.github.mentegy.s3.channels.util;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@Tag("fast")
+class InFlightLimitTest {
+
+    @Test
+    void testLimits() throws Exception {
+        InFlightLimit limit = new InFlightLimit(3, 25, 10, TimeUnit.MILLISECONDS);
+        assertTrue(limit.tryAcquire(10));
+        assertTrue(limit.tryAcquire(10));
+        // bytes limit
+        assertFalse(limit.tryAcquire(10));
+        assertTrue(limit.tryAcquire(5));
+        // parts limit
+        assertFalse(limit.tryAcquire(0));
+        assertFalse(limit.acquire(1));
+        assertEquals(3, limit.parts());
+        assertEquals(25, limit.bytes());
+
+        limit.forceAcquire(10);
+        assertEquals(4, limit.parts());
+        limit.release(10);
+        limit.release(10);
+        limit.release(10);
+        limit.release(5);
+        // part bigger than the limit is admitted if nothing is in flight
+        assertTrue(limit.tryAcquire(100));
+        limit.release(100);
+
+        assertThrows(IllegalArgumentException.class, () -> new InFlightLimit(0, 1));
+        assertThrows(IllegalArgumentException.class, () -> new InFlightLimit(1, 0));
+    }
+
+    @Test
+    void testAcquireWaitsForRelease() throws Exception {
+        InFlightLimit limit = new InFlightLimit(1, 100);
+        assertTrue(limit.tryAcquire(10));
+        CompletableFuture<Boolean> waiting = CompletableFuture.supplyAsync(() -> {
+            try {
+                return limit.acquire(10);
+            } catch (InterruptedException e) {
+                throw new IllegalStateException(e);
+            }
+        });
+        Thread.sleep(50);
+        assertFalse(waiting.isDone());
+        limit.release(10);
+        assertTrue(waiting.get(1, TimeUnit.SECONDS));
+        assertEquals(1, limit.parts());
+    }
+}
@@ -0,0 +1,55 @@
+package io.github.mentegy.s3.channels.util;
+
+import io.github.mentegy.s3.channels.S3WritableObjectChannel;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@Tag("fast")
+class PartSizePolicyTest {
+    static final long MB = 1024 * 1024;
+    static final long TB = MB * MB;
+
+    @Test
+    void testFixed() {
+        PartSizePolicy policy = PartSizePolicy.fixed(S3WritableObjectChannel.MIN_PART_SIZE);
+        assertEquals(S3WritableObjectChannel.MIN_PART_SIZE, policy.partSize(1));
+        assertEquals(S3WritableObjectChannel.MIN_PART_SIZE, policy.partSize(S3WritableObjectChannel.MAX_PARTS));
+        assertEquals(S3WritableObjectChannel.MAX_PARTS * 5 * MB, policy.maxObjectSize());
+    }
+
+    @Test
+    void testAdaptive() {
+        PartSizePolicy policy = PartSizePolicy.adaptive(S3WritableObjectChannel.MIN_PART_SIZE);
+        assertEquals(5 * MB, policy.partSize(1));
+        assertEquals(5 * MB, policy.partSize(500));
+        assertEquals(10 * MB, policy.partSize(501));
+        assertEquals(640 * MB, policy.partSize(4000));
+        assertEquals(PartSizePolicy.MAX_PART_SIZE, policy.partSize(4001));
+        assertEquals(PartSizePolicy.MAX_PART_SIZE, policy.partSize(S3WritableObjectChannel.MAX_PARTS));
+        // S3 max object size
+        assertTrue(policy.maxObjectSize() >= 5 * TB);
+
+        assertEquals(6, new PartSizePolicy(3, 1.5, 1, 10).partSize(3));
+        assertEquals(10, new PartSizePolicy(3, 1.5, 1, 10).partSize(10_000));
+    }
+
+    @Test
+    void testForObjectSize() {
+        assertEquals(5 * MB, PartSizePolicy.forObjectSize(10 * MB, (int) (5 * MB)).partSize(1));
+        PartSizePolicy policy = PartSizePolicy.forObjectSize(5 * TB, (int) (5 * MB));
+        assertEquals((5 * TB + 9_999) / 10_000, policy.partSize(1));
+        assertTrue(policy.maxObjectSize() >= 5 * TB);
+        assertThrows(IllegalArgumentException.class, () -> PartSizePolicy.forObjectSize(100 * TB, (int) (5 * MB)));
+    }
+
+    @Test
+    void testInvalidArgs() {
+        assertThrows(IllegalArgumentException.class, () -> new PartSizePolicy(0, 2, 1, 10));
+        assertThrows(IllegalArgumentException.class, () -> new PartSizePolicy(20, 2, 1, 10));
+        assertThrows(IllegalArgumentException.class, () -> new PartSizePolicy(1, 0.5, 1, 10));
+        assertThrows(IllegalArgumentException.class, () -> new PartSizePolicy(1, 2, 0, 10));
+        assertThrows(IllegalArgumentException.class, () -> new PartSizePolicy(1, 2, 1, Integer.MAX_VALUE));
+    }
+}
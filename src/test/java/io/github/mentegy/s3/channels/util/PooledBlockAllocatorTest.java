@@ -0,0 +1,53 @@
+package io.github.mentegy.s3.channels.util;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@Tag("fast")
+class PooledBlockAllocatorTest {
+
+    @Test
+    void testReuse() {
+        PooledBlockAllocator allocator = new PooledBlockAllocator(16, 2);
+        ByteBuffer a = allocator.allocate();
+        ByteBuffer b = allocator.allocate();
+        ByteBuffer c = allocator.allocate();
+        assertEquals(16, a.capacity());
+        assertTrue(a.hasArray());
+        assertEquals(3, allocator.allocated());
+
+        a.put((byte) 1);
+        allocator.release(a);
+        allocator.release(b);
+        // above the bound, left to GC
+        allocator.release(c);
+        allocator.release(ByteBuffer.allocate(8));
+        assertEquals(2, allocator.pooled());
+
+        ByteBuffer reused = allocator.allocate();
+        assertSame(a, reused);
+        assertEquals(0, reused.position());
+        assertEquals(16, reused.limit());
+        assertSame(b, allocator.allocate());
+        allocator.allocate();
+        assertEquals(4, allocator.allocated());
+
+        assertThrows(IllegalArgumentException.class, () -> new PooledBlockAllocator(0, 1));
+    }
+
+    @Test
+    void testDirect() {
+        PooledBlockAllocator allocator = new PooledBlockAllocator(16, 2, true);
+        ByteBuffer a = allocator.allocate();
+        assertTrue(a.isDirect());
+        // heap buffers are not pooled by direct allocator
+        allocator.release(ByteBuffer.allocate(16));
+        assertEquals(0, allocator.pooled());
+        allocator.release(a);
+        assertSame(a, allocator.allocate());
+    }
+}
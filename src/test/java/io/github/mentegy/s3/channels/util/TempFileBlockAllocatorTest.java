@@ -0,0 +1,87 @@
+package io.github.mentegy.s3.channels.util;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Comparator;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+@Tag("fast")
+class TempFileBlockAllocatorTest {
+    Path directory;
+
+    @BeforeEach
+    void prepare() throws IOException {
+        directory = Files.createTempDirectory("temp-file-blocks");
+    }
+
+    @AfterEach
+    void cleanup() throws IOException {
+        try (Stream<Path> files = Files.walk(directory)) {
+            files.sorted(Comparator.reverseOrder()).forEach(p -> p.toFile().delete());
+        }
+    }
+
+    private long files() throws IOException {
+        try (Stream<Path> files = Files.list(directory.resolve("parts"))) {
+            return files.count();
+        }
+    }
+
+    @Test
+    void testAllocateAndRelease() throws IOException {
+        TempFileBlockAllocator allocator = new TempFileBlockAllocator(directory.resolve("parts"), 4096);
+        ByteBuffer a = allocator.allocate();
+        ByteBuffer b = allocator.allocate();
+        assertTrue(a.isDirect());
+        assertEquals(4096, a.capacity());
+        assertEquals(0, a.position());
+        assertEquals(2, allocator.blocks());
+        assertEquals(2, files());
+
+        while (a.hasRemaining()) {
+            a.put((byte) 7);
+        }
+        a.flip();
+        byte[] bytes = new byte[4096];
+        assertEquals(4096, new ByteBufferInputStream(a).read(bytes));
+        assertEquals(7, bytes[4095]);
+
+        allocator.release(a);
+        assertEquals(1, allocator.blocks());
+        assertEquals(1, files());
+        assertThrows(IllegalArgumentException.class, () -> allocator.release(a));
+        assertThrows(IllegalArgumentException.class, () -> allocator.release(ByteBuffer.allocate(4096)));
+        allocator.release(b);
+        assertEquals(0, files());
+    }
+
+    @Test
+    void testReleaseUnmapsBlock() throws IOException {
+        Path maps = Paths.get("/proc/self/maps");
+        assumeTrue(Files.isReadable(maps), "no /proc/self/maps on this platform");
+        TempFileBlockAllocator allocator = new TempFileBlockAllocator(directory, 4096);
+        for (int i = 0; i < 16; i++) {
+            ByteBuffer block = allocator.allocate();
+            block.put((byte) i);
+            allocator.release(block);
+        }
+        ByteBuffer kept = allocator.allocate();
+        // the only remaining mapping of the directory is the block in use
+        long mappings = Files.readAllLines(maps).stream()
+                .filter(line -> line.contains(directory.toString()))
+                .count();
+        assertEquals(1, mappings);
+        allocator.release(kept);
+    }
+}